@@ -12,32 +12,17 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.data.jdbc.core.convert.JdbcCustomConversions;
-import org.springframework.data.jdbc.repository.QueryMappingConfiguration;
 import org.springframework.data.jdbc.repository.config.AbstractJdbcConfiguration;
-import org.springframework.data.jdbc.repository.config.DefaultQueryMappingConfiguration;
 import org.springframework.data.jdbc.repository.config.EnableJdbcRepositories;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
-import com.webforged.enforcer.management.data.AllowedArtifact;
-import com.webforged.enforcer.management.data.AllowedArtifactRowMapper;
-import com.webforged.enforcer.management.data.Artifact;
-import com.webforged.enforcer.management.data.ArtifactRowMapper;
-import com.webforged.enforcer.management.data.Build;
-import com.webforged.enforcer.management.data.BuildItem;
-import com.webforged.enforcer.management.data.BuildItemRowMapper;
-import com.webforged.enforcer.management.data.BuildRowMapper;
-import com.webforged.enforcer.management.data.Component;
-import com.webforged.enforcer.management.data.ComponentRowMapper;
-import com.webforged.enforcer.management.data.LicensedArtifact;
-import com.webforged.enforcer.management.data.LicensedArtifactRowMapper;
-import com.webforged.enforcer.management.data.Project;
-import com.webforged.enforcer.management.data.ProjectRowMapper;
+import com.zaxxer.hikari.HikariDataSource;
+
 import com.webforged.enforcer.management.util.Jsr310NullConverters;
 
 
@@ -58,18 +43,52 @@ public class ApplicationConfig extends AbstractJdbcConfiguration {
 	@Value("${spring.datasource.password}")
 	private String password;
 
+	@Value("${datasource.pool.min-idle:2}")
+	private int minIdle;
+
+	@Value("${datasource.pool.max-size:10}")
+	private int maxSize;
+
+	@Value("${datasource.pool.connection-timeout-ms:30000}")
+	private long connectionTimeout;
+
+	@Value("${datasource.pool.idle-timeout-ms:600000}")
+	private long idleTimeout;
+
+	@Value("${datasource.pool.max-lifetime-ms:1800000}")
+	private long maxLifetime;
+
+	@Value("${datasource.pool.leak-detection-ms:20000}")
+	private long leakDetectionThreshold;
+
+	@Value("${datasource.pool.statement-cache-size:256}")
+	private int statementCacheSize;
+
 	public ApplicationConfig() {
 		super();
 		SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_INHERITABLETHREADLOCAL) ;
 	}
 
+	/**
+	 * Pooled connections.  Spring Boot binds the pool to the actuator's MeterRegistry, so hikaricp.connections.active,
+	 * .pending and .usage show saturation.  Statement caching is left to the postgres driver, which keeps
+	 * statementCacheSize server side prepared statements per pooled connection.
+	 */
 	@Bean
 	public DataSource dataSource() {
-		DriverManagerDataSource dataSource = new DriverManagerDataSource();
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setPoolName( "governance" );
 		dataSource.setDriverClassName( dbdriver );
-		dataSource.setUrl( url );
+		dataSource.setJdbcUrl( url );
 		dataSource.setUsername( username );
 		dataSource.setPassword( password );
+		dataSource.setMinimumIdle( minIdle );
+		dataSource.setMaximumPoolSize( maxSize );
+		dataSource.setConnectionTimeout( connectionTimeout );
+		dataSource.setIdleTimeout( idleTimeout );
+		dataSource.setMaxLifetime( maxLifetime );
+		dataSource.setLeakDetectionThreshold( leakDetectionThreshold );
+		dataSource.addDataSourceProperty( "preparedStatementCacheQueries", statementCacheSize );
 		
 		transactionManager(dataSource);
 
@@ -93,17 +112,4 @@ public class ApplicationConfig extends AbstractJdbcConfiguration {
 		all.addAll(custom);
 		return new JdbcCustomConversions( all );
 	}
-
-	@Bean
-	QueryMappingConfiguration rowMappers() {
-		return new DefaultQueryMappingConfiguration()
-				.registerRowMapper(Project.class, new ProjectRowMapper() )
-				.registerRowMapper(Component.class, new ComponentRowMapper() )
-				.registerRowMapper(Artifact.class, new ArtifactRowMapper() )
-				.registerRowMapper(AllowedArtifact.class, new AllowedArtifactRowMapper() )
-				.registerRowMapper(LicensedArtifact.class, new LicensedArtifactRowMapper() )
-				.registerRowMapper(Build.class, new BuildRowMapper() )
-				.registerRowMapper(BuildItem.class, new BuildItemRowMapper() )
-				;
-	}
 }
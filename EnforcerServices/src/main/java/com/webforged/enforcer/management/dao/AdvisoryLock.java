@@ -0,0 +1,43 @@
+package com.webforged.enforcer.management.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+/**
+ * A postgres session advisory lock around background work, so only one instance of the services does it at a time.
+ * The lock is held by a connection of its own and goes away with it if the instance dies.
+ */
+final class AdvisoryLock {
+	private AdvisoryLock() {}
+
+	/**
+	 * @return false when another session holds the lock and the work was not run
+	 */
+	static boolean runExclusively( DataSource dataSource, long key, Runnable work ) throws SQLException {
+		try( Connection conn = dataSource.getConnection() ) {
+			boolean locked ;
+			try( PreparedStatement ps = conn.prepareStatement( "SELECT pg_try_advisory_lock(?)" ) ) {
+				ps.setLong( 1, key );
+				try( ResultSet rs = ps.executeQuery() ) {
+					locked = rs.next() && rs.getBoolean( 1 ) ;
+				}
+			}
+			if( !locked ) {
+				return false ;
+			}
+			try {
+				work.run();
+			} finally {
+				try( PreparedStatement ps = conn.prepareStatement( "SELECT pg_advisory_unlock(?)" ) ) {
+					ps.setLong( 1, key );
+					ps.executeQuery().close();
+				}
+			}
+			return true ;
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package com.webforged.enforcer.management.dao;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import com.webforged.enforcer.management.data.Artifact;
+import com.webforged.enforcer.management.data.ArtifactsRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Read-through cache of the artifact lookups, by id, by group and artifact name and by status.  Artifact lifecycle
+ * data changes a few times a day, so nearly every read is answered without going to the database.
+ *
+ * Whoever writes Artifacts through this service calls {@link #evict} with the rows before and after the change,
+ * which drops exactly the entries those rows appear in, and tells the eviction listeners, caches built from every
+ * artifact at once.  The build plugins insert CREATED placeholders directly, artifact.cache.ttl bounds how long
+ * those stay invisible here.
+ *
+ * Hits and misses are published as cache.gets{cache=artifacts.*,result=hit|miss}.
+ */
+@org.springframework.stereotype.Component
+public class ArtifactCache {
+	static Logger logger = LoggerFactory.getLogger( ArtifactCache.class ) ;
+
+	private final ArtifactsRepository repository ;
+	private final Cache<Long,Artifact> byId ;
+	private final Cache<List<String>,List<Artifact>> byGroupAndArtifact ;
+	private final Cache<String,List<Artifact>> byStatus ;
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<Runnable>() ;
+
+	public ArtifactCache( ArtifactsRepository repository, MeterRegistry registry,
+			@Value( "${artifact.cache.max-entries:10000}" ) long maxEntries,
+			@Value( "${artifact.cache.ttl:300}" ) long ttl ) {
+		this.repository = repository ;
+		this.byId = Caffeine.newBuilder()
+				.maximumSize( maxEntries )
+				.expireAfterWrite( ttl, TimeUnit.SECONDS )
+				.recordStats()
+				.build() ;
+		// the lists are weighed by their length, so one huge status list cannot crowd out everything else.
+		this.byGroupAndArtifact = Caffeine.newBuilder()
+				.maximumWeight( maxEntries )
+				.weigher( (List<String> key, List<Artifact> value) -> value.size() + 1 )
+				.expireAfterWrite( ttl, TimeUnit.SECONDS )
+				.recordStats()
+				.build() ;
+		this.byStatus = Caffeine.newBuilder()
+				.maximumWeight( maxEntries )
+				.weigher( (String key, List<Artifact> value) -> value.size() + 1 )
+				.expireAfterWrite( ttl, TimeUnit.SECONDS )
+				.recordStats()
+				.build() ;
+		CaffeineCacheMetrics.monitor( registry, byId, "artifacts.byId" ) ;
+		CaffeineCacheMetrics.monitor( registry, byGroupAndArtifact, "artifacts.byGroupAndArtifact" ) ;
+		CaffeineCacheMetrics.monitor( registry, byStatus, "artifacts.byStatus" ) ;
+	}
+
+	/**
+	 * @return the artifact, or null if there is none.  Unknown ids are not cached.
+	 */
+	public Artifact findById( Long artifactId ) {
+		return byId.get( artifactId, id -> repository.findById(id).orElse(null) ) ;
+	}
+
+	/**
+	 * @param artifactName null for every artifact of the group
+	 */
+	public List<Artifact> findByGroupAndArtifact( String groupName, String artifactName ) {
+		return byGroupAndArtifact.get( Arrays.asList(groupName, artifactName),
+				key -> Collections.unmodifiableList( repository.findByGroupAndArtifact(groupName, artifactName) ) ) ;
+	}
+
+	public List<Artifact> findByStatus( String status ) {
+		return byStatus.get( status, key -> Collections.unmodifiableList( repository.findByStatus(status) ) ) ;
+	}
+
+	/**
+	 * @param listener run after every eviction of at least one artifact
+	 */
+	public void addEvictionListener( Runnable listener ) {
+		listeners.add( listener ) ;
+	}
+
+	/**
+	 * Drop every entry the given rows appear in.  Pass an artifact's state before and after a change, either may be null.
+	 */
+	public void evict( Artifact... changed ) {
+		boolean evicted = false ;
+		for( Artifact a : changed ) {
+			if( a == null ) {
+				continue ;
+			}
+			evicted = true ;
+			if( a.getArtifact_id() != null ) {
+				byId.invalidate( a.getArtifact_id() ) ;
+			}
+			byGroupAndArtifact.invalidate( Arrays.asList(a.getGroup_name(), a.getArtifact_name()) ) ;
+			byGroupAndArtifact.invalidate( Arrays.asList(a.getGroup_name(), null) ) ;
+			if( a.getStatus() != null ) {
+				byStatus.invalidate( a.getStatus() ) ;
+			}
+			logger.debug( "evicted artifact " + a.getArtifact_id() ) ;
+		}
+		if( evicted ) {
+			for( Runnable listener : listeners ) {
+				listener.run() ;
+			}
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package com.webforged.enforcer.management.dao;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.webforged.enforcer.management.data.BuildsRepository;
+
+/**
+ * Keeps the monthly partitions of Builds and BuildItems(see db/changelog/004-partitioned-builds.xml).  Partitions
+ * are created builds.partitions.ahead months before they are needed, and the build history past its retention is
+ * removed on builds.pruner.cron.
+ *
+ * Retention is in whole months before the current one, builds.retention.months or the project's
+ * build_retention_months.  A month no project keeps any more is dropped as a pair of partitions, the projects
+ * keeping less than the longest retention have their older builds deleted in batches.  A component whose newest
+ * build is pruned leaves LatestBuilds, it no longer counts as using its artifacts.
+ *
+ * One instance of the services prunes at a time, the others skip the run.
+ */
+@org.springframework.stereotype.Component
+public class BuildPruner {
+	static Logger logger = LoggerFactory.getLogger( BuildPruner.class ) ;
+
+	static final long LOCK_KEY = 0x4275696c64507275L ;
+	static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern( "yyyyMM" ) ;
+
+	static final String PARTITIONS = "SELECT to_date(substr(c.relname, 9), 'YYYYMM') FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+			+ "WHERE i.inhparent = 'builds'::regclass AND c.relname ~ '^builds_p[0-9]{6}$' ORDER BY 1" ;
+	static final String RETENTIONS = "SELECT project_id, coalesce(build_retention_months, ?) FROM Projects" ;
+	// a batch of a project's builds and their items, the items found through their partition.
+	static final String DELETE_EXPIRED = "WITH doomed AS ("
+			+ "SELECT b.build_id, b.build_ts FROM Builds b JOIN Components c ON c.component_id = b.component_id "
+			+ "WHERE c.project_id = ? AND b.build_ts < ? LIMIT ?), "
+			+ "items AS (DELETE FROM BuildItems i USING doomed d WHERE i.build_id = d.build_id AND i.build_ts = d.build_ts) "
+			+ "DELETE FROM Builds b USING doomed d WHERE b.build_id = d.build_id AND b.build_ts = d.build_ts" ;
+	static final String LOST_LATEST = "DELETE FROM LatestBuilds l "
+			+ "WHERE NOT EXISTS (SELECT 1 FROM Builds b WHERE b.build_id = l.build_id AND b.build_ts = l.build_ts) RETURNING component_id" ;
+
+	private final JdbcTemplate jdbcTemplate ;
+	private final TransactionTemplate transactionTemplate ;
+	private final DataSource dataSource ;
+	private final BuildsRepository buildsRepository ;
+
+	@Value( "${builds.retention.months:24}" )
+	private int retentionMonths ;
+
+	@Value( "${builds.partitions.ahead:3}" )
+	private int monthsAhead ;
+
+	@Value( "${builds.pruner.batch-size:1000}" )
+	private int batchSize ;
+
+	@Value( "${builds.pruner.lock-timeout:5s}" )
+	private String lockTimeout ;
+
+	public BuildPruner( DataSource dataSource, BuildsRepository buildsRepository ) {
+		this.dataSource = dataSource ;
+		this.jdbcTemplate = new JdbcTemplate( dataSource ) ;
+		this.transactionTemplate = new TransactionTemplate( new DataSourceTransactionManager(dataSource) ) ;
+		this.buildsRepository = buildsRepository ;
+	}
+
+	@EventListener( ApplicationReadyEvent.class )
+	public void started() {
+		exclusively( "partition", this::createPartitions ) ;
+	}
+
+	@Scheduled( cron = "${builds.pruner.cron:0 30 2 * * *}" )
+	public void prune() {
+		exclusively( "prune", () -> {
+			createPartitions() ;
+			pruneExpired() ;
+		} ) ;
+	}
+
+	/**
+	 * This month's partitions and the builds.partitions.ahead after it.  Builds recorded for a month before its
+	 * partition exists wait in the default partition and are moved when it is created.
+	 */
+	void createPartitions() {
+		LocalDate month = LocalDate.now().withDayOfMonth( 1 ) ;
+		for( int i = 0; i <= monthsAhead; i++ ) {
+			jdbcTemplate.query( "SELECT build_partition(?)", (RowCallbackHandler) rs -> {}, Date.valueOf( month.plusMonths(i) ) ) ;
+		}
+	}
+
+	void pruneExpired() {
+		LocalDate thisMonth = LocalDate.now().withDayOfMonth( 1 ) ;
+		List<Object[]> retentions = jdbcTemplate.query( RETENTIONS, (rs, rowNum) -> new Object[] { rs.getLong(1), rs.getInt(2) }, retentionMonths ) ;
+		// builds.retention.months counts through the projects without their own, with no projects at all it stands.
+		int longest = retentions.isEmpty() ? retentionMonths : 0 ;
+		for( Object[] r : retentions ) {
+			longest = Math.max( longest, (Integer) r[1] ) ;
+		}
+		LocalDate horizon = thisMonth.minusMonths( longest ) ;
+
+		//
+		// months nobody keeps go a partition at a time.  The DROP needs a moment of exclusive access to the parent
+		// tables, it gives up after lock-timeout rather than queue every reader behind a long query.
+		//
+		int dropped = 0 ;
+		for( Date month : jdbcTemplate.queryForList( PARTITIONS, Date.class ) ) {
+			LocalDate m = month.toLocalDate() ;
+			if( !m.isBefore( horizon ) ) {
+				break ;
+			}
+			String suffix = m.format( SUFFIX ) ;
+			try {
+				transactionTemplate.execute( status -> {
+					jdbcTemplate.execute( "SET LOCAL lock_timeout = '" + lockTimeout + "'" ) ;
+					jdbcTemplate.execute( "DROP TABLE IF EXISTS builditems_p" + suffix + ", builds_p" + suffix ) ;
+					return null ;
+				} ) ;
+				dropped++ ;
+				logger.info( "dropped the build partitions of " + suffix ) ;
+			} catch( Exception others ) {
+				logger.warn( "could not drop the build partitions of " + suffix + ", next run will retry: " + others.toString() ) ;
+			}
+		}
+		// stragglers recorded for months that had already been dropped.
+		jdbcTemplate.update( "DELETE FROM builditems_default WHERE build_ts < ?", Date.valueOf( horizon ) ) ;
+		jdbcTemplate.update( "DELETE FROM builds_default WHERE build_ts < ?", Date.valueOf( horizon ) ) ;
+
+		//
+		// projects keeping less than the longest retention, a batch per transaction.
+		//
+		long deleted = 0 ;
+		for( Object[] r : retentions ) {
+			if( (Integer) r[1] >= longest ) {
+				continue ;
+			}
+			Date cutoff = Date.valueOf( thisMonth.minusMonths( (Integer) r[1] ) ) ;
+			int batch ;
+			do {
+				batch = jdbcTemplate.update( DELETE_EXPIRED, r[0], cutoff, batchSize ) ;
+				deleted += batch ;
+			} while( batch > 0 ) ;
+		}
+
+		int moved = 0 ;
+		for( Long componentId : jdbcTemplate.queryForList( LOST_LATEST, Long.class ) ) {
+			buildsRepository.refreshLatest( componentId ) ;
+			moved++ ;
+		}
+		logger.info( "build history before " + horizon + " pruned: " + dropped + " months dropped, " + deleted
+				+ " builds deleted past their project's retention, " + moved + " components' latest build pruned" ) ;
+	}
+
+	private void exclusively( String what, Runnable work ) {
+		try {
+			if( !AdvisoryLock.runExclusively( dataSource, LOCK_KEY, work ) ) {
+				logger.info( what + " skipped, another instance holds the build pruner lock" ) ;
+			}
+		} catch( Exception others ) {
+			logger.error( "build " + what + " error: " + others.toString(), others ) ;
+		}
+	}
+}
@@ -0,0 +1,260 @@
+package com.webforged.enforcer.management.dao;
+
+import java.io.StringReader;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+
+import com.webforged.enforcer.management.util.WrappedErrorException;
+import com.webforged.enforcer.openapi.model.ImportError;
+import com.webforged.enforcer.openapi.model.ImportReport;
+
+/**
+ * Drives the bulk imports.  The body, NDJSON or CSV by its Content-Type, is read a row at a time into the API model
+ * and handed to a {@link ChunkWriter} import.batch-size rows at a time, each chunk in a transaction of its own.  The
+ * writer looks up and validates the whole chunk at once and writes it set based.
+ *
+ * A row the writer rejects is reported and the rest of its chunk is written.  A chunk whose transaction fails is
+ * written again a row per transaction, so that only the rows the database refuses are reported.  The report lists
+ * up to import.max-errors failed rows, all of them are counted.
+ */
+@org.springframework.stereotype.Component
+public class BulkImporter {
+	static Logger logger = LoggerFactory.getLogger( BulkImporter.class ) ;
+	public static final MediaType NDJSON = MediaType.valueOf( "application/x-ndjson" ) ;
+	public static final MediaType CSV = MediaType.valueOf( "text/csv" ) ;
+
+	/**
+	 * Writes a chunk of rows, within a transaction.  Every row is marked created, updated or failed.
+	 */
+	public interface ChunkWriter<T> {
+		void write( List<Row<T>> chunk ) ;
+	}
+
+	public static class Row<T> {
+		final long number ;
+		final T value ;
+		String error ;
+		Boolean created ;
+
+		Row( long number, T value ) {
+			this.number = number ;
+			this.value = value ;
+		}
+
+		public long number() {
+			return number ;
+		}
+
+		public T value() {
+			return value ;
+		}
+
+		public boolean failed() {
+			return error != null ;
+		}
+
+		public void fail( String message ) {
+			error = message ;
+		}
+
+		public void created() {
+			created = Boolean.TRUE ;
+		}
+
+		public void updated() {
+			created = Boolean.FALSE ;
+		}
+	}
+
+	private final TransactionTemplate transactionTemplate ;
+	private final ObjectMapper objectMapper ;
+
+	@Value( "${import.batch-size:1000}" )
+	private int batchSize ;
+
+	@Value( "${import.max-errors:1000}" )
+	private int maxErrors ;
+
+	public BulkImporter( DataSource dataSource, ObjectMapper objectMapper ) {
+		this.transactionTemplate = new TransactionTemplate( new DataSourceTransactionManager(dataSource) ) ;
+		this.objectMapper = objectMapper ;
+	}
+
+	/**
+	 * @param what for the log
+	 * @param body the request body
+	 * @param type API model of a row
+	 * @param writer
+	 * @return rows read, created, updated and failed
+	 */
+	public <T> ImportReport run( String what, String body, Class<T> type, ChunkWriter<T> writer ) {
+		long start = System.currentTimeMillis() ;
+		ImportRows rows = open( body, type ) ;
+		ImportReport report = new ImportReport().rows( 0L ).created( 0L ).updated( 0L ).failed( 0L ).errors( new ArrayList<ImportError>() ) ;
+		List<Row<T>> chunk = new ArrayList<Row<T>>( batchSize ) ;
+		while( rows.hasNext() ) {
+			ImportRows.Row read = rows.next() ;
+			Row<T> row = new Row<T>( read.number, null ) ;
+			if( read.error != null ) {
+				row.fail( read.error ) ;
+			} else {
+				try {
+					row = new Row<T>( read.number, objectMapper.convertValue(read.values, type) ) ;
+				} catch( IllegalArgumentException iae ) {
+					row.fail( firstLine( NestedExceptionUtils.getMostSpecificCause(iae).getMessage() ) ) ;
+				}
+			}
+			if( row.failed() ) {
+				tally( report, row ) ;
+				continue ;
+			}
+			chunk.add( row ) ;
+			if( chunk.size() == batchSize ) {
+				flush( chunk, writer, report ) ;
+				chunk.clear();
+			}
+		}
+		flush( chunk, writer, report ) ;
+		report.getErrors().sort( Comparator.comparing(ImportError::getRow) );
+		logger.info( what + " import of " + report.getRows() + " rows: " + report.getCreated() + " created, " + report.getUpdated()
+				+ " updated, " + report.getFailed() + " failed in " + (System.currentTimeMillis() - start) + "ms" ) ;
+		return report ;
+	}
+
+	private <T> void flush( List<Row<T>> chunk, ChunkWriter<T> writer, ImportReport report ) {
+		if( chunk.isEmpty() ) {
+			return ;
+		}
+		try {
+			transactionTemplate.execute( status -> {
+				writer.write( chunk ) ;
+				return null ;
+			} ) ;
+		} catch( RuntimeException others ) {
+			String reason = firstLine( NestedExceptionUtils.getMostSpecificCause(others).getMessage() ) ;
+			if( chunk.size() == 1 ) {
+				chunk.get(0).fail( reason ) ;
+			} else {
+				// a row per transaction, to find the rows the database refuses.  The rows the writer rejected stay
+				// rejected, their chunk is what made them duplicates.
+				logger.warn( "import chunk from row " + chunk.get(0).number + " failed, writing it a row at a time: " + reason ) ;
+				for( Row<T> row : chunk ) {
+					if( row.failed() ) {
+						tally( report, row ) ;
+					} else {
+						row.created = null ;
+						flush( Collections.singletonList(row), writer, report ) ;
+					}
+				}
+				return ;
+			}
+		}
+		for( Row<T> row : chunk ) {
+			if( !row.failed() && row.created == null ) {
+				row.fail( "not written" ) ;
+			}
+			tally( report, row ) ;
+		}
+	}
+
+	private void tally( ImportReport report, Row<?> row ) {
+		report.setRows( report.getRows() + 1 ) ;
+		if( row.failed() ) {
+			report.setFailed( report.getFailed() + 1 ) ;
+			if( report.getErrors().size() < maxErrors ) {
+				report.addErrorsItem( new ImportError().row( row.number ).message( row.error ) ) ;
+			}
+		} else if( row.created ) {
+			report.setCreated( report.getCreated() + 1 ) ;
+		} else {
+			report.setUpdated( report.getUpdated() + 1 ) ;
+		}
+	}
+
+	/**
+	 * The rows of the body, by the request's Content-Type.  A CSV column the model does not have is refused rather
+	 * than dropped without a word.
+	 */
+	private ImportRows open( String body, Class<?> type ) {
+		String contentType = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest().getContentType() ;
+		try {
+			MediaType mediaType = contentType == null ? NDJSON : MediaType.parseMediaType( contentType ) ;
+			if( NDJSON.isCompatibleWith( mediaType ) ) {
+				return ImportRows.ndjson( new StringReader(body == null ? "" : body), objectMapper ) ;
+			}
+			if( CSV.isCompatibleWith( mediaType ) ) {
+				ImportRows rows = ImportRows.csv( new StringReader(body == null ? "" : body) ) ;
+				Set<String> known = new TreeSet<String>() ;
+				for( BeanPropertyDefinition property : objectMapper.getDeserializationConfig()
+						.introspect( objectMapper.constructType(type) ).findProperties() ) {
+					known.add( property.getName() ) ;
+				}
+				for( String column : rows.header() ) {
+					if( !known.contains( column ) ) {
+						throw new IllegalArgumentException( "unknown column " + column + ", the columns are " + known ) ;
+					}
+				}
+				return rows ;
+			}
+			throw new IllegalArgumentException( "Content-Type " + contentType + " is neither " + NDJSON + " nor " + CSV ) ;
+		} catch( Exception others ) {
+			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
+			e.setStatus( HttpStatus.BAD_REQUEST.value() );
+			e.setType( "Unreadable import: " + others.getMessage() );
+			throw new WrappedErrorException( e ) ;
+		}
+	}
+
+	/**
+	 * A column of a chunk as a postgres array, for writing it with unnest(?::type[],...) in one statement.
+	 * @param type the element type, e.g. varchar
+	 */
+	public static <R> Array array( Connection con, String type, List<R> rows, Function<R,?> column ) throws SQLException {
+		Object[] values = new Object[ rows.size() ] ;
+		for( int i = 0; i < values.length; i++ ) {
+			Object value = column.apply( rows.get(i) ) ;
+			if( value instanceof LocalDateTime ) {
+				value = Timestamp.valueOf( (LocalDateTime) value ) ;
+			} else if( value instanceof Instant ) {
+				value = Timestamp.from( (Instant) value ) ;
+			}
+			values[i] = value ;
+		}
+		return con.createArrayOf( type, values ) ;
+	}
+
+	private static String firstLine( String message ) {
+		if( message == null ) {
+			return "unknown error" ;
+		}
+		int eol = message.indexOf( '\n' ) ;
+		return eol < 0 ? message : message.substring( 0, eol ) ;
+	}
+}
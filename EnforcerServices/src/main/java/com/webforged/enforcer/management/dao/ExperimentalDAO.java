@@ -2,69 +2,110 @@ package com.webforged.enforcer.management.dao;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
-import com.webforged.enforcer.management.data.Build;
-import com.webforged.enforcer.management.data.BuildRowMapper;
-import com.webforged.enforcer.management.data.Component;
-import com.webforged.enforcer.management.data.ComponentRowMapper;
-import com.webforged.enforcer.management.data.Project;
-import com.webforged.enforcer.management.data.ProjectRowMapper;
+import com.webforged.enforcer.management.util.Jsr310NullConverters;
+import com.webforged.enforcer.openapi.model.Build;
+import com.webforged.enforcer.openapi.model.Component;
+import com.webforged.enforcer.openapi.model.Project;
+import com.webforged.enforcer.openapi.model.ProjectComponentBuild;
 
 @org.springframework.stereotype.Component
 public class ExperimentalDAO {
-	private JdbcTemplate jdbcTemplate;
+	// the columns are listed, not p.*, c.*, b.*, so each is read by its position in one pass straight into the
+	// response model.
+	static final String FIND_PROJECT_COMPONENT_BUILDS_BY_ARTIFACT_ID = "SELECT " +
+				"p.project_id, p.acronym, p.business_owner, p.it_owner, p.begin_date, p.end_date, p.build_retention_months, " +
+				"c.component_id, c.name, " +
+				"b.build_id, b.build_ts, b.component_version, b.infractions " +
+			"FROM artifacts a, latestbuilds l, builditems i, builds b, components c, projects p " +
+			"WHERE " +
+				"a.artifact_id = :artifactId " +
+				"and i.build_id = l.build_id " +
+				"and i.build_ts = l.build_ts " +
+				"and a.group_name = i.group_name " +
+				"and a.artifact_name = i.artifact_name " +
+				"and a.version_name = i.version_name " +
+				"and b.build_id = l.build_id " +
+				"and b.build_ts = l.build_ts " +
+				"and c.component_id = l.component_id " +
+				"and c.project_id = p.project_id " +
+				"and " + ProjectVisibility.clause( "p.acronym" ) + " " +
+			"ORDER BY p.acronym, c.name" ;
+	private static final int PROJECT_ID = 1 ;
+	private static final int ACRONYM = 2 ;
+	private static final int BUSINESS_OWNER = 3 ;
+	private static final int IT_OWNER = 4 ;
+	private static final int BEGIN_DATE = 5 ;
+	private static final int END_DATE = 6 ;
+	private static final int BUILD_RETENTION_MONTHS = 7 ;
+	private static final int COMPONENT_ID = 8 ;
+	private static final int COMPONENT_NAME = 9 ;
+	private static final int BUILD_ID = 10 ;
+	private static final int BUILD_TS = 11 ;
+	private static final int COMPONENT_VERSION = 12 ;
+	private static final int INFRACTIONS = 13 ;
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
 
-	@Autowired
 	public ExperimentalDAO(JdbcTemplate jdbcTemplate) {
-	    this.jdbcTemplate = jdbcTemplate;
+	    this.jdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
 	}
 	
 	
 	/**
 	 * Return the project/component/build information for the latest build of any project component that
 	 * uses an artifact.  The build may not have succeeded and may not be the actual build in production,
-	 * it is just what developers are currently trying to push through the system.
+	 * it is just what developers are currently trying to push through the system.  Only the projects the
+	 * caller may see are returned.
 	 * 
 	 * @param artifactId
+	 * @param visibility the caller's projects
 	 * @return
 	 */
+	public List<ProjectComponentBuild> findProjectComponentBuildsByArtifactId(Long artifactId, ProjectVisibility visibility) {
+	    Map<String,Object> params = new HashMap<String,Object>() ;
+	    params.put( "artifactId", artifactId ) ;
+	    return jdbcTemplate.query(FIND_PROJECT_COMPONENT_BUILDS_BY_ARTIFACT_ID, visibility.params(params), ExperimentalDAO::mapProjectComponentBuild);
+	}
+
+	private static ProjectComponentBuild mapProjectComponentBuild(ResultSet rs, int rowNum) throws SQLException {
+		long projectId = rs.getLong( PROJECT_ID ) ;
+
+		Project p = new Project() ;
+		p.setProjectId( projectId );
+		p.setAcronym( rs.getString(ACRONYM) );
+		p.setBusinessOwner( rs.getString(BUSINESS_OWNER) );
+		p.setItOwner( rs.getString(IT_OWNER) );
+		Timestamp ts = rs.getTimestamp( BEGIN_DATE ) ;
+		p.setBeginDate( ts == null ? null : Jsr310NullConverters.LocalDateTimeToOffsetDateTimeConverter.INSTANCE.convert(ts.toLocalDateTime()) );
+		ts = rs.getTimestamp( END_DATE ) ;
+		p.setEndDate( ts == null ? null : Jsr310NullConverters.LocalDateTimeToOffsetDateTimeConverter.INSTANCE.convert(ts.toLocalDateTime()) );
+		p.setBuildRetentionMonths( rs.getObject(BUILD_RETENTION_MONTHS, Integer.class) );
+
+		Component c = new Component() ;
+		c.setComponentId( rs.getLong(COMPONENT_ID) );
+		c.setProjectId( projectId );
+		c.setName( rs.getString(COMPONENT_NAME) );
+
+		Build b = new Build() ;
+		b.setBuildId( rs.getLong(BUILD_ID) );
+		ts = rs.getTimestamp( BUILD_TS ) ;
+		b.setBuildTs( ts == null ? null : Jsr310NullConverters.InstantToOffsetDateTimeConverter.INSTANCE.convert(ts.toInstant()) );
+		b.setComponentVersion( rs.getString(COMPONENT_VERSION) );
+		b.setInfractions( rs.getString(INFRACTIONS) );
+		b.setProjectId( projectId ) ;
 
-	public List<Map<String,Object>> findProjectComponentBuildsByArtifactId(Long artifactId) {
-	   String sql = "SELECT DISTINCT p.*, c.*, b.* " +
-				"FROM components c, builds b, projects p, builditems i, artifacts a, " +
-			    "(SELECT max(build_ts) build_ts from builds GROUP BY component_id) as j " +
-				"WHERE " +
-					"a.artifact_id = ? " +
-					"and a.group_name = i.group_name " +
-					"and a.artifact_name = i.artifact_name " +
-					"and a.version_name = i.version_name " +
-					"and i.build_id = b.build_id " +
-					"and b.component_id = c.component_id " +
-					"and c.project_id = p.project_id " +
-					"and b.build_ts = j.build_ts " +
-				"ORDER BY p.acronym, c.name" ;
-	   ProjectRowMapper prm = new ProjectRowMapper();
-	   ComponentRowMapper crm = new ComponentRowMapper();
-	   BuildRowMapper brm = new BuildRowMapper();
-	   RowMapper<Map<String,Object>> mapper = new RowMapper<Map<String,Object>>() {
-	        public Map<String,Object> mapRow(ResultSet rs, int rowNum) throws SQLException {
-	        	Project p = prm.mapRow(rs, rowNum);
-	        	Component c = crm.mapRow(rs, rowNum);
-	        	Build b = brm.mapRow( rs, rowNum) ;
-	        	Map<String,Object> map = new HashMap<String,Object>() ;
-	        	map.put( "project", p ) ;
-	        	map.put( "component", c ) ;
-	        	map.put( "build", b );
-	            return map ;
-	        }
-	    };
-	    return (List<Map<String,Object>>) jdbcTemplate.query(sql, new Object[] {artifactId}, new int[] { java.sql.Types.INTEGER }, mapper);
+		ProjectComponentBuild pcb = new ProjectComponentBuild();
+		pcb.setProject( p );
+		pcb.setComponent( c );
+		pcb.setBuild( b );
+		return pcb ;
 	}
 }
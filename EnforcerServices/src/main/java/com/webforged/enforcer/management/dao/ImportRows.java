@@ -0,0 +1,175 @@
+package com.webforged.enforcer.management.dao;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The rows of a bulk import read one at a time, from NDJSON, a JSON object per line, or from CSV whose first record
+ * names the columns.  Quoted CSV fields may hold commas, line breaks and doubled quotes.  Blank lines and empty CSV
+ * fields are skipped.  A row that cannot be read is handed out with its error, the rows after it are still read.
+ */
+class ImportRows implements Iterator<ImportRows.Row> {
+	static final TypeReference<Map<String,Object>> JSON_OBJECT = new TypeReference<Map<String,Object>>() {} ;
+
+	static class Row {
+		// line of the NDJSON, record of the CSV not counting its header, from 1.
+		final long number ;
+		final Map<String,Object> values ;
+		final String error ;
+
+		Row( long number, Map<String,Object> values, String error ) {
+			this.number = number ;
+			this.values = values ;
+			this.error = error ;
+		}
+	}
+
+	private final BufferedReader reader ;
+	private final ObjectMapper objectMapper ;
+	private final String[] header ;
+	private long number ;
+	private Row next ;
+
+	private ImportRows( BufferedReader reader, ObjectMapper objectMapper, String[] header ) {
+		this.reader = reader ;
+		this.objectMapper = objectMapper ;
+		this.header = header ;
+	}
+
+	static ImportRows ndjson( Reader body, ObjectMapper objectMapper ) {
+		return new ImportRows( new BufferedReader(body), objectMapper, null ) ;
+	}
+
+	/**
+	 * @throws IllegalArgumentException when there is no header
+	 */
+	static ImportRows csv( Reader body ) throws IOException {
+		BufferedReader reader = new BufferedReader( body ) ;
+		List<String> header = record( reader ) ;
+		if( header == null ) {
+			throw new IllegalArgumentException( "the CSV has no header" ) ;
+		}
+		// the byte order mark spreadsheets start a UTF-8 CSV with.
+		if( header.get(0).startsWith( "\uFEFF" ) ) {
+			header.set( 0, header.get(0).substring(1) ) ;
+		}
+		for( int i = 0; i < header.size(); i++ ) {
+			header.set( i, header.get(i).trim() ) ;
+		}
+		return new ImportRows( reader, null, header.toArray(new String[0]) ) ;
+	}
+
+	String[] header() {
+		return header ;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if( next == null ) {
+			try {
+				next = header == null ? readJson() : readCsv() ;
+			} catch( IOException ioe ) {
+				throw new IllegalStateException( "reading the import failed", ioe ) ;
+			}
+		}
+		return next != null ;
+	}
+
+	@Override
+	public Row next() {
+		if( !hasNext() ) {
+			throw new NoSuchElementException() ;
+		}
+		Row row = next ;
+		next = null ;
+		return row ;
+	}
+
+	private Row readJson() throws IOException {
+		String line ;
+		do {
+			line = reader.readLine() ;
+			if( line == null ) {
+				return null ;
+			}
+			number++ ;
+		} while( line.trim().isEmpty() ) ;
+		try {
+			return new Row( number, objectMapper.readValue(line, JSON_OBJECT), null ) ;
+		} catch( JsonProcessingException jpe ) {
+			return new Row( number, null, "not a JSON object: " + jpe.getOriginalMessage() ) ;
+		}
+	}
+
+	private Row readCsv() throws IOException {
+		List<String> fields ;
+		do {
+			fields = record( reader ) ;
+			if( fields == null ) {
+				return null ;
+			}
+		} while( fields.size() == 1 && fields.get(0).isEmpty() ) ;
+		number++ ;
+		if( fields.size() != header.length ) {
+			return new Row( number, null, fields.size() + " fields, the header names " + header.length ) ;
+		}
+		Map<String,Object> values = new HashMap<String,Object>() ;
+		for( int i = 0; i < header.length; i++ ) {
+			if( !fields.get(i).isEmpty() ) {
+				values.put( header[i], fields.get(i) ) ;
+			}
+		}
+		return new Row( number, values, null ) ;
+	}
+
+	/**
+	 * One RFC 4180 record.
+	 * @return its fields, null at the end of the input
+	 */
+	static List<String> record( BufferedReader reader ) throws IOException {
+		int c = reader.read() ;
+		if( c < 0 ) {
+			return null ;
+		}
+		List<String> fields = new ArrayList<String>() ;
+		StringBuilder field = new StringBuilder() ;
+		boolean quoted = false ;
+		for( ; c >= 0; c = reader.read() ) {
+			if( quoted ) {
+				if( c == '"' ) {
+					reader.mark( 1 );
+					if( reader.read() == '"' ) {
+						field.append( '"' ) ;
+					} else {
+						reader.reset();
+						quoted = false ;
+					}
+				} else {
+					field.append( (char) c ) ;
+				}
+			} else if( c == '"' ) {
+				quoted = true ;
+			} else if( c == ',' ) {
+				fields.add( field.toString() ) ;
+				field.setLength( 0 );
+			} else if( c == '\n' ) {
+				break ;
+			} else if( c != '\r' ) {
+				field.append( (char) c ) ;
+			}
+		}
+		fields.add( field.toString() ) ;
+		return fields ;
+	}
+}
@@ -0,0 +1,389 @@
+package com.webforged.enforcer.management.dao;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.webforged.enforcer.management.util.WrappedErrorException;
+
+/**
+ * Keyset pagination and streaming for the find endpoints.  A finder's own query is wrapped, ordered by its keyset
+ * and continued after the last row handed out, so a page costs the same however deep into the result it is.  The
+ * cursor is the key of that last row, opaque to the client.
+ *
+ * Key columns may be null.  Nulls sort last ascending and first descending, where a btree index has them, and
+ * the continuation spells out what comes after a null rather than using a row comparison, which is never true
+ * for a row with a null in it.  It is split on whether the first key column is null, so the rows not null keep
+ * an index range on it and the null ones an IS NULL lookup.
+ *
+ * Streaming writes each row to the response as it comes off the ResultSet.  The query runs in a read only
+ * transaction with a fetch size, which is what makes the postgres driver use a cursor instead of reading the
+ * whole result into memory.
+ */
+@org.springframework.stereotype.Component
+public class KeysetPager {
+	static Logger logger = LoggerFactory.getLogger( KeysetPager.class ) ;
+	public static final String NEXT_CURSOR = "X-Next-Cursor" ;
+	static final int FETCH_SIZE = 500 ;
+	private static final Pattern TRAILING_ORDER_BY = Pattern.compile( "(?i)\\s+ORDER\\s+BY\\s+[\\w.]+(\\s+(ASC|DESC))?(\\s*,\\s*[\\w.]+(\\s+(ASC|DESC))?)*\\s*$" ) ;
+
+	private final NamedParameterJdbcTemplate jdbcTemplate ;
+	private final TransactionTemplate readOnly ;
+	private final ObjectMapper objectMapper ;
+
+	@Value( "${paging.default-limit:100}" )
+	private int defaultLimit ;
+
+	@Value( "${paging.max-limit:1000}" )
+	private int maxLimit ;
+
+	public KeysetPager( DataSource dataSource, ObjectMapper objectMapper ) {
+		JdbcTemplate template = new JdbcTemplate( dataSource ) ;
+		template.setFetchSize( FETCH_SIZE );
+		this.jdbcTemplate = new NamedParameterJdbcTemplate( template ) ;
+		this.readOnly = new TransactionTemplate( new DataSourceTransactionManager(dataSource) ) ;
+		this.readOnly.setReadOnly( true );
+		this.objectMapper = objectMapper ;
+	}
+
+	/**
+	 * The order a finder is paged in: columns of its result that together are unique, all ascending or all descending.
+	 */
+	public static class Keyset {
+		final String[] columns ;
+		final boolean descending ;
+
+		private Keyset( boolean descending, String... columns ) {
+			this.columns = columns ;
+			this.descending = descending ;
+		}
+
+		public static Keyset ascending( String... columns ) {
+			return new Keyset( false, columns ) ;
+		}
+
+		public static Keyset descending( String... columns ) {
+			return new Keyset( true, columns ) ;
+		}
+	}
+
+	/**
+	 * @param namesAndValues name, value, name, value... values may be null, unlike Map.of
+	 * @return a finder's named parameters
+	 */
+	public static Map<String,Object> params( Object... namesAndValues ) {
+		Map<String,Object> params = new HashMap<String,Object>() ;
+		for( int i = 0; i < namesAndValues.length; i += 2 ) {
+			params.put( (String) namesAndValues[i], namesAndValues[i + 1] ) ;
+		}
+		return params ;
+	}
+
+	/**
+	 * @return false when the caller asked for the whole list, the way the finders always answered
+	 */
+	public static boolean isPaged( Integer limit, String after, Boolean stream ) {
+		return limit != null || after != null || Boolean.TRUE.equals( stream ) ;
+	}
+
+	/**
+	 * Run a finder's query a page at a time, or streamed.  The paged find endpoints pass their optional limit,
+	 * after and stream parameters straight through.
+	 * @param sql the finder's query, with named parameters, a constant on its repository
+	 * @param params its parameters
+	 * @param keyset
+	 * @param mapper row to DTO
+	 * @param converter DTO to API model
+	 * @param limit most rows to return, paging.default-limit if only after is given, unbounded when streaming without one
+	 * @param after X-Next-Cursor of the previous page, may be null
+	 * @param stream write every row as it is read instead of a page
+	 * @return the page with X-Next-Cursor set unless it is the last, or null once a stream has been written
+	 */
+	public <D,A> ResponseEntity<List<A>> find( String sql, Map<String,?> params, Keyset keyset, RowMapper<D> mapper,
+			Function<D,A> converter, Integer limit, String after, Boolean stream ) {
+		boolean streaming = Boolean.TRUE.equals( stream ) ;
+		Integer pageSize = null ;
+		if( limit != null || !streaming ) {
+			pageSize = limit == null ? defaultLimit : limit ;
+			if( pageSize < 1 || pageSize > maxLimit ) {
+				throw error( HttpStatus.BAD_REQUEST, "limit must be between 1 and " + maxLimit ) ;
+			}
+		}
+		MapSqlParameterSource source = new MapSqlParameterSource( params ) ;
+		if( streaming ) {
+			stream( pagedQuery( sql, keyset, after, pageSize, source ), source, mapper, converter ) ;
+			return null ;
+		}
+
+		// one row more than the page tells whether another page follows.
+		String paged = pagedQuery( sql, keyset, after, pageSize + 1, source ) ;
+		int rows = pageSize ;
+		List<A> page = new ArrayList<A>( rows ) ;
+		Object[][] last = new Object[1][] ;
+		boolean[] more = { false } ;
+		try {
+			readOnly.execute( status -> {
+				jdbcTemplate.query( paged, source, (RowCallbackHandler) rs -> {
+					if( page.size() < rows ) {
+						page.add( converter.apply( mapper.mapRow(rs, page.size()) ) ) ;
+						last[0] = keyOf( rs, keyset ) ;
+					} else {
+						more[0] = true ;
+					}
+				} ) ;
+				return null ;
+			} ) ;
+		} catch( Exception others ) {
+			logger.error( "find " + params + " error: " + others.toString() );
+			throw error( HttpStatus.INTERNAL_SERVER_ERROR, "Problem searching: " + others.toString() ) ;
+		}
+		ResponseEntity.BodyBuilder ok = ResponseEntity.ok() ;
+		if( more[0] ) {
+			ok.header( NEXT_CURSOR, encode(last[0]) ) ;
+		}
+		return ok.body( page ) ;
+	}
+
+	private String pagedQuery( String sql, Keyset keyset, String after, Integer rows, MapSqlParameterSource source ) {
+		// the finder's own ORDER BY would be planned without the LIMIT, as a sort of everything it finds.
+		String finder = "SELECT * FROM (" + TRAILING_ORDER_BY.matcher( sql ).replaceFirst( "" ) + ") q" ;
+		String limit = "" ;
+		if( rows != null ) {
+			limit = " LIMIT :limit_" ;
+			source.addValue( "limit_", rows ) ;
+		}
+		if( after == null ) {
+			return finder + orderBy( keyset, "q" ) + limit ;
+		}
+		Object[] key = decode( after, keyset.columns.length ) ;
+		for( int i = 0; i < key.length; i++ ) {
+			source.addValue( "after_" + i, key[i] ) ;
+		}
+
+		// what follows the cursor, in the order it follows, split on whether the first key column is null.
+		String first = "q." + keyset.columns[0] ;
+		String rest = after( keyset, key, 1 ) ;
+		List<String> branches = new ArrayList<String>( 2 ) ;
+		if( key[0] != null ) {
+			String past = first + (keyset.descending ? " < " : " > ") + ":after_0" ;
+			if( rest != null ) {
+				past = past + " OR (" + first + " = :after_0 AND " + rest + ")" ;
+			}
+			branches.add( first + (keyset.descending ? " <= " : " >= ") + ":after_0 AND (" + past + ")" ) ;
+			if( !keyset.descending ) {
+				branches.add( first + " IS NULL" ) ;
+			}
+		} else {
+			if( rest != null ) {
+				branches.add( first + " IS NULL AND " + rest ) ;
+			}
+			if( keyset.descending ) {
+				branches.add( first + " IS NOT NULL" ) ;
+			}
+		}
+		if( branches.isEmpty() ) {
+			// a null last in the order of a single column keyset.
+			branches.add( "1 = 0" ) ;
+		}
+		if( branches.size() == 1 ) {
+			return finder + " WHERE " + branches.get( 0 ) + orderBy( keyset, "q" ) + limit ;
+		}
+		return "SELECT * FROM ((" + finder + " WHERE " + branches.get( 0 ) + orderBy( keyset, "q" ) + limit + ") UNION ALL ("
+				+ finder + " WHERE " + branches.get( 1 ) + orderBy( keyset, "q" ) + limit + ")) p" + orderBy( keyset, "p" ) + limit ;
+	}
+
+	/**
+	 * @return the rows after the key from column i on, given the columns before it are equal, or null when none are
+	 */
+	private static String after( Keyset keyset, Object[] key, int i ) {
+		if( i == key.length ) {
+			return null ;
+		}
+		String column = "q." + keyset.columns[i] ;
+		String value = ":after_" + i ;
+		String rest = after( keyset, key, i + 1 ) ;
+		StringBuilder sb = new StringBuilder( "(" ) ;
+		if( key[i] != null ) {
+			sb.append( column ).append( keyset.descending ? " < " : " > " ).append( value ) ;
+			if( !keyset.descending ) {
+				sb.append( " OR " ).append( column ).append( " IS NULL" ) ;
+			}
+			if( rest != null ) {
+				sb.append( " OR (" ).append( column ).append( " = " ).append( value ).append( " AND " ).append( rest ).append( ")" ) ;
+			}
+		} else if( keyset.descending ) {
+			sb.append( column ).append( " IS NOT NULL" ) ;
+			if( rest != null ) {
+				sb.append( " OR (" ).append( column ).append( " IS NULL AND " ).append( rest ).append( ")" ) ;
+			}
+		} else if( rest != null ) {
+			sb.append( column ).append( " IS NULL AND " ).append( rest ) ;
+		} else {
+			return null ;
+		}
+		return sb.append( ")" ).toString() ;
+	}
+
+	private static String orderBy( Keyset keyset, String alias ) {
+		StringBuilder sb = new StringBuilder( " ORDER BY " ) ;
+		for( int i = 0; i < keyset.columns.length; i++ ) {
+			sb.append( i == 0 ? "" : "," ).append( alias ).append( '.' ).append( keyset.columns[i] )
+				.append( keyset.descending ? " DESC NULLS FIRST" : " ASC NULLS LAST" ) ;
+		}
+		return sb.toString() ;
+	}
+
+	/**
+	 * Nothing is written until the first row has been read and converted, so a query that fails outright is
+	 * answered with a 500 as the other finders are.  A failure after that cannot be answered any more, the response
+	 * is abandoned without closing the array so the client sees it was cut short.
+	 */
+	private <D,A> void stream( String sql, MapSqlParameterSource source, RowMapper<D> mapper, Function<D,A> converter ) {
+		HttpServletResponse response = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getResponse() ;
+		JsonGenerator[] json = { null } ;
+		try {
+			readOnly.execute( status -> {
+				int[] rowNum = { 0 } ;
+				jdbcTemplate.query( sql, source, (RowCallbackHandler) rs -> {
+					A row = converter.apply( mapper.mapRow(rs, rowNum[0]++) ) ;
+					try {
+						if( json[0] == null ) {
+							json[0] = startArray( response ) ;
+						}
+						objectMapper.writeValue( json[0], row ) ;
+					} catch( IOException ioe ) {
+						throw new SQLException( "client went away", ioe ) ;
+					}
+				} ) ;
+				return null ;
+			} ) ;
+			if( json[0] == null ) {
+				json[0] = startArray( response ) ;
+			}
+			json[0].writeEndArray();
+			json[0].close();
+		} catch( Exception others ) {
+			logger.error( "stream error: " + others.toString() );
+			if( !response.isCommitted() ) {
+				response.reset();
+				throw error( HttpStatus.INTERNAL_SERVER_ERROR, "Problem searching: " + others.toString() ) ;
+			}
+			// the status and part of the body are out, CommittedResponseFilter drops the connection for an exception now.
+			throw new IllegalStateException( "stream cut short", others ) ;
+		}
+	}
+
+	private JsonGenerator startArray( HttpServletResponse response ) throws IOException {
+		response.setStatus( HttpStatus.OK.value() );
+		response.setContentType( MediaType.APPLICATION_JSON_VALUE );
+		response.setCharacterEncoding( StandardCharsets.UTF_8.name() );
+		OutputStream out = response.getOutputStream() ;
+		JsonGenerator json = objectMapper.getFactory().createGenerator( out ) ;
+		json.writeStartArray();
+		return json ;
+	}
+
+	private static Object[] keyOf( ResultSet rs, Keyset keyset ) throws SQLException {
+		Object[] key = new Object[ keyset.columns.length ] ;
+		for( int i = 0; i < key.length; i++ ) {
+			key[i] = rs.getObject( keyset.columns[i] ) ;
+		}
+		return key ;
+	}
+
+	/**
+	 * type tagged key values, base64url so the cursor survives a query string untouched.
+	 */
+	static String encode( Object[] key ) {
+		StringBuilder sb = new StringBuilder() ;
+		for( Object value : key ) {
+			if( sb.length() > 0 ) {
+				sb.append( '\u001f' ) ;
+			}
+			if( value == null ) {
+				sb.append( 'n' ) ;
+			} else if( value instanceof Timestamp ) {
+				Timestamp ts = (Timestamp) value ;
+				sb.append( 't' ).append( ts.getTime() ).append( '.' ).append( ts.getNanos() ) ;
+			} else if( value instanceof Number ) {
+				sb.append( 'l' ).append( ((Number) value).longValue() ) ;
+			} else {
+				sb.append( 's' ).append( value ) ;
+			}
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString( sb.toString().getBytes(StandardCharsets.UTF_8) ) ;
+	}
+
+	static Object[] decode( String cursor, int size ) {
+		try {
+			String[] parts = new String( Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8 ).split( "\u001f", -1 ) ;
+			if( parts.length != size ) {
+				throw new IllegalArgumentException( "cursor has " + parts.length + " values, expected " + size ) ;
+			}
+			Object[] key = new Object[ size ] ;
+			for( int i = 0; i < size; i++ ) {
+				String v = parts[i].substring( 1 ) ;
+				switch( parts[i].charAt(0) ) {
+					case 'n':
+						key[i] = null ;
+						break;
+					case 't':
+						Timestamp ts = new Timestamp( Long.parseLong( v.substring(0, v.indexOf('.')) ) ) ;
+						ts.setNanos( Integer.parseInt( v.substring(v.indexOf('.') + 1) ) );
+						key[i] = ts ;
+						break;
+					case 'l':
+						key[i] = Long.valueOf( v ) ;
+						break;
+					case 's':
+						key[i] = v ;
+						break;
+					default:
+						throw new IllegalArgumentException( "unknown cursor value type " + parts[i].charAt(0) ) ;
+				}
+			}
+			return key ;
+		} catch( RuntimeException rte ) {
+			throw error( HttpStatus.BAD_REQUEST, "Invalid cursor: " + rte.toString() ) ;
+		}
+	}
+
+	private static WrappedErrorException error( HttpStatus status, String type ) {
+		com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
+		e.setStatus( status.value() );
+		e.setType( type );
+		return new WrappedErrorException( e ) ;
+	}
+}
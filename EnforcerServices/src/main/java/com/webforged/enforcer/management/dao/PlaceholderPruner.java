@@ -0,0 +1,107 @@
+package com.webforged.enforcer.management.dao;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.webforged.enforcer.core.Lifecycle.STATUS_TYPES;
+import com.webforged.enforcer.management.data.Artifact;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Deletes the CREATED placeholder Artifacts the build plugins insert for every artifact they do not know, once
+ * nobody has approved or used them for artifacts.placeholders.retention-days.  Snapshot versions and feature
+ * branches leave thousands of these behind.
+ *
+ * A placeholder goes when it is older than the window, no build used its coordinates within the window and no
+ * project holds a grant on it.  A build that uses it again afterwards simply creates it again.  Deleted a batch per
+ * statement, so approvals and builds are never held up behind one long transaction.
+ *
+ * The rows reclaimed are logged and counted in artifacts.placeholders.pruned.
+ */
+@org.springframework.stereotype.Component
+public class PlaceholderPruner {
+	static Logger logger = LoggerFactory.getLogger( PlaceholderPruner.class ) ;
+
+	static final long LOCK_KEY = 0x506c616365507275L ;
+
+	static final String DELETE_UNUSED = "DELETE FROM Artifacts a WHERE a.artifact_id IN ("
+			+ "SELECT x.artifact_id FROM Artifacts x WHERE x.status = ? AND (x.created_date IS NULL OR x.created_date < ?) "
+			+ "AND NOT EXISTS (SELECT 1 FROM BuildItems i WHERE i.group_name = x.group_name AND i.artifact_name = x.artifact_name "
+			+ "AND i.version_name = x.version_name AND i.build_ts >= ?) "
+			+ "AND NOT EXISTS (SELECT 1 FROM AllowedArtifacts g WHERE g.artifact_id = x.artifact_id) "
+			+ "AND NOT EXISTS (SELECT 1 FROM LicensedArtifacts g WHERE g.artifact_id = x.artifact_id) "
+			+ "LIMIT ? FOR UPDATE SKIP LOCKED) "
+			// approved between the select and the delete.
+			+ "AND a.status = ? "
+			+ "RETURNING a.artifact_id, a.status, a.group_name, a.artifact_name, a.version_name" ;
+
+	private final JdbcTemplate jdbcTemplate ;
+	private final DataSource dataSource ;
+	private final ArtifactCache cache ;
+	private final Counter pruned ;
+
+	@Value( "${artifacts.placeholders.retention-days:30}" )
+	private int retentionDays ;
+
+	@Value( "${artifacts.placeholders.pruner.batch-size:1000}" )
+	private int batchSize ;
+
+	public PlaceholderPruner( DataSource dataSource, ArtifactCache cache, MeterRegistry registry ) {
+		this.dataSource = dataSource ;
+		this.jdbcTemplate = new JdbcTemplate( dataSource ) ;
+		this.cache = cache ;
+		this.pruned = Counter.builder( "artifacts.placeholders.pruned" )
+				.description( "CREATED placeholder artifacts deleted unused" )
+				.register( registry ) ;
+	}
+
+	@Scheduled( cron = "${artifacts.placeholders.pruner.cron:0 0 3 * * *}" )
+	public void prune() {
+		try {
+			if( !AdvisoryLock.runExclusively( dataSource, LOCK_KEY, this::pruneUnused ) ) {
+				logger.info( "placeholder pruning skipped, another instance holds the lock" ) ;
+			}
+		} catch( Exception others ) {
+			logger.error( "placeholder pruning error: " + others.toString(), others ) ;
+		}
+	}
+
+	/**
+	 * @return the placeholders deleted
+	 */
+	int pruneUnused() {
+		Timestamp cutoff = Timestamp.valueOf( LocalDateTime.now().minusDays( retentionDays ) ) ;
+		String created = STATUS_TYPES.CREATED.label ;
+		long start = System.currentTimeMillis() ;
+		int total = 0 ;
+		List<Artifact> batch ;
+		do {
+			batch = jdbcTemplate.query( DELETE_UNUSED, (rs, rowNum) -> {
+				Artifact a = new Artifact() ;
+				a.setArtifact_id( rs.getLong("artifact_id") );
+				a.setStatus( rs.getString("status") );
+				a.setGroup_name( rs.getString("group_name") );
+				a.setArtifact_name( rs.getString("artifact_name") );
+				a.setVersion_name( rs.getString("version_name") );
+				return a ;
+			}, created, cutoff, cutoff, batchSize, created ) ;
+			cache.evict( batch.toArray(new Artifact[0]) ) ;
+			pruned.increment( batch.size() ) ;
+			total += batch.size() ;
+		} while( batch.size() == batchSize ) ;
+		logger.info( "reclaimed " + total + " CREATED placeholder artifacts unused since " + cutoff + " in "
+				+ (System.currentTimeMillis() - start) + "ms" ) ;
+		return total ;
+	}
+}
@@ -0,0 +1,81 @@
+package com.webforged.enforcer.management.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.webforged.enforcer.management.security.jwt.UserUtil;
+
+/**
+ * The projects the caller may see, worked out once from their roles and handed to the finder queries, so the
+ * database returns only the rows the caller is allowed rather than all of them to be filtered here.  An
+ * ACRONYM_architect sees the projects of that acronym, a SUPERUSER_architect sees every project.
+ *
+ * A finder adds {@link #clause} on the project's acronym to its WHERE and {@link #params} to its parameters:
+ *
+ *     ... WHERE p.artifact_id = :artifactId AND (:superuser OR p.acronym = ANY(:acronyms))
+ */
+public final class ProjectVisibility {
+	public static final String SUPERUSER = "SUPERUSER_architect" ;
+	static final String ARCHITECT = "_architect" ;
+
+	private final boolean superuser ;
+	private final String[] acronyms ;
+
+	private ProjectVisibility( boolean superuser, String[] acronyms ) {
+		this.superuser = superuser ;
+		this.acronyms = acronyms ;
+	}
+
+	/**
+	 * What the caller of the current request may see.
+	 */
+	public static ProjectVisibility ofCaller() {
+		Set<String> roles = UserUtil.getRoles() ;
+		List<String> acronyms = new ArrayList<String>() ;
+		for( String role : roles ) {
+			if( role.endsWith( ARCHITECT ) && !role.equals( SUPERUSER ) ) {
+				acronyms.add( role.substring( 0, role.length() - ARCHITECT.length() ) ) ;
+			}
+		}
+		return new ProjectVisibility( roles.contains(SUPERUSER), acronyms.toArray(new String[0]) ) ;
+	}
+
+	/**
+	 * @param acronymColumn the project's acronym in the finder's query, e.g. p.acronym
+	 * @return the condition on it, with the named parameters :superuser and :acronyms
+	 */
+	public static String clause( String acronymColumn ) {
+		return "(:superuser OR " + acronymColumn + " = ANY(:acronyms))" ;
+	}
+
+	/**
+	 * @return params, with :superuser and :acronyms added
+	 */
+	public Map<String,Object> params( Map<String,Object> params ) {
+		params.put( "superuser", superuser ) ;
+		params.put( "acronyms", acronyms ) ;
+		return params ;
+	}
+
+	public boolean isSuperuser() {
+		return superuser ;
+	}
+
+	public String[] acronyms() {
+		return acronyms ;
+	}
+
+	public boolean canSee( String acronym ) {
+		if( superuser ) {
+			return true ;
+		}
+		for( String a : acronyms ) {
+			if( a.equals( acronym ) ) {
+				return true ;
+			}
+		}
+		return false ;
+	}
+}
@@ -2,37 +2,38 @@ package com.webforged.enforcer.management.data;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Timestamp;
-import java.time.Instant;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.core.RowMapper;
+public class AllowedArtifactRowMapper extends ColumnIndexRowMapper<AllowedArtifact> {
 
-public class AllowedArtifactRowMapper implements RowMapper<AllowedArtifact> {
-	static Logger logger = LoggerFactory.getLogger( AllowedArtifactRowMapper.class ) ;
+	/**
+	 * For the {@link AllowedArtifactsRepository} finders, a new mapper for each query.
+	 */
+	public static class Extractor extends ListExtractor<AllowedArtifact> {
+		public Extractor() {
+			super( AllowedArtifactRowMapper::new ) ;
+		}
+	}
+
+	private static final int ALLOWED_ARTIFACT_ID = 0 ;
+	private static final int ARTIFACT_ID = 1 ;
+	private static final int PROJECT_ID = 2 ;
+	private static final int APPROVAL_ARCHITECT = 3 ;
+	private static final int APPROVAL_TS = 4 ;
+
+	public AllowedArtifactRowMapper() {
+		super( "allowed_artifact_id", "artifact_id", "project_id", "approval_architect", "approval_ts" ) ;
+	}
 
 	@Override
-	public AllowedArtifact mapRow(ResultSet rs, int rowNum) throws SQLException {
-		Timestamp ts;
-		Instant i ;
-		
-		if( logger.isDebugEnabled() ) {
-			logger.debug( "mapRow " + rowNum + " into an Artifact" );
-		}
-		
+	protected AllowedArtifact mapRow(ResultSet rs, int[] column) throws SQLException {
 		AllowedArtifact dtoArtifact = new AllowedArtifact() ;
 
-		dtoArtifact.setAllowed_artifact_id( rs.getLong( "allowed_artifact_id" ) );
-		dtoArtifact.setArtifact_id( rs.getLong( "artifact_id" ) );
-		dtoArtifact.setProject_id( rs.getLong( "project_id" ) );
-		dtoArtifact.setApproval_architect( rs.getString( "approval_architect" ) );
-		ts = rs.getTimestamp( "approval_ts" ) ;
-		if( ts != null ) {
-			i = ts.toInstant() ;
-		} else { i = null; }
-		dtoArtifact.setApproval_ts( i );
+		dtoArtifact.setAllowed_artifact_id( rs.getLong(column[ALLOWED_ARTIFACT_ID]) );
+		dtoArtifact.setArtifact_id( rs.getLong(column[ARTIFACT_ID]) );
+		dtoArtifact.setProject_id( rs.getLong(column[PROJECT_ID]) );
+		dtoArtifact.setApproval_architect( rs.getString(column[APPROVAL_ARCHITECT]) );
+		dtoArtifact.setApproval_ts( instant(rs, column[APPROVAL_TS]) );
 
 		return dtoArtifact;
 	}
-}
\ No newline at end of file
+}
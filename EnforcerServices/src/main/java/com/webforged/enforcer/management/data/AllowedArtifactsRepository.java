@@ -9,14 +9,17 @@ import org.springframework.web.bind.annotation.CrossOrigin;
 
 @CrossOrigin
 public interface AllowedArtifactsRepository extends CrudRepository<AllowedArtifact, Long> {
+	String FIND_BY_PROJECT_ID = "SELECT * FROM AllowedArtifacts WHERE project_id = :projectId" ;
+	String FIND_BY_ARTIFACT_ID = "SELECT * FROM AllowedArtifacts WHERE artifact_id = :artifactId" ;
+	String FIND_BY_ACRONYM = "SELECT a.* FROM AllowedArtifacts a, Projects b WHERE b.acronym = :acronym and a.project_id = b.project_id" ;
 
-	@Query(value="SELECT * FROM AllowedArtifacts WHERE project_id = :projectId" )
+	@Query(value=FIND_BY_PROJECT_ID, resultSetExtractorClass=AllowedArtifactRowMapper.Extractor.class )
 	List<AllowedArtifact> findByProject(Long projectId );
 
-	@Query(value="SELECT * FROM AllowedArtifacts WHERE artifact_id = :artifactId" )
+	@Query(value=FIND_BY_ARTIFACT_ID, resultSetExtractorClass=AllowedArtifactRowMapper.Extractor.class )
 	List<AllowedArtifact> findByArtifactId(Long artifactId );
 	
-	@Query(value="SELECT a.* FROM AllowedArtifacts a, Projects b WHERE b.acronym = :acronym and a.project_id = b.project_id" )
+	@Query(value=FIND_BY_ACRONYM, resultSetExtractorClass=AllowedArtifactRowMapper.Extractor.class )
 	List<AllowedArtifact> findByProject(String acronym );
 	
 	@Modifying
@@ -2,89 +2,66 @@ package com.webforged.enforcer.management.data;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Timestamp;
-import java.time.Instant;
-import java.time.LocalDateTime;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.core.RowMapper;
+public class ArtifactRowMapper extends ColumnIndexRowMapper<Artifact> {
 
-public class ArtifactRowMapper implements RowMapper<Artifact> {
-	static Logger logger = LoggerFactory.getLogger( ArtifactRowMapper.class ) ;
+	/**
+	 * For the {@link ArtifactsRepository} finders, a new mapper for each query.
+	 */
+	public static class Extractor extends ListExtractor<Artifact> {
+		public Extractor() {
+			super( ArtifactRowMapper::new ) ;
+		}
+	}
+
+	private static final int ARTIFACT_ID = 0 ;
+	private static final int GROUP_NAME = 1 ;
+	private static final int ARTIFACT_NAME = 2 ;
+	private static final int VERSION_NAME = 3 ;
+	private static final int STATUS = 4 ;
+	private static final int IS_VENDOR_LICENSED = 5 ;
+	private static final int CREATED_DATE = 6 ;
+	private static final int APPROVAL_AUTHORIZATION = 7 ;
+	private static final int APPROVAL_DATE = 8 ;
+	private static final int APPROVAL_TS = 9 ;
+	private static final int DEPRECATION_AUTHORIZATION = 10 ;
+	private static final int DEPRECATION_DATE = 11 ;
+	private static final int DEPRECATION_TS = 12 ;
+	private static final int RETIREMENT_AUTHORIZATION = 13 ;
+	private static final int RETIREMENT_DATE = 14 ;
+	private static final int RETIREMENT_TS = 15 ;
+
+	public ArtifactRowMapper() {
+		super( "artifact_id", "group_name", "artifact_name", "version_name", "status", "is_vendor_licensed", "created_date",
+				"approval_authorization", "approval_date", "approval_ts",
+				"deprecation_authorization", "deprecation_date", "deprecation_ts",
+				"retirement_authorization", "retirement_date", "retirement_ts" ) ;
+	}
 
 	@Override
-	public Artifact mapRow(ResultSet rs, int rowNum) throws SQLException {
-		Timestamp ts;
-		LocalDateTime ldt;
-		Instant i ;
-		
-		if( logger.isDebugEnabled() ) {
-			logger.debug( "mapRow " + rowNum + " into an Artifact" );
-		}
-		
+	protected Artifact mapRow(ResultSet rs, int[] column) throws SQLException {
 		Artifact dtoArtifact = new Artifact() ;
 
-		dtoArtifact.setApproval_authorization( rs.getString( "approval_authorization" ) );
-		
-		ts = rs.getTimestamp( "approval_date" ) ;
-		if( ts != null ) {
-			ldt = ts.toLocalDateTime() ;
-		} else { ldt = null; }	
-		dtoArtifact.setApproval_date( ldt );
-		
-		ts = rs.getTimestamp( "approval_ts" ) ;
-		if( ts != null ) {
-			i = ts.toInstant() ;
-		} else { i = null; }
-		dtoArtifact.setApproval_ts( i );
-		
-		dtoArtifact.setArtifact_id (rs.getLong("artifact_id") );
-		
-		dtoArtifact.setArtifact_name( rs.getString( "artifact_name" ) );
-		
-		ts = rs.getTimestamp( "created_date" ) ;
-		if( ts != null ) {
-			ldt = ts.toLocalDateTime();
-		} else { ldt = null; }
-		dtoArtifact.setCreated_date( ldt );
-		
-		dtoArtifact.setDeprecation_authorization( rs.getString( "deprecation_authorization" ) );
-		
-		ts = rs.getTimestamp( "deprecation_date" ) ;
-		if( ts != null ) {
-			ldt = ts.toLocalDateTime();
-		} else { ldt = null; }
-		dtoArtifact.setDeprecation_date( ldt );
+		dtoArtifact.setArtifact_id( rs.getLong(column[ARTIFACT_ID]) );
+		dtoArtifact.setGroup_name( rs.getString(column[GROUP_NAME]) );
+		dtoArtifact.setArtifact_name( rs.getString(column[ARTIFACT_NAME]) );
+		dtoArtifact.setVersion_name( rs.getString(column[VERSION_NAME]) );
+		dtoArtifact.setStatus( rs.getString(column[STATUS]) );
+		dtoArtifact.setIs_vendor_licensed( rs.getBoolean(column[IS_VENDOR_LICENSED]) );
+		dtoArtifact.setCreated_date( localDateTime(rs, column[CREATED_DATE]) );
+
+		dtoArtifact.setApproval_authorization( rs.getString(column[APPROVAL_AUTHORIZATION]) );
+		dtoArtifact.setApproval_date( localDateTime(rs, column[APPROVAL_DATE]) );
+		dtoArtifact.setApproval_ts( instant(rs, column[APPROVAL_TS]) );
 
-		ts = rs.getTimestamp( "deprecation_ts" ) ;
-		if( ts != null ) {
-			i = ts.toInstant() ;
-		} else { i = null; }
-		dtoArtifact.setDeprecation_ts( i );
-		
-		dtoArtifact.setGroup_name( rs.getString( "group_name" ) );
+		dtoArtifact.setDeprecation_authorization( rs.getString(column[DEPRECATION_AUTHORIZATION]) );
+		dtoArtifact.setDeprecation_date( localDateTime(rs, column[DEPRECATION_DATE]) );
+		dtoArtifact.setDeprecation_ts( instant(rs, column[DEPRECATION_TS]) );
 
-		dtoArtifact.setIs_vendor_licensed( rs.getBoolean( "is_vendor_licensed" ) );
-		
-		dtoArtifact.setRetirement_authorization( rs.getString( "retirement_authorization" ) );
-		
-		ts = rs.getTimestamp( "retirement_date" ) ;
-		if( ts != null ) {
-			ldt = ts.toLocalDateTime();
-		} else { ldt = null; }
-		dtoArtifact.setRetirement_date( ldt );
-		
-		ts = rs.getTimestamp( "retirement_ts" ) ;
-		if( ts != null ) {
-			i = ts.toInstant() ;
-		} else { i = null; }
-		dtoArtifact.setRetirement_ts( i );
-		
-		dtoArtifact.setStatus( rs.getString( "status" ) );
-		
-		dtoArtifact.setVersion_name( rs.getString( "version_name" ) );
+		dtoArtifact.setRetirement_authorization( rs.getString(column[RETIREMENT_AUTHORIZATION]) );
+		dtoArtifact.setRetirement_date( localDateTime(rs, column[RETIREMENT_DATE]) );
+		dtoArtifact.setRetirement_ts( instant(rs, column[RETIREMENT_TS]) );
 
 		return dtoArtifact;
 	}
-}
\ No newline at end of file
+}
@@ -8,21 +8,26 @@ import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 
 public interface ArtifactsRepository extends CrudRepository<Artifact, Long> {
+	String FIND_BY_GROUP_AND_ARTIFACT = "SELECT * FROM Artifacts WHERE group_name = :groupName AND (artifact_name = :artifactName OR :artifactName IS NULL) ORDER BY artifact_name, group_name, version_name ASC" ;
+	String FIND_BY_APPROVER = "SELECT * FROM Artifacts WHERE approval_authorization = :name" ;
+	String FIND_APPROVED_BY_DATE_RANGE = "SELECT * FROM Artifacts WHERE approval_date >= :d1 AND approval_date < :d2" ;
+	String FIND_BY_STATUS = "SELECT * FROM Artifacts WHERE status = :status ORDER BY group_name,artifact_name,version_name ASC" ;
+	String FIND_BY_PROJECT_ID = "SELECT a.* FROM Artifacts a, AllowedArtifacts b WHERE (a.artifact_id = b.artifact_id and b.project_id = :projectId) UNION ALL " +
+				"SELECT a.* FROM Artifacts a, LicensedArtifacts b WHERE (a.artifact_id = b.artifact_id and b.project_id = :projectId) " ;
 
-	@Query(value="SELECT * FROM Artifacts WHERE group_name = :groupName AND (artifact_name = :artifactName OR :artifactName IS NULL) ORDER BY artifact_name, group_name, version_name ASC" )
+	@Query(value=FIND_BY_GROUP_AND_ARTIFACT, resultSetExtractorClass=ArtifactRowMapper.Extractor.class )
 	List<Artifact> findByGroupAndArtifact(String groupName, String artifactName );
 
-	@Query(value="SELECT * FROM Artifacts WHERE approval_authorization = :name" )
+	@Query(value=FIND_BY_APPROVER, resultSetExtractorClass=ArtifactRowMapper.Extractor.class )
 	List<Artifact> findByApprover(String name);
 	
-	@Query(value="SELECT * FROM Artifacts WHERE approval_date >= :d1 AND approval_date < :d2" )
+	@Query(value=FIND_APPROVED_BY_DATE_RANGE, resultSetExtractorClass=ArtifactRowMapper.Extractor.class )
 	List<Artifact> findApprovedByDateRange(LocalDate d1, LocalDate d2);
 
-	@Query(value="SELECT * FROM Artifacts WHERE status = :status ORDER BY group_name,artifact_name,version_name ASC" )
+	@Query(value=FIND_BY_STATUS, resultSetExtractorClass=ArtifactRowMapper.Extractor.class )
 	List<Artifact> findByStatus(String status);
 	
-	@Query(value="SELECT a.* FROM Artifacts a, AllowedArtifacts b WHERE (a.artifact_id = b.artifact_id and b.project_id = :projectId) UNION ALL " +
-				"SELECT a.* FROM Artifacts a, LicensedArtifacts b WHERE (a.artifact_id = b.artifact_id and b.project_id = :projectId) " )
+	@Query(value=FIND_BY_PROJECT_ID, resultSetExtractorClass=ArtifactRowMapper.Extractor.class )
 	List<Artifact> findByProjectId(Long projectId);
 	
 	@Modifying
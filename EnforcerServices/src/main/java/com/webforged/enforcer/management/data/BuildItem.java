@@ -1,5 +1,7 @@
 package com.webforged.enforcer.management.data;
 
+import java.time.Instant;
+
 import org.springframework.data.annotation.Id;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -14,6 +16,8 @@ public class BuildItem {
 	@Id
 	public Long builditem_id ;
 	public Long build_id ;
+	// the build's build_ts, BuildItems is partitioned on it.
+	private Instant build_ts;
 	private String group_name;
 	private String artifact_name;
 	private String version_name;
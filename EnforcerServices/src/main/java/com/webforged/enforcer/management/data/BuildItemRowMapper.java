@@ -3,30 +3,43 @@ package com.webforged.enforcer.management.data;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.core.RowMapper;
+public class BuildItemRowMapper extends ColumnIndexRowMapper<BuildItem> {
 
-public class BuildItemRowMapper implements RowMapper<BuildItem> {
-	static Logger logger = LoggerFactory.getLogger( BuildItemRowMapper.class ) ;
+	/**
+	 * For the {@link BuildItemsRepository} finders, a new mapper for each query.
+	 */
+	public static class Extractor extends ListExtractor<BuildItem> {
+		public Extractor() {
+			super( BuildItemRowMapper::new ) ;
+		}
+	}
+
+	private static final int BUILDITEM_ID = 0 ;
+	private static final int BUILD_ID = 1 ;
+	private static final int BUILD_TS = 2 ;
+	private static final int GROUP_NAME = 3 ;
+	private static final int ARTIFACT_NAME = 4 ;
+	private static final int VERSION_NAME = 5 ;
+	private static final int ARTIFACT_STATUS_SNAPSHOT = 6 ;
+	private static final int ALLOWED = 7 ;
+
+	public BuildItemRowMapper() {
+		super( "builditem_id", "build_id", "build_ts", "group_name", "artifact_name", "version_name", "artifact_status_snapshot", "allowed" ) ;
+	}
 
 	@Override
-	public BuildItem mapRow(ResultSet rs, int rowNum) throws SQLException {
-		
-		if( logger.isDebugEnabled() ) {
-			logger.debug( "mapRow " + rowNum + " into an BuildItem" );
-		}
-		
+	protected BuildItem mapRow(ResultSet rs, int[] column) throws SQLException {
 		BuildItem dtoBuild = new BuildItem() ;
 		
-		dtoBuild.setBuilditem_id( rs.getLong("builditem_id") );
-		dtoBuild.setBuild_id( rs.getLong("build_id") );
-		dtoBuild.setGroup_name( rs.getString( "group_name") );
-		dtoBuild.setArtifact_name( rs.getString( "artifact_name") );
-		dtoBuild.setVersion_name( rs.getString( "version_name") );
-		dtoBuild.setArtifact_status_snapshot( rs.getString( "artifact_status_snapshot") );
-		dtoBuild.setAllowed( rs.getBoolean( "allowed" ) );
+		dtoBuild.setBuilditem_id( rs.getLong(column[BUILDITEM_ID]) );
+		dtoBuild.setBuild_id( rs.getLong(column[BUILD_ID]) );
+		dtoBuild.setBuild_ts( instant(rs, column[BUILD_TS]) );
+		dtoBuild.setGroup_name( rs.getString(column[GROUP_NAME]) );
+		dtoBuild.setArtifact_name( rs.getString(column[ARTIFACT_NAME]) );
+		dtoBuild.setVersion_name( rs.getString(column[VERSION_NAME]) );
+		dtoBuild.setArtifact_status_snapshot( rs.getString(column[ARTIFACT_STATUS_SNAPSHOT]) );
+		dtoBuild.setAllowed( rs.getBoolean(column[ALLOWED]) );
 
 		return dtoBuild;
 	}
-}
\ No newline at end of file
+}
@@ -7,10 +7,21 @@ import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 
 public interface BuildItemsRepository extends CrudRepository<BuildItem, Long> {
+	String FIND_BY_BUILD_ID = "SELECT * FROM BuildItems WHERE build_id = :build_id ORDER BY group_name, artifact_name ASC" ;
 
-	@Query(value="SELECT * FROM BuildItems WHERE build_id = :build_id ORDER BY group_name, artifact_name ASC" )
+	@Query(value=FIND_BY_BUILD_ID, resultSetExtractorClass=BuildItemRowMapper.Extractor.class )
 	List<BuildItem> findByBuildId(Long build_id );
 	
+	@Modifying
+	@Query(value="DELETE FROM BuildItems WHERE build_id = :build_id" )
+	int deleteByBuildId(Long build_id);
+
+	// an item's build_ts is its build's, it moves to the build's partition when that changes.
+	@Modifying
+	@Query(value="UPDATE BuildItems i SET build_ts = b.build_ts FROM Builds b "
+			+ "WHERE b.build_id = :build_id AND i.build_id = b.build_id AND i.build_ts IS DISTINCT FROM b.build_ts" )
+	int followBuild(Long build_id);
+
 	// TODO - not surfaced as a service
 	@Modifying
 	@Query(value="DELETE FROM BuildItems WHERE build_id IN (SELECT build_id from Builds WHERE project_id = :projectId) " )
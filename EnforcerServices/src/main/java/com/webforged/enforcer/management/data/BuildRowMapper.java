@@ -2,40 +2,42 @@ package com.webforged.enforcer.management.data;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Timestamp;
-import java.time.Instant;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.core.RowMapper;
+public class BuildRowMapper extends ColumnIndexRowMapper<Build> {
 
-public class BuildRowMapper implements RowMapper<Build> {
-	static Logger logger = LoggerFactory.getLogger( BuildRowMapper.class ) ;
+	/**
+	 * For the {@link BuildsRepository} finders, a new mapper for each query.
+	 */
+	public static class Extractor extends ListExtractor<Build> {
+		public Extractor() {
+			super( BuildRowMapper::new ) ;
+		}
+	}
+
+	private static final int BUILD_ID = 0 ;
+	private static final int PROJECT_ID = 1 ;
+	private static final int COMPONENT_ID = 2 ;
+	private static final int COMPONENT_VERSION = 3 ;
+	private static final int INFRACTIONS = 4 ;
+	private static final int SOURCE = 5 ;
+	private static final int BUILD_TS = 6 ;
+
+	public BuildRowMapper() {
+		super( "build_id", "project_id", "component_id", "component_version", "infractions", "source", "build_ts" ) ;
+	}
 
 	@Override
-	public Build mapRow(ResultSet rs, int rowNum) throws SQLException {
-		Timestamp ts;
-		Instant i;
-		
-		if( logger.isDebugEnabled() ) {
-			logger.debug( "mapRow " + rowNum + " into an Build" );
-		}
-		
+	protected Build mapRow(ResultSet rs, int[] column) throws SQLException {
 		Build dtoBuild = new Build() ;
 		
-		dtoBuild.setBuild_id( rs.getLong("build_id") );
-		dtoBuild.setProject_id( rs.getLong("project_id") );
-		dtoBuild.setComponent_id( rs.getLong("component_id") );
-		dtoBuild.setComponent_version( rs.getString( "component_version" ) );
-		dtoBuild.setInfractions( rs.getString("infractions") );
-		dtoBuild.setSource( rs.getString("source") );
-
-		ts = rs.getTimestamp( "build_ts" ) ;
-		if( ts != null ) {
-			i = ts.toInstant() ;
-		} else { i = null; }
-		dtoBuild.setBuild_ts( i );
+		dtoBuild.setBuild_id( rs.getLong(column[BUILD_ID]) );
+		dtoBuild.setProject_id( rs.getLong(column[PROJECT_ID]) );
+		dtoBuild.setComponent_id( rs.getLong(column[COMPONENT_ID]) );
+		dtoBuild.setComponent_version( rs.getString(column[COMPONENT_VERSION]) );
+		dtoBuild.setInfractions( rs.getString(column[INFRACTIONS]) );
+		dtoBuild.setSource( rs.getString(column[SOURCE]) );
+		dtoBuild.setBuild_ts( instant(rs, column[BUILD_TS]) );
 
 		return dtoBuild;
 	}
-}
\ No newline at end of file
+}
@@ -7,15 +7,34 @@ import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 
 public interface BuildsRepository extends CrudRepository<Build, Long> {
-	@Query(value="SELECT * FROM Builds WHERE component_id = :component_id ORDER BY build_ts DESC" )
+	String FIND_BY_COMPONENT_ID = "SELECT * FROM Builds WHERE component_id = :component_id ORDER BY build_ts DESC" ;
+	String FIND_BY_PROJECT_ID = "SELECT a.* FROM Builds a, Components b WHERE b.project_id = :project_id AND a.component_id = b.component_id ORDER BY a.build_ts DESC" ;
+	String FIND_BY_ACRONYM = "SELECT a.* FROM Builds a, Projects b, Components c WHERE b.acronym = :acronym and c.component_id = a.component_id and b.project_id = c.project_id ORDER BY a.build_ts DESC" ;
+
+	@Query(value=FIND_BY_COMPONENT_ID, resultSetExtractorClass=BuildRowMapper.Extractor.class )
 	List<Build> findByComponentId(Long component_id );
 
-	@Query(value="SELECT a.* FROM Builds a, Components b WHERE b.project_id = :project_id AND a.component_id = b.component_id ORDER BY a.build_ts DESC" )
+	@Query(value=FIND_BY_PROJECT_ID, resultSetExtractorClass=BuildRowMapper.Extractor.class )
 	List<Build> findByProjectId(Long project_id );
 	
-	@Query(value="SELECT a.* FROM Builds a, Projects b, Components c WHERE b.acronym = :acronym and c.build_id = a.build_id and b.project_id = c.project_id ORDER BY a.build_ts DESC" )
+	@Query(value=FIND_BY_ACRONYM, resultSetExtractorClass=BuildRowMapper.Extractor.class )
 	List<Build> findByProjectAcronym(String acronym );
 	
+	//
+	// LatestBuilds follows the newest build of each component, refreshed whenever a build is written here.
+	// The plugins' BomWriter keeps it current for the builds they record.
+	//
+	@Modifying
+	@Query(value="DELETE FROM LatestBuilds WHERE component_id = :component_id" )
+	int forgetLatest(Long component_id);
+
+	@Modifying
+	@Query(value="INSERT INTO LatestBuilds(component_id, build_id, build_ts) "
+			+ "SELECT component_id, build_id, build_ts FROM Builds WHERE component_id = :component_id AND build_ts IS NOT NULL "
+			+ "ORDER BY build_ts DESC, build_id DESC LIMIT 1 "
+			+ "ON CONFLICT (component_id) DO UPDATE SET build_id = EXCLUDED.build_id, build_ts = EXCLUDED.build_ts" )
+	int refreshLatest(Long component_id);
+
 	// TODO - not surfaced as a service
 	@Modifying
 	@Query(value="DELETE FROM Builds WHERE component_id IN (SELECT component_id FROM Components WHERE project_id = :projectId)" )
@@ -0,0 +1,76 @@
+package com.webforged.enforcer.management.data;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+
+/**
+ * A RowMapper that finds its columns by name on its first row, instead of on every row, and reads them by index.
+ * The indexes are kept for the rows that follow, so a mapper maps one query and is not shared, make a new one
+ * for each.  The repositories' finders name a {@link ListExtractor}, which does that for every query they run.
+ *
+ * LocalDateTime columns are read straight from the driver, without a java.sql.Timestamp in between.  Instants
+ * still go through one, it is the cheaper way there.
+ */
+public abstract class ColumnIndexRowMapper<T> implements RowMapper<T> {
+
+	/**
+	 * Maps a whole ResultSet to a list with a new mapper, it holds nothing between queries and can be shared.
+	 */
+	public static class ListExtractor<T> implements ResultSetExtractor<List<T>> {
+		private final Supplier<? extends ColumnIndexRowMapper<T>> mappers ;
+
+		protected ListExtractor( Supplier<? extends ColumnIndexRowMapper<T>> mappers ) {
+			this.mappers = mappers ;
+		}
+
+		@Override
+		public List<T> extractData( ResultSet rs ) throws SQLException {
+			return new RowMapperResultSetExtractor<T>( mappers.get() ).extractData( rs ) ;
+		}
+	}
+
+	private final String[] names ;
+	private int[] column ;
+
+	/**
+	 * @param names the columns read, {@link #mapRow(ResultSet, int[])} is given their indexes in this order
+	 */
+	protected ColumnIndexRowMapper( String... names ) {
+		this.names = names ;
+	}
+
+	@Override
+	public final T mapRow( ResultSet rs, int rowNum ) throws SQLException {
+		if( column == null ) {
+			int[] index = new int[ names.length ] ;
+			for( int i = 0; i < names.length; i++ ) {
+				index[i] = rs.findColumn( names[i] ) ;
+			}
+			column = index ;
+		}
+		return mapRow( rs, column ) ;
+	}
+
+	/**
+	 * @param column the index in rs of each of the names given to the constructor
+	 */
+	protected abstract T mapRow( ResultSet rs, int[] column ) throws SQLException ;
+
+	protected static LocalDateTime localDateTime( ResultSet rs, int column ) throws SQLException {
+		return rs.getObject( column, LocalDateTime.class ) ;
+	}
+
+	protected static Instant instant( ResultSet rs, int column ) throws SQLException {
+		Timestamp ts = rs.getTimestamp( column ) ;
+		return ts == null ? null : ts.toInstant() ;
+	}
+}
@@ -3,26 +3,33 @@ package com.webforged.enforcer.management.data;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.core.RowMapper;
+public class ComponentRowMapper extends ColumnIndexRowMapper<Component> {
 
-public class ComponentRowMapper implements RowMapper<Component> {
-	static Logger logger = LoggerFactory.getLogger( ComponentRowMapper.class ) ;
+	/**
+	 * For the {@link ComponentsRepository} finders, a new mapper for each query.
+	 */
+	public static class Extractor extends ListExtractor<Component> {
+		public Extractor() {
+			super( ComponentRowMapper::new ) ;
+		}
+	}
+
+	private static final int COMPONENT_ID = 0 ;
+	private static final int PROJECT_ID = 1 ;
+	private static final int NAME = 2 ;
+
+	public ComponentRowMapper() {
+		super( "component_id", "project_id", "name" ) ;
+	}
 
 	@Override
-	public Component mapRow(ResultSet rs, int rowNum) throws SQLException {
-		
-		if( logger.isDebugEnabled() ) {
-			logger.debug( "mapRow " + rowNum + " into an Project" );
-		}
-		
+	protected Component mapRow(ResultSet rs, int[] column) throws SQLException {
 		Component dtoArtifact = new Component() ;
 
-		dtoArtifact.setComponent_id( rs.getLong("component_id") );
-		dtoArtifact.setProject_id( rs.getLong("project_id") );
-		dtoArtifact.setName( rs.getString("name") );
+		dtoArtifact.setComponent_id( rs.getLong(column[COMPONENT_ID]) );
+		dtoArtifact.setProject_id( rs.getLong(column[PROJECT_ID]) );
+		dtoArtifact.setName( rs.getString(column[NAME]) );
 
 		return dtoArtifact;
 	}
-}
\ No newline at end of file
+}
@@ -7,10 +7,25 @@ import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 
 public interface ComponentsRepository extends CrudRepository<Component, Long> {
-	@Query(value="SELECT a.* FROM Components a, Projects b WHERE a.project_id = b.project_id AND b.acronym = :acronym" )
+	String FIND_BY_ACRONYM = "SELECT a.* FROM Components a, Projects b WHERE a.project_id = b.project_id AND b.acronym = :acronym" ;
+	String FIND_BY_PROJECT_ID = "SELECT * FROM Components WHERE project_id = :projectId" ;
+	String FIND_BY_ARTIFACT_ID = "SELECT p.acronym, c.* "
+			+ "FROM artifacts a, latestbuilds l, builditems i, components c, projects p "
+			+ "WHERE "
+			+ "	a.artifact_id = :artifactId "
+			+ "	and i.build_id = l.build_id "
+			+ "	and i.build_ts = l.build_ts "
+			+ "	and a.group_name = i.group_name "
+			+ "	and a.artifact_name = i.artifact_name "
+			+ "	and a.version_name = i.version_name "
+			+ "	and l.component_id = c.component_id "
+			+ "	and c.project_id = p.project_id "
+			+ "ORDER BY p.acronym, c.name" ;
+
+	@Query(value=FIND_BY_ACRONYM, resultSetExtractorClass=ComponentRowMapper.Extractor.class )
 	List<Component> findByAcronym(String acronym );
 	
-	@Query(value="SELECT * FROM Components WHERE project_id = :projectId" )
+	@Query(value=FIND_BY_PROJECT_ID, resultSetExtractorClass=ComponentRowMapper.Extractor.class )
 	List<Component> findByProjectId(Long projectId);
 	
 	/** Looking into how to use embeddable/embedded with OpenAPI and Spring REST Data.
@@ -19,19 +34,7 @@ public interface ComponentsRepository extends CrudRepository<Component, Long> {
 	 * @param artifactId
 	 * @return
 	 */
-	@Query(value="SELECT p.acronym, c.* "
-			+ "FROM components c, builds b, projects p, builditems i, artifacts a, " +
-			"   (SELECT component_id, MAX(build_ts) build_ts from builds group by component_id) foo "
-			+ "WHERE "
-			+ "	a.artifact_id = :artifactId "
-			+ "	and a.group_name = i.group_name "
-			+ "	and a.artifact_name = i.artifact_name "
-			+ "	and a.version_name = i.version_name "
-			+ "	and i.build_id = b.build_id "
-			+ "	and b.component_id = c.component_id "
-			+ "	and c.project_id = p.project_id "
-			+ "    and (b.component_id = foo.component_id and b.build_ts = foo.build_ts) "
-			+ "ORDER BY p.acronym, c.name")
+	@Query(value=FIND_BY_ARTIFACT_ID, resultSetExtractorClass=ComponentRowMapper.Extractor.class )
 	List<Component> findByArtifactId(Long artifactId) ;
 	
 	// TODO - not surfaced as a service
@@ -2,39 +2,42 @@ package com.webforged.enforcer.management.data;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Timestamp;
-import java.time.Instant;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.core.RowMapper;
+public class LicensedArtifactRowMapper extends ColumnIndexRowMapper<LicensedArtifact> {
 
-public class LicensedArtifactRowMapper implements RowMapper<LicensedArtifact> {
-	static Logger logger = LoggerFactory.getLogger( LicensedArtifactRowMapper.class ) ;
+	/**
+	 * For the {@link LicensedArtifactsRepository} finders, a new mapper for each query.
+	 */
+	public static class Extractor extends ListExtractor<LicensedArtifact> {
+		public Extractor() {
+			super( LicensedArtifactRowMapper::new ) ;
+		}
+	}
+
+	private static final int LIC_ARTIFACT_ID = 0 ;
+	private static final int ARTIFACT_ID = 1 ;
+	private static final int PROJECT_ID = 2 ;
+	private static final int CONTRACT = 3 ;
+	private static final int VENDOR = 4 ;
+	private static final int APPROVAL_ARCHITECT = 5 ;
+	private static final int APPROVAL_TS = 6 ;
+
+	public LicensedArtifactRowMapper() {
+		super( "lic_artifact_id", "artifact_id", "project_id", "contract", "vendor", "approval_architect", "approval_ts" ) ;
+	}
 
 	@Override
-	public LicensedArtifact mapRow(ResultSet rs, int rowNum) throws SQLException {
-		Timestamp ts;
-		Instant i ;
-		
-		if( logger.isDebugEnabled() ) {
-			logger.debug( "mapRow " + rowNum + " into an LicensedArtifact" );
-		}
-		
+	protected LicensedArtifact mapRow(ResultSet rs, int[] column) throws SQLException {
 		LicensedArtifact dtoLicensedArtifact = new LicensedArtifact() ;
 
-		dtoLicensedArtifact.setLic_artifact_id( rs.getLong("lic_artifact_id" ) );
-		dtoLicensedArtifact.setArtifact_id( rs.getLong( "artifact_id" ) );
-		dtoLicensedArtifact.setProject_id( rs.getLong( "project_id" ) );
-		dtoLicensedArtifact.setContract( rs.getString( "contract" ) );
-		dtoLicensedArtifact.setVendor( rs.getString( "vendor" ) );
-		dtoLicensedArtifact.setApproval_architect( rs.getString( "approval_architect" ) );
-		ts = rs.getTimestamp( "approval_ts" ) ;
-		if( ts != null ) {
-			i = ts.toInstant() ;
-		} else { i = null; }
-		dtoLicensedArtifact.setApproval_ts(i);
+		dtoLicensedArtifact.setLic_artifact_id( rs.getLong(column[LIC_ARTIFACT_ID]) );
+		dtoLicensedArtifact.setArtifact_id( rs.getLong(column[ARTIFACT_ID]) );
+		dtoLicensedArtifact.setProject_id( rs.getLong(column[PROJECT_ID]) );
+		dtoLicensedArtifact.setContract( rs.getString(column[CONTRACT]) );
+		dtoLicensedArtifact.setVendor( rs.getString(column[VENDOR]) );
+		dtoLicensedArtifact.setApproval_architect( rs.getString(column[APPROVAL_ARCHITECT]) );
+		dtoLicensedArtifact.setApproval_ts( instant(rs, column[APPROVAL_TS]) );
 
 		return dtoLicensedArtifact;
 	}
-}
\ No newline at end of file
+}
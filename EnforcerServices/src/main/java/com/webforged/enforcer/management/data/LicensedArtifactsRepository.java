@@ -7,19 +7,24 @@ import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 
 public interface LicensedArtifactsRepository extends CrudRepository<LicensedArtifact, Long> {
-	@Query(value="SELECT * FROM LicensedArtifacts WHERE project_id = :projectId" )
+	String FIND_BY_PROJECT_ID = "SELECT * FROM LicensedArtifacts WHERE project_id = :projectId" ;
+	String FIND_BY_ARTIFACT_ID = "SELECT * FROM LicensedArtifacts WHERE artifact_id = :artifactId" ;
+	String FIND_BY_ACRONYM = "SELECT a.* FROM LicensedArtifacts a, Projects b WHERE b.acronym = :acronym and a.project_id = b.project_id" ;
+	String FIND_BY_VENDOR = "SELECT * FROM LicensedArtifacts WHERE vendor = :vendor" ;
+
+	@Query(value=FIND_BY_PROJECT_ID, resultSetExtractorClass=LicensedArtifactRowMapper.Extractor.class )
 	List<LicensedArtifact> findByProject(Long projectId );
 	
-	@Query(value="SELECT * FROM LicensedArtifacts WHERE artifact_id = :artifactId" )
+	@Query(value=FIND_BY_ARTIFACT_ID, resultSetExtractorClass=LicensedArtifactRowMapper.Extractor.class )
 	List<LicensedArtifact> findByArtifactId(Long artifactId );
 	
-	@Query(value="SELECT a.* FROM LicensedArtifacts a, Projects b WHERE b.acronym = :acronym and a.project_id = b.project_id" )
+	@Query(value=FIND_BY_ACRONYM, resultSetExtractorClass=LicensedArtifactRowMapper.Extractor.class )
 	List<LicensedArtifact> findByProject(String acronym );
 
-	@Query(value="SELECT * FROM LicensedArtifacts WHERE vendor = :vendor" )
+	@Query(value=FIND_BY_VENDOR, resultSetExtractorClass=LicensedArtifactRowMapper.Extractor.class )
 	List<LicensedArtifact> findByVendor(String vendor );
 
-	@Query(value="SELECT * FROM LicensedArtifacts WHERE contract = :contract" )
+	@Query(value="SELECT * FROM LicensedArtifacts WHERE contract = :contract", resultSetExtractorClass=LicensedArtifactRowMapper.Extractor.class )
 	List<LicensedArtifact> findByContract(String contract );
 	
 	@Modifying
@@ -20,6 +20,8 @@ public class Project {
 	private String it_owner;
 	private LocalDateTime begin_date;
 	private LocalDateTime end_date;
+	// months of build history kept, builds.retention.months when null.
+	private Integer build_retention_months;
 	
 	public Project() {
 	}
@@ -2,44 +2,42 @@ package com.webforged.enforcer.management.data;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Timestamp;
-import java.time.LocalDateTime;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.core.RowMapper;
+public class ProjectRowMapper extends ColumnIndexRowMapper<Project> {
 
-public class ProjectRowMapper implements RowMapper<Project> {
-	static Logger logger = LoggerFactory.getLogger( ProjectRowMapper.class ) ;
+	/**
+	 * For the {@link ProjectsRepository} finders, a new mapper for each query.
+	 */
+	public static class Extractor extends ListExtractor<Project> {
+		public Extractor() {
+			super( ProjectRowMapper::new ) ;
+		}
+	}
+
+	private static final int PROJECT_ID = 0 ;
+	private static final int ACRONYM = 1 ;
+	private static final int BUSINESS_OWNER = 2 ;
+	private static final int IT_OWNER = 3 ;
+	private static final int BUILD_RETENTION_MONTHS = 4 ;
+	private static final int BEGIN_DATE = 5 ;
+	private static final int END_DATE = 6 ;
+
+	public ProjectRowMapper() {
+		super( "project_id", "acronym", "business_owner", "it_owner", "build_retention_months", "begin_date", "end_date" ) ;
+	}
 
 	@Override
-	public Project mapRow(ResultSet rs, int rowNum) throws SQLException {
-		Timestamp ts;
-		LocalDateTime ldt;
-		
-		if( logger.isDebugEnabled() ) {
-			logger.debug( "mapRow " + rowNum + " into an Project" );
-		}
-		
+	protected Project mapRow(ResultSet rs, int[] column) throws SQLException {
 		Project dtoArtifact = new Project() ;
 		
-		dtoArtifact.setProject_id( rs.getLong("project_id") );
-		dtoArtifact.setAcronym( rs.getString("acronym") );
-		dtoArtifact.setBusiness_owner( rs.getString("business_owner") );
-		dtoArtifact.setIt_owner( rs.getString("it_owner") );
-
-		ts = rs.getTimestamp( "begin_date" ) ;
-		if( ts != null ) {
-			ldt = ts.toLocalDateTime();
-		} else { ldt = null; }
-		dtoArtifact.setBegin_date( ldt );
-
-		ts = rs.getTimestamp( "end_date" ) ;
-		if( ts != null ) {
-			ldt = ts.toLocalDateTime();
-		} else { ldt = null; }
-		dtoArtifact.setEnd_date( ldt );
+		dtoArtifact.setProject_id( rs.getLong(column[PROJECT_ID]) );
+		dtoArtifact.setAcronym( rs.getString(column[ACRONYM]) );
+		dtoArtifact.setBusiness_owner( rs.getString(column[BUSINESS_OWNER]) );
+		dtoArtifact.setIt_owner( rs.getString(column[IT_OWNER]) );
+		dtoArtifact.setBuild_retention_months( rs.getObject(column[BUILD_RETENTION_MONTHS], Integer.class) );
+		dtoArtifact.setBegin_date( localDateTime(rs, column[BEGIN_DATE]) );
+		dtoArtifact.setEnd_date( localDateTime(rs, column[END_DATE]) );
 
 		return dtoArtifact;
 	}
-}
\ No newline at end of file
+}
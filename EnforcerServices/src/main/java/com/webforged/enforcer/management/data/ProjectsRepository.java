@@ -8,17 +8,28 @@ import org.springframework.web.bind.annotation.CrossOrigin;
 
 @CrossOrigin
 public interface ProjectsRepository extends CrudRepository<Project, Long> {
+	// the projects a caller may see are chosen in the query, :superuser and :acronyms come from ProjectVisibility.
+	String FIND_VISIBLE = "SELECT * FROM Projects WHERE (:superuser OR acronym = ANY(:acronyms)) ORDER BY acronym, project_id ASC" ;
+	String FIND_BY_ACRONYM = "SELECT * FROM Projects WHERE acronym = :acronym ORDER BY acronym, project_id ASC" ;
+	String FIND_BY_IT_OWNER = "SELECT * FROM Projects WHERE it_owner = :it_owner AND (:superuser OR acronym = ANY(:acronyms)) "
+			+ "ORDER BY acronym, project_id ASC" ;
+	String FIND_BY_BUSINESS_OWNER = "SELECT * FROM Projects WHERE business_owner = :business_owner AND (:superuser OR acronym = ANY(:acronyms)) "
+			+ "ORDER BY acronym, project_id ASC" ;
+	String FIND_PERMITTED_BY_ARTIFACT_ID = "SELECT a.* FROM Projects a, AllowedArtifacts b WHERE (b.artifact_id = :artifactId AND a.project_id = b.project_id) "
+			+ "UNION ALL SELECT a.* FROM Projects a, LicensedArtifacts b WHERE (b.artifact_id = :artifactId AND a.project_id = b.project_id)" ;
 
-	@Query(value="SELECT * FROM Projects WHERE acronym = :acronym ORDER BY acronym, component ASC" )
+	@Query(value=FIND_VISIBLE, resultSetExtractorClass=ProjectRowMapper.Extractor.class )
+	List<Project> findVisible(boolean superuser, String[] acronyms );
+
+	@Query(value=FIND_BY_ACRONYM, resultSetExtractorClass=ProjectRowMapper.Extractor.class )
 	List<Project> findByAcronym(String acronym );
 
-	@Query(value="SELECT * FROM Projects WHERE it_owner = :it_owner ORDER BY acronym, component ASC" )
-	List<Project> findByITOwner(String it_owner );
+	@Query(value=FIND_BY_IT_OWNER, resultSetExtractorClass=ProjectRowMapper.Extractor.class )
+	List<Project> findByITOwner(String it_owner, boolean superuser, String[] acronyms );
 	
-	@Query(value="SELECT * FROM Projects WHERE business_owner = :business_owner ORDER BY acronym, component ASC" )
-	List<Project> findByBusinessOwner(String business_owner );
+	@Query(value=FIND_BY_BUSINESS_OWNER, resultSetExtractorClass=ProjectRowMapper.Extractor.class )
+	List<Project> findByBusinessOwner(String business_owner, boolean superuser, String[] acronyms );
 	
-	@Query(value="SELECT a.* FROM Projects a, AllowedArtifacts b WHERE (b.artifact_id = :artifactId AND a.project_id = b.project_id) "
-			+ "UNION ALL SELECT a.* FROM Projects a, LicensedArtifacts b WHERE (b.artifact_id = :artifactId AND a.project_id = b.project_id)" )
+	@Query(value=FIND_PERMITTED_BY_ARTIFACT_ID, resultSetExtractorClass=ProjectRowMapper.Extractor.class )
 	List<Project> findPermittedProjectsByArtifactId(Long artifactId );
 }
\ No newline at end of file
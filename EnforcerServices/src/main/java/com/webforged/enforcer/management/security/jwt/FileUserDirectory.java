@@ -0,0 +1,130 @@
+package com.webforged.enforcer.management.security.jwt;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * The users, hash indexed by name, read from the properties file jwt.users.file, a user per line:
+ *
+ *     name=bcrypt encoded password,role[,role...]
+ *
+ * Roles are named as in the @PreAuthorize annotations, read_governance, write_governance and an ACRONYM_architect
+ * for every project the user approves artifacts of.  The authorities are made when the file is read, users with the
+ * same role share its GrantedAuthority.  The file is checked every jwt.users.reload-interval milliseconds and read
+ * again when it has changed, a file that cannot be read leaves the users as they were.  Reading it again publishes
+ * {@link UserDirectory.Changed}.
+ *
+ * Without jwt.users.file the built-in demo logins are used.
+ */
+@Component
+public class FileUserDirectory implements UserDirectory {
+	static Logger logger = LoggerFactory.getLogger(FileUserDirectory.class);
+
+	private final String file;
+	private final ApplicationEventPublisher publisher;
+	private volatile Map<String, UserDetails> users;
+	private long lastModified;
+
+	public FileUserDirectory(@Value("${jwt.users.file:}") String file, ApplicationEventPublisher publisher) throws IOException {
+		this.file = file.trim();
+		this.publisher = publisher;
+		if (this.file.isEmpty()) {
+			logger.warn("jwt.users.file is not set, only the built-in demo logins can authenticate");
+			users = demoUsers();
+		} else {
+			Path path = Paths.get(this.file);
+			lastModified = Files.getLastModifiedTime(path).toMillis();
+			users = read(path);
+			logger.info(users.size() + " users read from " + path);
+		}
+	}
+
+	@Override
+	public UserDetails find(String username) {
+		return users.get(username);
+	}
+
+	@Scheduled(fixedDelayString = "${jwt.users.reload-interval:60000}")
+	public void reload() {
+		if (file.isEmpty()) {
+			return;
+		}
+		try {
+			Path path = Paths.get(file);
+			// taken before reading, a change made while reading is read on the next check.
+			long modified = Files.getLastModifiedTime(path).toMillis();
+			if (modified == lastModified) {
+				return;
+			}
+			users = read(path);
+			lastModified = modified;
+			logger.info(users.size() + " users read again from " + path);
+			publisher.publishEvent(new UserDirectory.Changed(this));
+		} catch (Exception e) {
+			logger.error("could not read " + file + ", keeping the " + users.size() + " users read before: " + e.toString());
+		}
+	}
+
+	private static Map<String, UserDetails> read(Path path) throws IOException {
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+		Map<String, GrantedAuthority> authorities = new HashMap<String, GrantedAuthority>();
+		Map<String, UserDetails> read = new HashMap<String, UserDetails>(properties.size() * 4 / 3 + 1);
+		for (String name : properties.stringPropertyNames()) {
+			String[] fields = properties.getProperty(name).split(",");
+			if (fields.length < 2 || fields[0].trim().isEmpty()) {
+				logger.warn(path + ": " + name + " needs a password and at least one role, skipped");
+				continue;
+			}
+			String[] roles = new String[fields.length - 1];
+			System.arraycopy(fields, 1, roles, 0, roles.length);
+			read.put(name, user(name, fields[0].trim(), roles, authorities));
+		}
+		return Collections.unmodifiableMap(read);
+	}
+
+	private static Map<String, UserDetails> demoUsers() {
+		PasswordEncoder encoder = new BCryptPasswordEncoder();
+		Map<String, GrantedAuthority> authorities = new HashMap<String, GrantedAuthority>();
+		Map<String, UserDetails> demo = new HashMap<String, UserDetails>();
+		demo.put("chas", user("chas", encoder.encode("chas"), new String[]{ "read_governance", "write_governance", "SUPERUSER_architect" }, authorities));
+		demo.put("dev", user("dev", encoder.encode("dev"), new String[]{ "read_governance", "write_governance", "SUPERUSER_architect" }, authorities));
+		demo.put("nathan", user("nathan", encoder.encode("nathan"), new String[]{ "read_governance", "write_governance", "FOO_architect", "BAR_architect" }, authorities));
+		return Collections.unmodifiableMap(demo);
+	}
+
+	private static UserDetails user(String name, String password, String[] roles, Map<String, GrantedAuthority> authorities) {
+		Set<GrantedAuthority> granted = new HashSet<GrantedAuthority>();
+		for (String role : roles) {
+			if (!role.trim().isEmpty()) {
+				granted.add(authorities.computeIfAbsent("ROLE_" + role.trim(), SimpleGrantedAuthority::new));
+			}
+		}
+		return User.withUsername(name).password(password).authorities(granted).build();
+	}
+}
@@ -1,19 +1,35 @@
 package com.webforged.enforcer.management.security.jwt;
 
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 
+//
+// every request carries the same token for hours, so the claims of a token that verified are kept, keyed by its
+// SHA-256 rather than the token itself, until the token expires.  Tokens that fail to verify are not kept.
+// Hits and misses are published as cache.gets{cache=jwt.claims}.
+//
 @Component
 public class JwtTokenUtil implements Serializable {
 
@@ -24,6 +40,36 @@ public class JwtTokenUtil implements Serializable {
 	@Value("${jwt.secret}")
 	private String secret;
 
+	private final transient Cache<String, Claims> verified;
+
+	public JwtTokenUtil(MeterRegistry registry, @Value("${jwt.cache.max-entries:10000}") long maxEntries) {
+		this.verified = Caffeine.newBuilder()
+				.maximumSize(maxEntries)
+				.expireAfter(new Expiry<String, Claims>() {
+					@Override
+					public long expireAfterCreate(String key, Claims claims, long currentTime) {
+						long left = JWT_TOKEN_VALIDITY * 1000;
+						if (claims.getExpiration() != null) {
+							left = Math.min(left, claims.getExpiration().getTime() - System.currentTimeMillis());
+						}
+						return TimeUnit.MILLISECONDS.toNanos(Math.max(left, 0));
+					}
+
+					@Override
+					public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+
+					@Override
+					public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(registry, verified, "jwt.claims");
+	}
+
 	//retrieve username from jwt token
 	public String getUsernameFromToken(String token) {
 		return getClaimFromToken(token, Claims::getSubject);
@@ -38,15 +84,24 @@ public class JwtTokenUtil implements Serializable {
 		final Claims claims = getAllClaimsFromToken(token);
 		return claimsResolver.apply(claims);
 	}
-	//for retrieving any information from token we will need the secret key
+	//for retrieving any information from token we will need the secret key, once per token
 	private Claims getAllClaimsFromToken(String token) {
-		return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
+		return verified.get(hash(token), key -> Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody());
+	}
+
+	private static String hash(String token) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("every JVM has SHA-256", e);
+		}
 	}
 
 	//check if the token has expired
-	private Boolean isTokenExpired(String token) {
-		final Date expiration = getExpirationDateFromToken(token);
-		return expiration.before(new Date());
+	private Boolean isTokenExpired(Claims claims) {
+		final Date expiration = claims.getExpiration();
+		return expiration == null || expiration.before(new Date());
 	}
 
 	//generate token for user
@@ -69,7 +124,7 @@ public class JwtTokenUtil implements Serializable {
 
 	//validate token
 	public Boolean validateToken(String token, UserDetails userDetails) {
-		final String username = getUsernameFromToken(token);
-		return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+		final Claims claims = getAllClaimsFromToken(token);
+		return (claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims));
 	}
 }
\ No newline at end of file
@@ -1,58 +1,59 @@
 package com.webforged.enforcer.management.security.jwt;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
-import org.springframework.security.core.userdetails.User.UserBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
 @Component
 public class JwtUserDetailsService implements UserDetailsService {
 	//
-	// simple data structure for linear search for known principals with plaintext passwords...obviously not production stuff.
+	// the users looked up in the directory, for jwt.user-cache.ttl seconds or until the directory publishes that it
+	// changed.  A copy is handed out, authentication erases the password of the one it is given.
+	// Hits and misses are published as cache.gets{cache=jwt.users}.
 	//
-    private static List<UserObject> users = new ArrayList<UserObject>();
-
-    public JwtUserDetailsService() {
-        users.add(new UserObject("chas", "chas", new String[]{ "read_governance", "write_governance", "SUPERUSER_architect" }));
-        users.add(new UserObject("dev", "dev", new String[]{ "read_governance", "write_governance", "SUPERUSER_architect" }));
-        users.add(new UserObject("nathan", "nathan", new String[]{ "read_governance", "write_governance", "FOO_architect", "BAR_architect" }));
+    private final UserDirectory directory;
+    private final Cache<String, UserDetails> cache;
+
+    public JwtUserDetailsService(UserDirectory directory, MeterRegistry registry,
+            @Value("${jwt.user-cache.max-entries:10000}") long maxEntries,
+            @Value("${jwt.user-cache.ttl:300}") long ttl) {
+        this.directory = directory;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "jwt.users");
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Optional<UserObject> user = users.stream()
-                                         .filter(u -> u.name.equals(username))
-                                         .findAny();
-        if (!user.isPresent()) {
-            throw new UsernameNotFoundException("User not found by name: " + username);
-        }
-        return toUserDetails(user.get());
+        UserDetails user = cache.get(username, this::findUser);
+        return User.withUserDetails(user).build();
     }
 
-    private UserDetails toUserDetails(UserObject userObject) {
-    	UserBuilder builder = null ;
-
-        builder = org.springframework.security.core.userdetails.User.withUsername( userObject.name );
-        builder.password(new BCryptPasswordEncoder().encode( userObject.password ) );
-        builder.roles(userObject.role);
-        return builder.build();
+    @EventListener(UserDirectory.Changed.class)
+    public void directoryChanged() {
+        cache.invalidateAll();
     }
 
-    private static class UserObject {
-        private String name;
-        private String password;
-        private String[] role;
-
-        public UserObject(String name, String password, String[] role) {
-            this.name = name;
-            this.password = password;
-            this.role = role;
+    private UserDetails findUser(String username) {
+        UserDetails user = directory.find(username);
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found by name: " + username);
         }
+        return user;
     }
-}
\ No newline at end of file
+}
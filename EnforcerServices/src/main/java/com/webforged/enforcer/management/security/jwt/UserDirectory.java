@@ -0,0 +1,28 @@
+package com.webforged.enforcer.management.security.jwt;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Where the users who log in to the services are looked up.  {@link FileUserDirectory} reads them from a file, a
+ * directory kept in the database or an IDAM implements this as a @Primary component to replace it.
+ */
+public interface UserDirectory {
+
+	/**
+	 * @return the user with its BCrypt encoded password and authorities, null if there is none.  The same instance
+	 * may be returned every time, authentication erases the password of the one it is given so callers pass on a copy.
+	 */
+	UserDetails find(String username);
+
+	/**
+	 * Published by a directory whose users have changed, so that users looked up before are looked up again.
+	 */
+	class Changed extends ApplicationEvent {
+		private static final long serialVersionUID = 1L;
+
+		public Changed(UserDirectory directory) {
+			super(directory);
+		}
+	}
+}
@@ -1,17 +1,31 @@
 package com.webforged.enforcer.management.services;
 
+import java.sql.PreparedStatement;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
+import com.webforged.enforcer.management.dao.BulkImporter;
+import com.webforged.enforcer.management.dao.KeysetPager;
+import com.webforged.enforcer.management.dao.KeysetPager.Keyset;
+import com.webforged.enforcer.management.data.AllowedArtifactRowMapper;
 import com.webforged.enforcer.management.data.AllowedArtifactsRepository;
 import com.webforged.enforcer.management.util.Jsr310NullConverters;
 import com.webforged.enforcer.management.util.WrappedErrorException;
@@ -19,6 +33,8 @@ import com.webforged.enforcer.management.util.WrappedErrorException;
 import com.webforged.enforcer.openapi.api.AllowedartifactsApi;
 import com.webforged.enforcer.openapi.api.AllowedartifactsApiDelegate;
 import com.webforged.enforcer.openapi.model.AllowedArtifact;
+import com.webforged.enforcer.openapi.model.ArtifactGrant;
+import com.webforged.enforcer.openapi.model.ImportReport;
 import com.webforged.enforcer.openapi.model.ProjectArtifactKeys;
 
 @Service
@@ -26,9 +42,34 @@ import com.webforged.enforcer.openapi.model.ProjectArtifactKeys;
 public class AllowedArtifactsService implements AllowedartifactsApiDelegate {
 	Logger logger = LoggerFactory.getLogger( AllowedArtifactsService.class ) ;
 	private final AllowedArtifactsRepository repository;
+	private final KeysetPager pager ;
+	private final BulkImporter importer ;
+	private final JdbcTemplate jdbcTemplate ;
+	private final PolicyService policy ;
 	
-	public AllowedArtifactsService( AllowedArtifactsRepository repository ) {
+	private static final Keyset ALLOWED_KEYSET = Keyset.ascending( "allowed_artifact_id" ) ;
+
+	// the grants it returns are the ones created.
+	static final String IMPORT_GRANTS = "INSERT INTO AllowedArtifacts(artifact_id, project_id, approval_architect, approval_ts) "
+			+ "SELECT * FROM unnest(?::int[], ?::int[], ?::varchar[], ?::timestamp[]) "
+			+ "ON CONFLICT (artifact_id,project_id) DO NOTHING "
+			+ "RETURNING artifact_id, project_id" ;
+
+	// a grant already held keeps its approval unless the row has one.
+	static final String UPDATE_GRANTS = "UPDATE AllowedArtifacts a SET "
+			+ "approval_architect = coalesce(g.approval_architect, a.approval_architect), "
+			+ "approval_ts = coalesce(g.approval_ts, a.approval_ts) "
+			+ "FROM unnest(?::int[], ?::int[], ?::varchar[], ?::timestamp[]) AS g(artifact_id, project_id, approval_architect, approval_ts) "
+			+ "WHERE a.artifact_id = g.artifact_id AND a.project_id = g.project_id "
+			+ "RETURNING a.artifact_id, a.project_id" ;
+
+	public AllowedArtifactsService( AllowedArtifactsRepository repository, KeysetPager pager, BulkImporter importer, JdbcTemplate jdbcTemplate,
+			PolicyService policy ) {
+		this.pager = pager ;
 		this.repository = repository;
+		this.importer = importer ;
+		this.jdbcTemplate = jdbcTemplate ;
+		this.policy = policy ;
 	}
 	
     /**
@@ -75,7 +116,11 @@ public class AllowedArtifactsService implements AllowedartifactsApiDelegate {
      */
 	@Override
 	@PreAuthorize("hasRole('read_governance')")
-	public ResponseEntity< List<AllowedArtifact>> findAllowedArtifactsByProjectAcronym(String acronym) {
+	public ResponseEntity< List<AllowedArtifact>> findAllowedArtifactsByProjectAcronym(String acronym, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( AllowedArtifactsRepository.FIND_BY_ACRONYM, KeysetPager.params( "acronym", acronym ), ALLOWED_KEYSET,
+					new AllowedArtifactRowMapper(), AllowedArtifactsService::convertAllowedArtifactDTOToAllowedArtifactAPI, limit, after, stream ) ;
+		}
 		try {
 			List<com.webforged.enforcer.management.data.AllowedArtifact> dtoArtifact ;
 			List<AllowedArtifact> apiArtifact = null ;
@@ -109,7 +154,11 @@ public class AllowedArtifactsService implements AllowedartifactsApiDelegate {
      */
 	@Override
 	@PreAuthorize("hasRole('read_governance')")
-    public ResponseEntity<List<AllowedArtifact>> findAllowedArtifactsByArtifactId(Long artifactId) {
+    public ResponseEntity<List<AllowedArtifact>> findAllowedArtifactsByArtifactId(Long artifactId, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( AllowedArtifactsRepository.FIND_BY_ARTIFACT_ID, KeysetPager.params( "artifactId", artifactId ), ALLOWED_KEYSET,
+					new AllowedArtifactRowMapper(), AllowedArtifactsService::convertAllowedArtifactDTOToAllowedArtifactAPI, limit, after, stream ) ;
+		}
 		List<com.webforged.enforcer.management.data.AllowedArtifact> dtoArtifact ;
 		List<AllowedArtifact> apiArtifact = null ;
 		try {
@@ -143,7 +192,11 @@ public class AllowedArtifactsService implements AllowedartifactsApiDelegate {
      */
 	@Override
 	@PreAuthorize("hasRole('read_governance')")
-	public ResponseEntity< List<AllowedArtifact>> findAllowedArtifactsByProject(Long projectId) {
+	public ResponseEntity< List<AllowedArtifact>> findAllowedArtifactsByProject(Long projectId, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( AllowedArtifactsRepository.FIND_BY_PROJECT_ID, KeysetPager.params( "projectId", projectId ), ALLOWED_KEYSET,
+					new AllowedArtifactRowMapper(), AllowedArtifactsService::convertAllowedArtifactDTOToAllowedArtifactAPI, limit, after, stream ) ;
+		}
 		List<com.webforged.enforcer.management.data.AllowedArtifact> dtoArtifact ;
 		List<AllowedArtifact> apiArtifact = null ;
 		try {
@@ -189,6 +242,7 @@ public class AllowedArtifactsService implements AllowedartifactsApiDelegate {
 			}
 			dtoArtifact = convertAllowedArtifactAPIToAllowedArtifactDTO(artifact);
 			dtoArtifact = repository.save(dtoArtifact);
+			policy.evictGrants( dtoArtifact.getProject_id() ) ;
 			apiArtifact = convertAllowedArtifactDTOToAllowedArtifactAPI(dtoArtifact);
 	        return new ResponseEntity<AllowedArtifact>(apiArtifact, HttpStatus.CREATED);
 		} catch( Exception others ) {
@@ -213,7 +267,12 @@ public class AllowedArtifactsService implements AllowedartifactsApiDelegate {
 	@PreAuthorize("hasRole('write_governance')")
     public ResponseEntity<Void> deleteAllowedArtifact(Long allowedArtifactId) {
     	try {
+    		// the grant as it was, for the project whose grants it is part of.
+    		com.webforged.enforcer.management.data.AllowedArtifact dtoPreviousArtifact = repository.findById( allowedArtifactId ).orElse(null) ;
     		repository.deleteById( allowedArtifactId );
+    		if( dtoPreviousArtifact != null ) {
+    			policy.evictGrants( dtoPreviousArtifact.getProject_id() ) ;
+    		}
     		return new ResponseEntity<>(HttpStatus.OK);
     	} catch( Exception others ) {
 			logger.error( "deleteAllowedArtifact " + allowedArtifactId + " error: " + others.toString() );
@@ -237,6 +296,7 @@ public class AllowedArtifactsService implements AllowedartifactsApiDelegate {
     public ResponseEntity<Void> deleteAllowedArtifactsByArtifactId(Long artifactId) {
     	try {
     		repository.deleteByArtifactId( artifactId );
+    		policy.evictGrants() ;
     		return new ResponseEntity<>(HttpStatus.OK);
     	} catch( Exception others ) {
 			logger.error( "deleteLicensedArtifactsByArtifactId " + artifactId + " error: " + others.toString() );
@@ -264,6 +324,7 @@ public class AllowedArtifactsService implements AllowedartifactsApiDelegate {
         Long artifactId = projectArtifactKeys.getArtifactId() ;
     	try {
     		repository.deleteByProjectIdAndArtifactId(projectId, artifactId);
+    		policy.evictGrants( projectId ) ;
     		return new ResponseEntity<>(HttpStatus.OK);
     	} catch( Exception others ) {
 			logger.error( "deleteAllowedArtifactByProjectIdAndArtifactId " + projectId + "," + artifactId + " error: " + others.toString() );
@@ -298,7 +359,13 @@ public class AllowedArtifactsService implements AllowedartifactsApiDelegate {
 				}
 			}
 			
+			com.webforged.enforcer.management.data.AllowedArtifact dtoPreviousArtifact = dtoArtifact.getAllowed_artifact_id() == null ? null
+					: repository.findById( dtoArtifact.getAllowed_artifact_id() ).orElse(null) ;
 			dtoArtifact = repository.save(dtoArtifact);
+			if( dtoPreviousArtifact != null ) {
+				policy.evictGrants( dtoPreviousArtifact.getProject_id() ) ;
+			}
+			policy.evictGrants( dtoArtifact.getProject_id() ) ;
 			apiArtifact = convertAllowedArtifactDTOToAllowedArtifactAPI(dtoArtifact);
 			
 	        return new ResponseEntity<AllowedArtifact>(apiArtifact, HttpStatus.OK);
@@ -311,6 +378,100 @@ public class AllowedArtifactsService implements AllowedartifactsApiDelegate {
 		}
     }
 	
+    /**
+     * POST /allowedartifacts/import : Import allowed artifacts in bulk
+     * Each row grants an artifact, by id or coordinates, to a project, by id or acronym.  Vendor licensed artifacts
+     * are granted through LicensedArtifacts and are refused here.  A grant the project already holds takes the approval
+     * of the row.
+     *
+     * @param body NDJSON or CSV of ArtifactGrant (required)
+     * @return successful operation (status code 200)
+     *         or unreadable input (status code 400)
+     *         or null (status code 500)
+     * @see AllowedartifactsApi#importAllowedArtifacts
+     */
+	@Override
+	@PreAuthorize("hasRole('write_governance')")
+	public ResponseEntity<ImportReport> importAllowedArtifacts(String body) {
+		Set<Long> projects = new HashSet<Long>() ;
+		try {
+			ImportReport report = importer.run( "allowed artifact", body, ArtifactGrant.class, chunk -> importChunk( chunk, projects ) ) ;
+			return new ResponseEntity<ImportReport>( report, HttpStatus.OK ) ;
+		} catch( WrappedErrorException wee ) {
+			throw wee ;
+		} catch( Exception others ) {
+			logger.error( "importAllowedArtifacts error: " + others.toString() );
+			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
+			e.setStatus( HttpStatus.INTERNAL_SERVER_ERROR.value() );
+			e.setType( "AllowedArtifact import error " + others.toString() );
+			throw new WrappedErrorException( e ) ;
+		} finally {
+			projects.forEach( policy::evictGrants ) ;
+		}
+	}
+
+	/**
+	 * One chunk of an import, within its transaction.  Its projects and artifacts are looked up by GrantKeys, the
+	 * new grants inserted with one statement and the ones the projects already held updated with another.
+	 * @param projects gets the projects whose grants the chunk writes
+	 */
+	private void importChunk( List<BulkImporter.Row<ArtifactGrant>> chunk, Set<Long> projects ) {
+		GrantKeys keys = new GrantKeys( jdbcTemplate, chunk.stream().map( BulkImporter.Row::value ).collect( Collectors.toList() ) ) ;
+		Map<List<Long>,BulkImporter.Row<ArtifactGrant>> grants = new LinkedHashMap<List<Long>,BulkImporter.Row<ArtifactGrant>>() ;
+		List<com.webforged.enforcer.management.data.AllowedArtifact> dtoGrants = new ArrayList<com.webforged.enforcer.management.data.AllowedArtifact>() ;
+		for( BulkImporter.Row<ArtifactGrant> row : chunk ) {
+			ArtifactGrant grant = row.value() ;
+			Long projectId = keys.projectId( grant ) ;
+			Long artifactId = keys.artifactId( grant ) ;
+			String missing = keys.missing( grant ) ;
+			if( missing != null ) {
+				row.fail( missing ) ;
+			} else if( keys.isVendorLicensed( artifactId ) ) {
+				row.fail( "artifact " + artifactId + " is vendor licensed, it is granted through /licensedartifacts." ) ;
+			} else if( grants.containsKey( Arrays.asList(artifactId, projectId) ) ) {
+				row.fail( "same grant as row " + grants.get( Arrays.asList(artifactId, projectId) ).number() ) ;
+			} else {
+				com.webforged.enforcer.management.data.AllowedArtifact dtoGrant = new com.webforged.enforcer.management.data.AllowedArtifact() ;
+				dtoGrant.setArtifact_id( artifactId );
+				dtoGrant.setProject_id( projectId );
+				dtoGrant.setApproval_architect( grant.getApprovalArchitect() );
+				dtoGrant.setApproval_ts( Jsr310NullConverters.OffsetDateTimeToInstantConverter.INSTANCE.convert(grant.getApprovalTs()) );
+				if( dtoGrant.getApproval_architect() != null && dtoGrant.getApproval_architect().equals("") != true ) {
+					if( dtoGrant.getApproval_ts() == null ) {
+						dtoGrant.setApproval_ts( Instant.now() );
+					}
+				}
+				grants.put( Arrays.asList(artifactId, projectId), row ) ;
+				dtoGrants.add( dtoGrant ) ;
+			}
+		}
+		if( dtoGrants.isEmpty() ) {
+			return ;
+		}
+
+		dtoGrants.forEach( g -> projects.add( g.getProject_id() ) ) ;
+		writeGrants( IMPORT_GRANTS, dtoGrants, key -> grants.remove( key ).created() ) ;
+		List<com.webforged.enforcer.management.data.AllowedArtifact> held = dtoGrants.stream()
+				.filter( g -> grants.containsKey( Arrays.asList(g.getArtifact_id(), g.getProject_id()) ) ).collect( Collectors.toList() ) ;
+		if( !held.isEmpty() ) {
+			writeGrants( UPDATE_GRANTS, held, key -> grants.get( key ).updated() ) ;
+		}
+	}
+
+	/**
+	 * @param written given the artifact and project id of each grant the statement returns
+	 */
+	private void writeGrants( String sql, List<com.webforged.enforcer.management.data.AllowedArtifact> dtoGrants, Consumer<List<Long>> written ) {
+		jdbcTemplate.query( con -> {
+			PreparedStatement ps = con.prepareStatement( sql ) ;
+			ps.setArray( 1, BulkImporter.array( con, "int8", dtoGrants, g -> g.getArtifact_id() ) );
+			ps.setArray( 2, BulkImporter.array( con, "int8", dtoGrants, g -> g.getProject_id() ) );
+			ps.setArray( 3, BulkImporter.array( con, "varchar", dtoGrants, g -> g.getApproval_architect() ) );
+			ps.setArray( 4, BulkImporter.array( con, "timestamp", dtoGrants, g -> g.getApproval_ts() ) );
+			return ps ;
+		}, (RowCallbackHandler) rs -> written.accept( Arrays.asList(rs.getLong("artifact_id"), rs.getLong("project_id")) ) ) ;
+	}
+
 	private static AllowedArtifact convertAllowedArtifactDTOToAllowedArtifactAPI(com.webforged.enforcer.management.data.AllowedArtifact dtoArtifact) {
 		AllowedArtifact apiArtifact;
 		
@@ -1,15 +1,22 @@
 package com.webforged.enforcer.management.services;
 
+import java.sql.PreparedStatement;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -19,6 +26,11 @@ import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
+import com.webforged.enforcer.management.dao.ArtifactCache;
+import com.webforged.enforcer.management.dao.BulkImporter;
+import com.webforged.enforcer.management.dao.KeysetPager;
+import com.webforged.enforcer.management.dao.KeysetPager.Keyset;
+import com.webforged.enforcer.management.data.ArtifactRowMapper;
 import com.webforged.enforcer.management.data.AllowedArtifactsRepository;
 import com.webforged.enforcer.management.data.ArtifactsRepository;
 import com.webforged.enforcer.management.data.LicensedArtifactsRepository;
@@ -28,6 +40,7 @@ import com.webforged.enforcer.management.util.WrappedErrorException;
 import com.webforged.enforcer.openapi.api.ArtifactsApi;
 import com.webforged.enforcer.openapi.api.ArtifactsApiDelegate;
 import com.webforged.enforcer.openapi.model.Artifact;
+import com.webforged.enforcer.openapi.model.ImportReport;
 
 @Service
 @CrossOrigin
@@ -35,15 +48,52 @@ public class ArtifactsService implements ArtifactsApiDelegate {
 	
 	private TransactionTemplate transactionTemplate;
 	private final ArtifactsRepository repository;
+	private final KeysetPager pager ;
+	private final ArtifactCache cache ;
 	private final AllowedArtifactsRepository allowedRepo ;
 	private final LicensedArtifactsRepository licensedRepo ;
+	private final BulkImporter importer ;
+	private final JdbcTemplate jdbcTemplate ;
+	private final PolicyService policy ;
 
 	Logger logger = LoggerFactory.getLogger( ArtifactsService.class ) ;
 	
+	private static final Keyset ID_KEYSET = Keyset.ascending( "artifact_id" ) ;
+	private static final Keyset GAV_KEYSET = Keyset.ascending( "group_name", "artifact_name", "version_name", "artifact_id" ) ;
+	private static final Keyset AGV_KEYSET = Keyset.ascending( "artifact_name", "group_name", "version_name", "artifact_id" ) ;
+
+	// an import chunk's artifacts already in the store, locked until the chunk is written.
+	static final String LOCK_BY_COORDINATES = "SELECT a.* FROM Artifacts a "
+			+ "JOIN unnest(?::varchar[], ?::varchar[], ?::varchar[]) AS k(group_name, artifact_name, version_name) "
+			+ "USING (group_name, artifact_name, version_name) FOR UPDATE OF a" ;
+	static final String IMPORT_COLUMNS = "status, group_name, artifact_name, version_name, is_vendor_licensed, created_date, "
+			+ "approval_date, approval_authorization, approval_ts, deprecation_date, deprecation_authorization, deprecation_ts, "
+			+ "retirement_date, retirement_authorization, retirement_ts" ;
+	static final String IMPORT_ROWS = "unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::boolean[], ?::timestamp[], "
+			+ "?::timestamp[], ?::varchar[], ?::timestamp[], ?::timestamp[], ?::varchar[], ?::timestamp[], ?::timestamp[], ?::varchar[], "
+			+ "?::timestamp[], ?::int[]) AS u(" + IMPORT_COLUMNS + ", artifact_id)" ;
+	static final String IMPORT_INSERT = "INSERT INTO Artifacts(" + IMPORT_COLUMNS + ") SELECT " + IMPORT_COLUMNS + " FROM " + IMPORT_ROWS
+			+ " ON CONFLICT (group_name,artifact_name,version_name) DO NOTHING RETURNING group_name, artifact_name, version_name" ;
+	static final String IMPORT_UPDATE = "UPDATE Artifacts a SET status = u.status, is_vendor_licensed = u.is_vendor_licensed, "
+			+ "created_date = u.created_date, approval_date = u.approval_date, approval_authorization = u.approval_authorization, "
+			+ "approval_ts = u.approval_ts, deprecation_date = u.deprecation_date, deprecation_authorization = u.deprecation_authorization, "
+			+ "deprecation_ts = u.deprecation_ts, retirement_date = u.retirement_date, retirement_authorization = u.retirement_authorization, "
+			+ "retirement_ts = u.retirement_ts FROM " + IMPORT_ROWS + " WHERE a.artifact_id = u.artifact_id" ;
+
 	public ArtifactsService( ArtifactsRepository repository,
 			AllowedArtifactsRepository allowedRepo,
 			LicensedArtifactsRepository licensedRepo,
+			KeysetPager pager,
+			ArtifactCache cache,
+			BulkImporter importer,
+			JdbcTemplate jdbcTemplate,
+			PolicyService policy,
 			PlatformTransactionManager transactionManager ) {
+		this.pager = pager ;
+		this.cache = cache ;
+		this.policy = policy ;
+		this.importer = importer ;
+		this.jdbcTemplate = jdbcTemplate ;
 		this.repository = repository;
 		this.allowedRepo = allowedRepo;
 		this.licensedRepo = licensedRepo ;
@@ -68,7 +118,7 @@ public class ArtifactsService implements ArtifactsApiDelegate {
 		try {
 			com.webforged.enforcer.management.data.Artifact dtoArtifact ;
 			Artifact apiArtifact = null ;
-			dtoArtifact = repository.findById(artifactId).orElse(null);
+			dtoArtifact = cache.findById(artifactId);
 			if( dtoArtifact == null ) {
 				com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
 				e.setStatus( HttpStatus.NOT_FOUND.value() );
@@ -108,6 +158,7 @@ public class ArtifactsService implements ArtifactsApiDelegate {
 			}
 			dtoArtifact = convertArtifactAPIToArtifactDTO(artifact);
 			dtoArtifact = repository.save(dtoArtifact);
+			cache.evict( dtoArtifact ) ;
 			apiArtifact = convertArtifactDTOToArtifactAPI(dtoArtifact);
 			return new ResponseEntity<Artifact>(apiArtifact, HttpStatus.CREATED);
 		} catch( Exception others ) {
@@ -132,6 +183,8 @@ public class ArtifactsService implements ArtifactsApiDelegate {
 	@PreAuthorize("hasRole('write_governance') and hasRole('SUPERUSER_architect')")
     public ResponseEntity<Void> deleteArtifact(Long artifactId) {
 		try {
+			// the row as it was, for the cache entries it is part of.
+			com.webforged.enforcer.management.data.Artifact dtoPreviousArtifact = repository.findById( artifactId ).orElse(null);
 			transactionTemplate.execute(new TransactionCallbackWithoutResult() {
 			    @Override
 			    public void doInTransactionWithoutResult(TransactionStatus transactionStatus) {
@@ -140,6 +193,8 @@ public class ArtifactsService implements ArtifactsApiDelegate {
 					repository.deleteById( artifactId );
 			    }
 			});
+			cache.evict( dtoPreviousArtifact ) ;
+			policy.evictGrants() ;
 			return new ResponseEntity<>(HttpStatus.OK);
 		} catch( Exception others ) {
 			logger.error( "deleteArtifact " + artifactId + " error: " + others.toString() );
@@ -161,7 +216,11 @@ public class ArtifactsService implements ArtifactsApiDelegate {
      */
 	@Override
 	@PreAuthorize("hasRole('read_governance')")
-    public ResponseEntity<List<Artifact>> findArtifactsByProjectId(Long projectId) {
+    public ResponseEntity<List<Artifact>> findArtifactsByProjectId(Long projectId, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( ArtifactsRepository.FIND_BY_PROJECT_ID, KeysetPager.params( "projectId", projectId ), ID_KEYSET,
+					new ArtifactRowMapper(), ArtifactsService::convertArtifactDTOToArtifactAPI, limit, after, stream ) ;
+		}
 		ArrayList<Artifact> apiArtifacts = new ArrayList<Artifact>() ;
 		try {
 			List<com.webforged.enforcer.management.data.Artifact> dtoArtifacts = repository.findByProjectId(projectId);
@@ -189,10 +248,14 @@ public class ArtifactsService implements ArtifactsApiDelegate {
      */
 	@Override
 	@PreAuthorize("hasRole('read_governance')")
-    public ResponseEntity<List<Artifact>> findArtifactsByStatus(String status) {
+    public ResponseEntity<List<Artifact>> findArtifactsByStatus(String status, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( ArtifactsRepository.FIND_BY_STATUS, KeysetPager.params( "status", status ), GAV_KEYSET,
+					new ArtifactRowMapper(), ArtifactsService::convertArtifactDTOToArtifactAPI, limit, after, stream ) ;
+		}
 		try {
 			ArrayList<Artifact> apiArtifacts = new ArrayList<Artifact>() ;
-			List<com.webforged.enforcer.management.data.Artifact> dtoArtifacts = repository.findByStatus(status);
+			List<com.webforged.enforcer.management.data.Artifact> dtoArtifacts = cache.findByStatus(status);
 			for( com.webforged.enforcer.management.data.Artifact dtoArtifact : dtoArtifacts ) {
 				apiArtifacts.add( ArtifactsService.convertArtifactDTOToArtifactAPI(dtoArtifact)) ;
 			}
@@ -217,7 +280,11 @@ public class ArtifactsService implements ArtifactsApiDelegate {
      */
 	@Override
 	@PreAuthorize("hasRole('read_governance')")
-    public ResponseEntity<List<Artifact>> findArtifactsByApprover(String approver) {
+    public ResponseEntity<List<Artifact>> findArtifactsByApprover(String approver, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( ArtifactsRepository.FIND_BY_APPROVER, KeysetPager.params( "name", approver ), ID_KEYSET,
+					new ArtifactRowMapper(), ArtifactsService::convertArtifactDTOToArtifactAPI, limit, after, stream ) ;
+		}
 		try {
 			ArrayList<Artifact> apiArtifacts = new ArrayList<Artifact>() ;
 			List<com.webforged.enforcer.management.data.Artifact> dtoArtifacts = repository.findByApprover(approver);
@@ -247,10 +314,14 @@ public class ArtifactsService implements ArtifactsApiDelegate {
 	@Override
 	@PreAuthorize("hasRole('read_governance')")
     public ResponseEntity<List<Artifact>> findArtifactsByGroupNameAndArtifactName(String groupName,
-        String artifactName) {
+        String artifactName, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( ArtifactsRepository.FIND_BY_GROUP_AND_ARTIFACT, KeysetPager.params( "groupName", groupName, "artifactName", artifactName ), AGV_KEYSET,
+					new ArtifactRowMapper(), ArtifactsService::convertArtifactDTOToArtifactAPI, limit, after, stream ) ;
+		}
 		try {
 			ArrayList<Artifact> apiArtifacts = new ArrayList<Artifact>() ;
-			List<com.webforged.enforcer.management.data.Artifact> dtoArtifacts = repository.findByGroupAndArtifact(groupName, artifactName);
+			List<com.webforged.enforcer.management.data.Artifact> dtoArtifacts = cache.findByGroupAndArtifact(groupName, artifactName);
 			for( com.webforged.enforcer.management.data.Artifact dtoArtifact : dtoArtifacts ) {
 				apiArtifacts.add( ArtifactsService.convertArtifactDTOToArtifactAPI(dtoArtifact)) ;
 			}
@@ -276,7 +347,11 @@ public class ArtifactsService implements ArtifactsApiDelegate {
      */
 	@Override
 	@PreAuthorize("hasRole('read_governance')")
-    public ResponseEntity<List<Artifact>> findArtifactsByDateRange(LocalDate fromDate, LocalDate toDate) {
+    public ResponseEntity<List<Artifact>> findArtifactsByDateRange(LocalDate fromDate, LocalDate toDate, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( ArtifactsRepository.FIND_APPROVED_BY_DATE_RANGE, KeysetPager.params( "d1", java.sql.Date.valueOf(fromDate), "d2", java.sql.Date.valueOf(toDate) ), ID_KEYSET,
+					new ArtifactRowMapper(), ArtifactsService::convertArtifactDTOToArtifactAPI, limit, after, stream ) ;
+		}
 		try {
 			ArrayList<Artifact> apiArtifacts = new ArrayList<Artifact>() ;
 			List<com.webforged.enforcer.management.data.Artifact> dtoArtifacts = repository.findApprovedByDateRange(fromDate, toDate);
@@ -324,106 +399,10 @@ public class ArtifactsService implements ArtifactsApiDelegate {
 			dtoPreviousArtifact = repository.findById( artifact.getArtifactId() ).orElse(null);
 			if( dtoPreviousArtifact != null ) {
 				if( dtoPreviousArtifact.getStatus().equals( dtoArtifact.getStatus()) != true ) {
-					//
-					// Is this a valid lifecycle change
-					//
-					if( Artifact.StatusEnum.LIMITED.getValue().equals(dtoPreviousArtifact.getStatus()) ) {
-						if( !( Artifact.StatusEnum.LIMITED_DEPRECATED.getValue().equals(dtoArtifact.getStatus()) ||
-								Artifact.StatusEnum.GA.getValue().equals(dtoArtifact.getStatus()) ||
-								Artifact.StatusEnum.RETIRED.getValue().equals(dtoArtifact.getStatus()) ) ) { // LIMITED => LIMITED_DEPRECATED | RETIRED | GA
-							throw new Exception( "LIMITED may progress to LIMITED_DEPRECATED or RETIRED." ) ;
-						}
-					} else if( Artifact.StatusEnum.LIMITED_DEPRECATED.getValue().equals(dtoPreviousArtifact.getStatus()) ) { // LIMITED_DEPRECATED => LIMITED | RETIRED
-						if( !( Artifact.StatusEnum.LIMITED.getValue().equals(dtoArtifact.getStatus()) ||
-								Artifact.StatusEnum.RETIRED.getValue().equals(dtoArtifact.getStatus()) ) ) {
-
-							throw new Exception( "LIMITED_DEPRECATED may progress to LIMITED or RETIRED." ) ;
-						}
-					} else if( Artifact.StatusEnum.CREATED.getValue().equals( dtoPreviousArtifact.getStatus()) ) {
-						if( !( Artifact.StatusEnum.LIMITED.getValue().equals(dtoArtifact.getStatus()) ||
-								Artifact.StatusEnum.GA.getValue().equals(dtoArtifact.getStatus()) ||
-								Artifact.StatusEnum.RETIRED.getValue().equals(dtoArtifact.getStatus()) ) ) { // CREATED => LIMITED | GA | RETIRED
-							throw new Exception( "CREATED may progress to LIMITED, GA or RETIRED." ) ;
-						}
-					} else if( Artifact.StatusEnum.GA.getValue().equals( dtoPreviousArtifact.getStatus()) ) {
-						if( !( Artifact.StatusEnum.DEPRECATED.getValue().equals(dtoArtifact.getStatus()) ||
-								Artifact.StatusEnum.RETIRED.getValue().equals(dtoArtifact.getStatus()) ) ) { // GA => DEPRECATED | RETIRED
-							throw new Exception( "GA may progress to DEPRECATED or RETIRED." ) ;
-						}
-					} else if( Artifact.StatusEnum.RETIRED.getValue().equals( dtoPreviousArtifact.getStatus()) ) {  // RETIRED => ***
-							throw new Exception( "RETIRED may not progress." ) ;
-					}
-					
-					//  Authorization documentation requirements here...
-					if( Artifact.StatusEnum.LIMITED_DEPRECATED.getValue().equals(dtoArtifact.getStatus()) ||
-							Artifact.StatusEnum.DEPRECATED.getValue().equals(dtoArtifact.getStatus()) ) { 
-						if( dtoArtifact.getDeprecation_authorization() == null || 
-								"".equals(dtoArtifact.getDeprecation_authorization()) ) {
-							throw new Exception( "Must provide Deprecation Authorization" ) ;
-						}
-						if( dtoArtifact.getDeprecation_date() == null ) {
-							dtoArtifact.setDeprecation_date( LocalDateTime.now().plusMonths(6) ); // TODO...externalize 6
-						}
-						dtoArtifact.setDeprecation_ts( Instant.now() );
-					} else if( Artifact.StatusEnum.GA.getValue().equals(dtoArtifact.getStatus()) ) {
-						if( dtoArtifact.getApproval_authorization() == null || 
-								"".equals(dtoArtifact.getApproval_authorization()) ) {
-							throw new Exception( "Must provide Approval Authorization" ) ;
-						}
-						if( dtoArtifact.getApproval_date() == null ) {
-							dtoArtifact.setApproval_date( LocalDateTime.now() );
-						}
-						dtoArtifact.setApproval_ts( Instant.now() );
-					} else if( Artifact.StatusEnum.LIMITED.getValue().equals(dtoArtifact.getStatus()) ) {
-						if( dtoArtifact.getApproval_authorization() == null || 
-								"".equals(dtoArtifact.getApproval_authorization()) ) {
-							throw new Exception( "Must provide Approval Authorization" ) ;
-						}
-						if( dtoArtifact.getApproval_date() == null ) {
-							dtoArtifact.setApproval_date( LocalDateTime.now() );
-						}
-						dtoArtifact.setApproval_ts( Instant.now() );
-					} else if( Artifact.StatusEnum.RETIRED.getValue().equals(dtoArtifact.getStatus()) ) {
-						if( dtoArtifact.getRetirement_authorization() == null || 
-								"".equals(dtoArtifact.getRetirement_authorization()) ) {
-							throw new Exception( "Must provide Retirement Authorization" ) ;
-						}
-						if( dtoArtifact.getRetirement_date() == null ) {
-							dtoArtifact.setRetirement_date( LocalDateTime.now() );
-						}
-						dtoArtifact.setRetirement_ts( Instant.now() );
-					}
-					//  END OF Authorization documentation requirements here...
-				}
-				//
-				// enrichment for changes to authorizers.  if name changed, then update the corresponding timestamp.
-				// Set the corresponding effective date to now if not provided too. Note that status change above may
-				// update various timestamps and datetimes, so may get updated again.  all good, just be aware of that.
-				//
-				if( dtoArtifact.getApproval_authorization() != null ) {
-					if( dtoArtifact.getApproval_authorization().equals(dtoPreviousArtifact.getApproval_authorization() ) != true ) {
-						dtoArtifact.setApproval_ts( Instant.now() );
-						if( dtoArtifact.getApproval_date() == null ) {
-							dtoArtifact.setApproval_date( LocalDateTime.now() );
-						}
-					}
-				}
-				if( dtoArtifact.getDeprecation_authorization() != null ) {
-					if( dtoArtifact.getDeprecation_authorization().equals(dtoPreviousArtifact.getDeprecation_authorization() ) != true ) {
-						dtoArtifact.setDeprecation_ts( Instant.now() );
-						if( dtoArtifact.getDeprecation_date() == null ) {
-							dtoArtifact.setDeprecation_date( LocalDateTime.now().plusMonths(6) ); // TODO...externalize 6
-						}
-					}
-				}
-				if( dtoArtifact.getRetirement_authorization() != null ) {
-					if( dtoArtifact.getRetirement_authorization().equals(dtoPreviousArtifact.getRetirement_authorization() ) != true ) {
-						dtoArtifact.setRetirement_ts( Instant.now() );
-						if( dtoArtifact.getRetirement_date() == null ) {
-							dtoArtifact.setRetirement_date( LocalDateTime.now() );
-						}
-					}
+					checkTransition( dtoPreviousArtifact.getStatus(), dtoArtifact.getStatus() ) ;
+					documentStatus( dtoArtifact ) ;
 				}
+				stampAuthorizers( dtoPreviousArtifact, dtoArtifact ) ;
 				
 				//
 				// be aware that this statement is going to do multiple things as a transaction. The else statement
@@ -462,6 +441,12 @@ public class ArtifactsService implements ArtifactsApiDelegate {
 			if( updatedArtifact == null ) {
 				updatedArtifact = repository.findById( artifact.getArtifactId() ).orElse(null);
 			}
+			cache.evict( dtoPreviousArtifact, updatedArtifact ) ;
+			if( dtoPreviousArtifact != null && updatedArtifact != null
+					&& !Objects.equals( dtoPreviousArtifact.getIs_vendor_licensed(), updatedArtifact.getIs_vendor_licensed() ) ) {
+				// its grants moved between AllowedArtifacts and LicensedArtifacts.
+				policy.evictGrants() ;
+			}
 			Artifact apiArtifact = convertArtifactDTOToArtifactAPI(updatedArtifact) ;
 			
 	        return new ResponseEntity<Artifact>(apiArtifact, HttpStatus.OK);
@@ -475,6 +460,315 @@ public class ArtifactsService implements ArtifactsApiDelegate {
 		}
     }
 	
+    /**
+     * POST /artifacts/import : Import artifacts in bulk
+     * Rows are matched to the store by group, artifact and version.  A new artifact gets the row's status, CREATED
+     * when it has none, along with the authorization that status requires.  An artifact already in the store, typically
+     * a CREATED placeholder, takes the values the row has and may only change status the way PUT /artifacts allows.
+     *
+     * @param body NDJSON or CSV of Artifact (required)
+     * @return successful operation (status code 200)
+     *         or unreadable input (status code 400)
+     *         or null (status code 500)
+     * @see ArtifactsApi#importArtifacts
+     */
+	@Override
+	@PreAuthorize("hasRole('write_governance') and hasRole('SUPERUSER_architect')")
+	public ResponseEntity<ImportReport> importArtifacts(String body) {
+		List<com.webforged.enforcer.management.data.Artifact> changed = new ArrayList<com.webforged.enforcer.management.data.Artifact>() ;
+		try {
+			ImportReport report = importer.run( "artifact", body, Artifact.class, chunk -> importChunk( chunk, changed ) ) ;
+			return new ResponseEntity<ImportReport>( report, HttpStatus.OK ) ;
+		} catch( WrappedErrorException wee ) {
+			throw wee ;
+		} catch( Exception others ) {
+			logger.error( "importArtifacts error: " + others.toString() );
+			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
+			e.setStatus( HttpStatus.INTERNAL_SERVER_ERROR.value() );
+			e.setType( "Problem importing artifacts: " + others.toString() );
+			throw new WrappedErrorException( e ) ;
+		} finally {
+			cache.evict( changed.toArray(new com.webforged.enforcer.management.data.Artifact[0]) ) ;
+		}
+	}
+
+	/**
+	 * One chunk of an import, within its transaction.  The artifacts of the chunk already in the store are read and
+	 * locked with one query, then the new ones are inserted and the others updated with one statement each.
+	 */
+	private void importChunk( List<BulkImporter.Row<Artifact>> chunk, List<com.webforged.enforcer.management.data.Artifact> changed ) {
+		Map<List<String>,Long> seen = new HashMap<List<String>,Long>() ;
+		List<BulkImporter.Row<Artifact>> rows = new ArrayList<BulkImporter.Row<Artifact>>( chunk.size() ) ;
+		for( BulkImporter.Row<Artifact> row : chunk ) {
+			Artifact a = row.value() ;
+			if( a.getArtifactId() != null ) {
+				row.fail( "artifact id should not be supplied, artifacts are matched by group, artifact and version." ) ;
+			} else if( isEmpty(a.getGroupName()) || isEmpty(a.getArtifactName()) || isEmpty(a.getVersionName()) ) {
+				row.fail( "group_name, artifact_name and version_name are required." ) ;
+			} else if( seen.containsKey( coordinates(a) ) ) {
+				row.fail( "same artifact as row " + seen.get( coordinates(a) ) ) ;
+			} else {
+				seen.put( coordinates(a), row.number() ) ;
+				rows.add( row ) ;
+			}
+		}
+		if( rows.isEmpty() ) {
+			return ;
+		}
+
+		Map<List<String>,com.webforged.enforcer.management.data.Artifact> existing = new HashMap<List<String>,com.webforged.enforcer.management.data.Artifact>() ;
+		ArtifactRowMapper mapper = new ArtifactRowMapper() ;
+		jdbcTemplate.query( con -> {
+			PreparedStatement ps = con.prepareStatement( LOCK_BY_COORDINATES ) ;
+			ps.setArray( 1, BulkImporter.array( con, "varchar", rows, r -> r.value().getGroupName() ) );
+			ps.setArray( 2, BulkImporter.array( con, "varchar", rows, r -> r.value().getArtifactName() ) );
+			ps.setArray( 3, BulkImporter.array( con, "varchar", rows, r -> r.value().getVersionName() ) );
+			return ps ;
+		}, (RowCallbackHandler) rs -> {
+			com.webforged.enforcer.management.data.Artifact previous = mapper.mapRow( rs, 0 ) ;
+			existing.put( Arrays.asList(previous.getGroup_name(), previous.getArtifact_name(), previous.getVersion_name()), previous ) ;
+		} ) ;
+
+		List<com.webforged.enforcer.management.data.Artifact> inserts = new ArrayList<com.webforged.enforcer.management.data.Artifact>() ;
+		List<BulkImporter.Row<Artifact>> insertRows = new ArrayList<BulkImporter.Row<Artifact>>() ;
+		List<com.webforged.enforcer.management.data.Artifact> updates = new ArrayList<com.webforged.enforcer.management.data.Artifact>() ;
+		List<BulkImporter.Row<Artifact>> updateRows = new ArrayList<BulkImporter.Row<Artifact>>() ;
+		for( BulkImporter.Row<Artifact> row : rows ) {
+			Artifact a = row.value() ;
+			com.webforged.enforcer.management.data.Artifact previous = existing.get( coordinates(a) ) ;
+			try {
+				if( a.getStatus() == null ) {
+					a.setStatus( previous == null || previous.getStatus() == null ? Artifact.StatusEnum.CREATED : Artifact.StatusEnum.fromValue(previous.getStatus()) );
+				}
+				com.webforged.enforcer.management.data.Artifact dtoArtifact = convertArtifactAPIToArtifactDTO( a ) ;
+				if( previous == null ) {
+					if( dtoArtifact.getIs_vendor_licensed() == null ) {
+						dtoArtifact.setIs_vendor_licensed( false );
+					}
+					if( dtoArtifact.getCreated_date() == null ) {
+						dtoArtifact.setCreated_date( LocalDateTime.now() );
+					}
+					documentStatus( dtoArtifact ) ;
+					inserts.add( dtoArtifact ) ;
+					insertRows.add( row ) ;
+				} else {
+					if( dtoArtifact.getIs_vendor_licensed() != null && !dtoArtifact.getIs_vendor_licensed().equals( previous.getIs_vendor_licensed() ) ) {
+						throw new Exception( "is_vendor_licensed of an existing artifact is changed with PUT /artifacts, which moves its grants." ) ;
+					}
+					keepPrevious( previous, dtoArtifact ) ;
+					if( !dtoArtifact.getStatus().equals( previous.getStatus() ) ) {
+						checkTransition( previous.getStatus(), dtoArtifact.getStatus() ) ;
+						documentStatus( dtoArtifact ) ;
+					}
+					stampAuthorizers( previous, dtoArtifact ) ;
+					updates.add( dtoArtifact ) ;
+					updateRows.add( row ) ;
+				}
+			} catch( Exception invalid ) {
+				row.fail( invalid.getMessage() ) ;
+			}
+		}
+
+		if( !inserts.isEmpty() ) {
+			List<List<String>> created = jdbcTemplate.query( con -> importStatement( con, IMPORT_INSERT, inserts ),
+					(rs, rowNum) -> Arrays.asList( rs.getString(1), rs.getString(2), rs.getString(3) ) ) ;
+			for( int i = 0; i < inserts.size(); i++ ) {
+				if( created.contains( coordinates(insertRows.get(i).value()) ) ) {
+					insertRows.get(i).created() ;
+					changed.add( inserts.get(i) ) ;
+				} else {
+					insertRows.get(i).fail( "created by someone else during the import, import the row again." ) ;
+				}
+			}
+		}
+		if( !updates.isEmpty() ) {
+			jdbcTemplate.update( con -> importStatement( con, IMPORT_UPDATE, updates ) ) ;
+			for( int i = 0; i < updates.size(); i++ ) {
+				updateRows.get(i).updated() ;
+				changed.add( existing.get( coordinates(updateRows.get(i).value()) ) ) ;
+				changed.add( updates.get(i) ) ;
+			}
+		}
+	}
+
+	private static PreparedStatement importStatement( java.sql.Connection con, String sql, List<com.webforged.enforcer.management.data.Artifact> artifacts ) throws java.sql.SQLException {
+		PreparedStatement ps = con.prepareStatement( sql ) ;
+		int i = 1 ;
+		ps.setArray( i++, BulkImporter.array( con, "varchar", artifacts, a -> a.getStatus() ) );
+		ps.setArray( i++, BulkImporter.array( con, "varchar", artifacts, a -> a.getGroup_name() ) );
+		ps.setArray( i++, BulkImporter.array( con, "varchar", artifacts, a -> a.getArtifact_name() ) );
+		ps.setArray( i++, BulkImporter.array( con, "varchar", artifacts, a -> a.getVersion_name() ) );
+		ps.setArray( i++, BulkImporter.array( con, "bool", artifacts, a -> a.getIs_vendor_licensed() ) );
+		ps.setArray( i++, BulkImporter.array( con, "timestamp", artifacts, a -> a.getCreated_date() ) );
+		ps.setArray( i++, BulkImporter.array( con, "timestamp", artifacts, a -> a.getApproval_date() ) );
+		ps.setArray( i++, BulkImporter.array( con, "varchar", artifacts, a -> a.getApproval_authorization() ) );
+		ps.setArray( i++, BulkImporter.array( con, "timestamp", artifacts, a -> a.getApproval_ts() ) );
+		ps.setArray( i++, BulkImporter.array( con, "timestamp", artifacts, a -> a.getDeprecation_date() ) );
+		ps.setArray( i++, BulkImporter.array( con, "varchar", artifacts, a -> a.getDeprecation_authorization() ) );
+		ps.setArray( i++, BulkImporter.array( con, "timestamp", artifacts, a -> a.getDeprecation_ts() ) );
+		ps.setArray( i++, BulkImporter.array( con, "timestamp", artifacts, a -> a.getRetirement_date() ) );
+		ps.setArray( i++, BulkImporter.array( con, "varchar", artifacts, a -> a.getRetirement_authorization() ) );
+		ps.setArray( i++, BulkImporter.array( con, "timestamp", artifacts, a -> a.getRetirement_ts() ) );
+		ps.setArray( i++, BulkImporter.array( con, "int8", artifacts, a -> a.getArtifact_id() ) );
+		return ps ;
+	}
+
+	/**
+	 * What an import row leaves out stays as it is in the store.
+	 */
+	private static void keepPrevious( com.webforged.enforcer.management.data.Artifact previous, com.webforged.enforcer.management.data.Artifact dtoArtifact ) {
+		dtoArtifact.setArtifact_id( previous.getArtifact_id() );
+		if( dtoArtifact.getIs_vendor_licensed() == null ) {
+			dtoArtifact.setIs_vendor_licensed( previous.getIs_vendor_licensed() );
+		}
+		if( dtoArtifact.getCreated_date() == null ) {
+			dtoArtifact.setCreated_date( previous.getCreated_date() );
+		}
+		if( dtoArtifact.getApproval_date() == null ) {
+			dtoArtifact.setApproval_date( previous.getApproval_date() );
+		}
+		if( dtoArtifact.getApproval_authorization() == null ) {
+			dtoArtifact.setApproval_authorization( previous.getApproval_authorization() );
+		}
+		if( dtoArtifact.getApproval_ts() == null ) {
+			dtoArtifact.setApproval_ts( previous.getApproval_ts() );
+		}
+		if( dtoArtifact.getDeprecation_date() == null ) {
+			dtoArtifact.setDeprecation_date( previous.getDeprecation_date() );
+		}
+		if( dtoArtifact.getDeprecation_authorization() == null ) {
+			dtoArtifact.setDeprecation_authorization( previous.getDeprecation_authorization() );
+		}
+		if( dtoArtifact.getDeprecation_ts() == null ) {
+			dtoArtifact.setDeprecation_ts( previous.getDeprecation_ts() );
+		}
+		if( dtoArtifact.getRetirement_date() == null ) {
+			dtoArtifact.setRetirement_date( previous.getRetirement_date() );
+		}
+		if( dtoArtifact.getRetirement_authorization() == null ) {
+			dtoArtifact.setRetirement_authorization( previous.getRetirement_authorization() );
+		}
+		if( dtoArtifact.getRetirement_ts() == null ) {
+			dtoArtifact.setRetirement_ts( previous.getRetirement_ts() );
+		}
+	}
+
+	private static List<String> coordinates( Artifact a ) {
+		return Arrays.asList( a.getGroupName(), a.getArtifactName(), a.getVersionName() ) ;
+	}
+
+	private static boolean isEmpty( String s ) {
+		return s == null || s.trim().isEmpty() ;
+	}
+
+	/**
+	 * Is this a valid lifecycle change
+	 */
+	private static void checkTransition( String from, String to ) throws Exception {
+		if( Artifact.StatusEnum.LIMITED.getValue().equals(from) ) {
+			if( !( Artifact.StatusEnum.LIMITED_DEPRECATED.getValue().equals(to) ||
+					Artifact.StatusEnum.GA.getValue().equals(to) ||
+					Artifact.StatusEnum.RETIRED.getValue().equals(to) ) ) { // LIMITED => LIMITED_DEPRECATED | RETIRED | GA
+				throw new Exception( "LIMITED may progress to LIMITED_DEPRECATED or RETIRED." ) ;
+			}
+		} else if( Artifact.StatusEnum.LIMITED_DEPRECATED.getValue().equals(from) ) { // LIMITED_DEPRECATED => LIMITED | RETIRED
+			if( !( Artifact.StatusEnum.LIMITED.getValue().equals(to) ||
+					Artifact.StatusEnum.RETIRED.getValue().equals(to) ) ) {
+
+				throw new Exception( "LIMITED_DEPRECATED may progress to LIMITED or RETIRED." ) ;
+			}
+		} else if( Artifact.StatusEnum.CREATED.getValue().equals( from) ) {
+			if( !( Artifact.StatusEnum.LIMITED.getValue().equals(to) ||
+					Artifact.StatusEnum.GA.getValue().equals(to) ||
+					Artifact.StatusEnum.RETIRED.getValue().equals(to) ) ) { // CREATED => LIMITED | GA | RETIRED
+				throw new Exception( "CREATED may progress to LIMITED, GA or RETIRED." ) ;
+			}
+		} else if( Artifact.StatusEnum.GA.getValue().equals( from) ) {
+			if( !( Artifact.StatusEnum.DEPRECATED.getValue().equals(to) ||
+					Artifact.StatusEnum.RETIRED.getValue().equals(to) ) ) { // GA => DEPRECATED | RETIRED
+				throw new Exception( "GA may progress to DEPRECATED or RETIRED." ) ;
+			}
+		} else if( Artifact.StatusEnum.RETIRED.getValue().equals( from) ) {  // RETIRED => ***
+				throw new Exception( "RETIRED may not progress." ) ;
+		}
+	}
+
+	/**
+	 * Authorization documentation requirements of the status an artifact moves to.
+	 */
+	private static void documentStatus( com.webforged.enforcer.management.data.Artifact dtoArtifact ) throws Exception {
+		if( Artifact.StatusEnum.LIMITED_DEPRECATED.getValue().equals(dtoArtifact.getStatus()) ||
+				Artifact.StatusEnum.DEPRECATED.getValue().equals(dtoArtifact.getStatus()) ) { 
+			if( dtoArtifact.getDeprecation_authorization() == null || 
+					"".equals(dtoArtifact.getDeprecation_authorization()) ) {
+				throw new Exception( "Must provide Deprecation Authorization" ) ;
+			}
+			if( dtoArtifact.getDeprecation_date() == null ) {
+				dtoArtifact.setDeprecation_date( LocalDateTime.now().plusMonths(6) ); // TODO...externalize 6
+			}
+			dtoArtifact.setDeprecation_ts( Instant.now() );
+		} else if( Artifact.StatusEnum.GA.getValue().equals(dtoArtifact.getStatus()) ) {
+			if( dtoArtifact.getApproval_authorization() == null || 
+					"".equals(dtoArtifact.getApproval_authorization()) ) {
+				throw new Exception( "Must provide Approval Authorization" ) ;
+			}
+			if( dtoArtifact.getApproval_date() == null ) {
+				dtoArtifact.setApproval_date( LocalDateTime.now() );
+			}
+			dtoArtifact.setApproval_ts( Instant.now() );
+		} else if( Artifact.StatusEnum.LIMITED.getValue().equals(dtoArtifact.getStatus()) ) {
+			if( dtoArtifact.getApproval_authorization() == null || 
+					"".equals(dtoArtifact.getApproval_authorization()) ) {
+				throw new Exception( "Must provide Approval Authorization" ) ;
+			}
+			if( dtoArtifact.getApproval_date() == null ) {
+				dtoArtifact.setApproval_date( LocalDateTime.now() );
+			}
+			dtoArtifact.setApproval_ts( Instant.now() );
+		} else if( Artifact.StatusEnum.RETIRED.getValue().equals(dtoArtifact.getStatus()) ) {
+			if( dtoArtifact.getRetirement_authorization() == null || 
+					"".equals(dtoArtifact.getRetirement_authorization()) ) {
+				throw new Exception( "Must provide Retirement Authorization" ) ;
+			}
+			if( dtoArtifact.getRetirement_date() == null ) {
+				dtoArtifact.setRetirement_date( LocalDateTime.now() );
+			}
+			dtoArtifact.setRetirement_ts( Instant.now() );
+		}
+	}
+
+	private static void stampAuthorizers( com.webforged.enforcer.management.data.Artifact dtoPreviousArtifact, com.webforged.enforcer.management.data.Artifact dtoArtifact ) {
+		//
+		// enrichment for changes to authorizers.  if name changed, then update the corresponding timestamp.
+		// Set the corresponding effective date to now if not provided too. Note that status change above may
+		// update various timestamps and datetimes, so may get updated again.  all good, just be aware of that.
+		//
+		if( dtoArtifact.getApproval_authorization() != null ) {
+			if( dtoArtifact.getApproval_authorization().equals(dtoPreviousArtifact.getApproval_authorization() ) != true ) {
+				dtoArtifact.setApproval_ts( Instant.now() );
+				if( dtoArtifact.getApproval_date() == null ) {
+					dtoArtifact.setApproval_date( LocalDateTime.now() );
+				}
+			}
+		}
+		if( dtoArtifact.getDeprecation_authorization() != null ) {
+			if( dtoArtifact.getDeprecation_authorization().equals(dtoPreviousArtifact.getDeprecation_authorization() ) != true ) {
+				dtoArtifact.setDeprecation_ts( Instant.now() );
+				if( dtoArtifact.getDeprecation_date() == null ) {
+					dtoArtifact.setDeprecation_date( LocalDateTime.now().plusMonths(6) ); // TODO...externalize 6
+				}
+			}
+		}
+		if( dtoArtifact.getRetirement_authorization() != null ) {
+			if( dtoArtifact.getRetirement_authorization().equals(dtoPreviousArtifact.getRetirement_authorization() ) != true ) {
+				dtoArtifact.setRetirement_ts( Instant.now() );
+				if( dtoArtifact.getRetirement_date() == null ) {
+					dtoArtifact.setRetirement_date( LocalDateTime.now() );
+				}
+			}
+		}
+	}
+
 	private static Artifact convertArtifactDTOToArtifactAPI(com.webforged.enforcer.management.data.Artifact dtoArtifact) {
 		Artifact apiArtifact;
 		
@@ -11,7 +11,11 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
+import com.webforged.enforcer.management.dao.KeysetPager;
+import com.webforged.enforcer.management.dao.KeysetPager.Keyset;
+import com.webforged.enforcer.management.data.BuildItemRowMapper;
 import com.webforged.enforcer.management.data.BuildItemsRepository;
+import com.webforged.enforcer.management.data.BuildsRepository;
 import com.webforged.enforcer.management.util.WrappedErrorException;
 
 import com.webforged.enforcer.openapi.api.BuilditemsApi;
@@ -24,9 +28,15 @@ public class BuildItemsService implements BuilditemsApiDelegate {
 	Logger logger = LoggerFactory.getLogger( BuildItemsService.class ) ;
 	
 	private final BuildItemsRepository repository;
+	private final BuildsRepository buildsRepository;
+	private final KeysetPager pager ;
 
-	public BuildItemsService( BuildItemsRepository repository ) {
+	private static final Keyset BUILDITEMS_KEYSET = Keyset.ascending( "group_name", "artifact_name", "builditem_id" ) ;
+
+	public BuildItemsService( BuildItemsRepository repository, BuildsRepository buildsRepository, KeysetPager pager ) {
+		this.pager = pager ;
 		this.repository = repository;
+		this.buildsRepository = buildsRepository;
 	}
 
     /**
@@ -49,10 +59,12 @@ public class BuildItemsService implements BuilditemsApiDelegate {
 				e.setType( "Cannot supply an id to a new BuildItem" );
 				throw new WrappedErrorException( e ) ;
 			}
-	    	dtoBuildItem = convertBuildItemAPIToBuildItemDTO(buildItem);
+	    	dtoBuildItem = withBuildTs( convertBuildItemAPIToBuildItemDTO(buildItem) );
 			dtoBuildItem = repository.save(dtoBuildItem);
 			apiBuildItem = convertBuildItemDTOToBuildItemAPI(dtoBuildItem);
 	        return new ResponseEntity<BuildItem>(apiBuildItem, HttpStatus.CREATED);
+		} catch( WrappedErrorException wee ) {
+			throw wee ;
 		} catch( Exception others ) {
 			logger.error( "addBuildItem " + buildItem + " error: " + others.toString() );
 			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
@@ -126,7 +138,11 @@ public class BuildItemsService implements BuilditemsApiDelegate {
      */
 	@Override
 	@PreAuthorize("hasRole('read_governance')")
-    public ResponseEntity<List<BuildItem>> findBuildItemsByBuildId(Long buildId) {
+    public ResponseEntity<List<BuildItem>> findBuildItemsByBuildId(Long buildId, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( BuildItemsRepository.FIND_BY_BUILD_ID, KeysetPager.params( "build_id", buildId ), BUILDITEMS_KEYSET,
+					new BuildItemRowMapper(), BuildItemsService::convertBuildItemDTOToBuildItemAPI, limit, after, stream ) ;
+		}
 		try {
 			List<com.webforged.enforcer.management.data.BuildItem> dtoBuildItem ;
 			List<BuildItem> apiBuildItem = null ;
@@ -162,10 +178,12 @@ public class BuildItemsService implements BuilditemsApiDelegate {
 		BuildItem apiBuildItem ;
 		try {
 			com.webforged.enforcer.management.data.BuildItem dtoBuildItem ;
-			dtoBuildItem = convertBuildItemAPIToBuildItemDTO(buildItem);
+			dtoBuildItem = withBuildTs( convertBuildItemAPIToBuildItemDTO(buildItem) );
 			dtoBuildItem = repository.save(dtoBuildItem) ;
 			apiBuildItem = convertBuildItemDTOToBuildItemAPI(dtoBuildItem);
 			return new ResponseEntity<BuildItem>(apiBuildItem, HttpStatus.OK);
+		} catch( WrappedErrorException wee ) {
+			throw wee ;
 		} catch( Exception others ) {
 			logger.error( "updateBuildItem " + buildItem + " error: " + others.toString() );
 			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
@@ -175,6 +193,22 @@ public class BuildItemsService implements BuilditemsApiDelegate {
 		}
     }
 
+	/**
+	 * An item is stored in its build's partition, the build_ts is always the build's.
+	 */
+	private com.webforged.enforcer.management.data.BuildItem withBuildTs( com.webforged.enforcer.management.data.BuildItem dtoBuildItem ) {
+		com.webforged.enforcer.management.data.Build build = dtoBuildItem.getBuild_id() == null ? null :
+			buildsRepository.findById( dtoBuildItem.getBuild_id() ).orElse(null) ;
+		if( build == null ) {
+			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
+			e.setStatus( HttpStatus.BAD_REQUEST.value() );
+			e.setType( "No Build " + dtoBuildItem.getBuild_id() + " for the BuildItem" );
+			throw new WrappedErrorException( e ) ;
+		}
+		dtoBuildItem.setBuild_ts( build.getBuild_ts() );
+		return dtoBuildItem ;
+	}
+
 	private static BuildItem convertBuildItemDTOToBuildItemAPI(com.webforged.enforcer.management.data.BuildItem dtoBuildItem) {
 		BuildItem apiBuildItem;
 
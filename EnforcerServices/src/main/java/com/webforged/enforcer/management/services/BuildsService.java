@@ -1,6 +1,7 @@
 package com.webforged.enforcer.management.services;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -9,8 +10,15 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
+import com.webforged.enforcer.management.dao.KeysetPager;
+import com.webforged.enforcer.management.dao.KeysetPager.Keyset;
+import com.webforged.enforcer.management.data.BuildItemsRepository;
+import com.webforged.enforcer.management.data.BuildRowMapper;
 import com.webforged.enforcer.management.data.BuildsRepository;
 import com.webforged.enforcer.management.util.Jsr310NullConverters;
 import com.webforged.enforcer.management.util.WrappedErrorException;
@@ -23,10 +31,21 @@ import com.webforged.enforcer.openapi.model.Build;
 @CrossOrigin
 public class BuildsService implements BuildsApiDelegate {
 	Logger logger = LoggerFactory.getLogger( BuildsService.class ) ;
+	private TransactionTemplate transactionTemplate;
 	private final BuildsRepository repository;
+	private final BuildItemsRepository itemsRepository;
+	private final KeysetPager pager ;
 	
-	public BuildsService( BuildsRepository repository ) {
+	private static final Keyset BUILDS_KEYSET = Keyset.descending( "build_ts", "build_id" ) ;
+
+	public BuildsService( BuildsRepository repository, BuildItemsRepository itemsRepository, KeysetPager pager,
+			PlatformTransactionManager transactionManager ) {
+		this.pager = pager ;
 		this.repository = repository;
+		this.itemsRepository = itemsRepository;
+
+	    Assert.notNull(transactionManager, "The 'transactionManager' argument must not be null.");
+	    this.transactionTemplate = new TransactionTemplate(transactionManager);
 	}
 	
     /**
@@ -49,8 +68,12 @@ public class BuildsService implements BuildsApiDelegate {
 				e.setType( "Cannot supply an id to a new Build" );
 				throw new WrappedErrorException( e ) ;
 			}
-	    	dtoBuild = convertBuildAPIToBuildDTO(build);
-			dtoBuild = repository.save(dtoBuild);
+	    	com.webforged.enforcer.management.data.Build toSave = convertBuildAPIToBuildDTO(build);
+			dtoBuild = transactionTemplate.execute( status -> {
+				com.webforged.enforcer.management.data.Build saved = repository.save(toSave);
+				refreshLatest( saved.getComponent_id() ) ;
+				return saved ;
+			} ) ;
 			apiBuild = convertBuildDTOToBuildAPI(dtoBuild);
 	        return new ResponseEntity<Build>(apiBuild, HttpStatus.CREATED);
 		} catch( Exception others ) {
@@ -77,8 +100,20 @@ public class BuildsService implements BuildsApiDelegate {
     	Build apiBuild;
     	try {
     		com.webforged.enforcer.management.data.Build dtoBuild ;
-    		dtoBuild = convertBuildAPIToBuildDTO(build);
-    		dtoBuild = repository.save(dtoBuild) ;
+    		com.webforged.enforcer.management.data.Build toSave = convertBuildAPIToBuildDTO(build);
+    		dtoBuild = transactionTemplate.execute( status -> {
+    			// the build may have moved to another component or in time.
+    			com.webforged.enforcer.management.data.Build previous = repository.findById(toSave.getBuild_id()).orElse(null);
+    			com.webforged.enforcer.management.data.Build saved = repository.save(toSave);
+    			if( previous != null ) {
+    				if( !Objects.equals( previous.getBuild_ts(), saved.getBuild_ts() ) ) {
+    					itemsRepository.followBuild( saved.getBuild_id() ) ;
+    				}
+    				refreshLatest( previous.getComponent_id() ) ;
+    			}
+    			refreshLatest( saved.getComponent_id() ) ;
+    			return saved ;
+    		} ) ;
     		apiBuild = convertBuildDTOToBuildAPI(dtoBuild) ;
     		return new ResponseEntity<Build>(apiBuild, HttpStatus.OK);
     	} catch( Exception others ) {
@@ -102,7 +137,16 @@ public class BuildsService implements BuildsApiDelegate {
 	@PreAuthorize("hasRole('write_governance')")
     public ResponseEntity<Void> deleteBuild( Long buildId ) {
 		try {
-			repository.deleteById(buildId) ;
+			transactionTemplate.execute( status -> {
+				com.webforged.enforcer.management.data.Build previous = repository.findById(buildId).orElse(null);
+				// no foreign key holds the items to their build any more, they go with it.
+				itemsRepository.deleteByBuildId( buildId ) ;
+				repository.deleteById(buildId) ;
+				if( previous != null ) {
+					refreshLatest( previous.getComponent_id() ) ;
+				}
+				return null ;
+			} ) ;
 			return new ResponseEntity<>(HttpStatus.OK);
 		} catch( Exception others ) {
 			logger.error( "deleteBuild " + buildId + " error: " + others.toString() );
@@ -124,8 +168,12 @@ public class BuildsService implements BuildsApiDelegate {
      */
     @Override
 	@PreAuthorize("hasRole('read_governance')")
-    public ResponseEntity<List<Build>> findBuildsByComponentId(Long componentId) {
+    public ResponseEntity<List<Build>> findBuildsByComponentId(Long componentId, Integer limit, String after, Boolean stream) {
     	try {
+			if( KeysetPager.isPaged( limit, after, stream ) ) {
+				return pager.find( BuildsRepository.FIND_BY_COMPONENT_ID, KeysetPager.params( "component_id", componentId ), BUILDS_KEYSET,
+						new BuildRowMapper(), BuildsService::convertBuildDTOToBuildAPI, limit, after, stream ) ;
+			}
     		List<com.webforged.enforcer.management.data.Build> dtoBuild ;
     		List<Build> apiBuild = null ;
     		dtoBuild = repository.findByComponentId(componentId) ;
@@ -133,6 +181,8 @@ public class BuildsService implements BuildsApiDelegate {
 				.map( BuildsService::convertBuildDTOToBuildAPI )
 				.collect( Collectors.toList() );
     		return new ResponseEntity<List<Build>>(apiBuild, HttpStatus.OK);
+    	} catch( WrappedErrorException wee ) {
+    		throw wee ;
     	} catch( Exception others ) {
 			logger.error( "findBuildsByComponentId " + componentId + " error: " + others.toString() );
 			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
@@ -154,8 +204,12 @@ public class BuildsService implements BuildsApiDelegate {
      */
     @Override
 	@PreAuthorize("hasRole('read_governance')")
-    public ResponseEntity<List<Build>> findBuildsByProjectAcronym(String acronym) {
+    public ResponseEntity<List<Build>> findBuildsByProjectAcronym(String acronym, Integer limit, String after, Boolean stream) {
     	try {
+			if( KeysetPager.isPaged( limit, after, stream ) ) {
+				return pager.find( BuildsRepository.FIND_BY_ACRONYM, KeysetPager.params( "acronym", acronym ), BUILDS_KEYSET,
+						new BuildRowMapper(), BuildsService::convertBuildDTOToBuildAPI, limit, after, stream ) ;
+			}
     		List<com.webforged.enforcer.management.data.Build> dtoBuild ;
     		List<Build> apiBuild = null ;
     		dtoBuild = repository.findByProjectAcronym(acronym) ;
@@ -166,6 +220,8 @@ public class BuildsService implements BuildsApiDelegate {
 				.map( BuildsService::convertBuildDTOToBuildAPI )
 				.collect( Collectors.toList() );
     		return new ResponseEntity<List<Build>>(apiBuild, HttpStatus.OK);
+    	} catch( WrappedErrorException wee ) {
+    		throw wee ;
     	} catch( Exception others ) {
 			logger.error( "findBuildsByProjectAcronym " + acronym + " error: " + others.toString() );
 			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
@@ -186,8 +242,12 @@ public class BuildsService implements BuildsApiDelegate {
      */
     @Override
 	@PreAuthorize("hasRole('read_governance')")
-    public ResponseEntity<List<Build>> findBuildsByProjectId(Long projectId) {
+    public ResponseEntity<List<Build>> findBuildsByProjectId(Long projectId, Integer limit, String after, Boolean stream) {
     	try {
+			if( KeysetPager.isPaged( limit, after, stream ) ) {
+				return pager.find( BuildsRepository.FIND_BY_PROJECT_ID, KeysetPager.params( "project_id", projectId ), BUILDS_KEYSET,
+						new BuildRowMapper(), BuildsService::convertBuildDTOToBuildAPI, limit, after, stream ) ;
+			}
     		List<com.webforged.enforcer.management.data.Build> dtoBuild ;
     		List<Build> apiBuild = null ;
     		dtoBuild = repository.findByProjectId(projectId) ;
@@ -198,6 +258,8 @@ public class BuildsService implements BuildsApiDelegate {
 				.map( BuildsService::convertBuildDTOToBuildAPI )
 				.collect( Collectors.toList() );
     		return new ResponseEntity<List<Build>>(apiBuild, HttpStatus.OK);
+    	} catch( WrappedErrorException wee ) {
+    		throw wee ;
     	} catch( Exception others ) {
 			logger.error( "findBuildsByProjectId " + projectId + " error: " + others.toString() );
 			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
@@ -238,6 +300,16 @@ public class BuildsService implements BuildsApiDelegate {
     	}
     }
 
+	/**
+	 * Point the component's LatestBuilds row at its newest remaining build, or drop it when there is none.
+	 */
+	private void refreshLatest( Long componentId ) {
+		if( componentId != null ) {
+			repository.forgetLatest( componentId ) ;
+			repository.refreshLatest( componentId ) ;
+		}
+	}
+
 	private static Build convertBuildDTOToBuildAPI(com.webforged.enforcer.management.data.Build dtoBuild) {
 		Build apiBuild;
 
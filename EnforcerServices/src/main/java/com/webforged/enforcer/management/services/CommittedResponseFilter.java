@@ -0,0 +1,35 @@
+package com.webforged.enforcer.management.services;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.catalina.connector.ClientAbortException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * A request that fails after its response was committed, a stream cut short part way, must not look complete to
+ * the client.  Tomcat would include the error page after what was already written and end the chunked body
+ * cleanly.  It only skips the error page, and closes the connection without the last chunk, for a
+ * ClientAbortException, so the failure is passed on as one.
+ */
+@Component
+public class CommittedResponseFilter extends OncePerRequestFilter {
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		try {
+			chain.doFilter( request, response );
+		} catch( ServletException | IOException | RuntimeException e ) {
+			if( !response.isCommitted() || e instanceof ClientAbortException ) {
+				throw e ;
+			}
+			throw new ClientAbortException( e ) ;
+		}
+	}
+}
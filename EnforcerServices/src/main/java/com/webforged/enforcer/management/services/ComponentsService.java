@@ -11,6 +11,9 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
+import com.webforged.enforcer.management.dao.KeysetPager;
+import com.webforged.enforcer.management.dao.KeysetPager.Keyset;
+import com.webforged.enforcer.management.data.ComponentRowMapper;
 import com.webforged.enforcer.management.data.ComponentsRepository;
 import com.webforged.enforcer.management.util.WrappedErrorException;
 
@@ -24,8 +27,13 @@ public class ComponentsService implements ComponentsApiDelegate {
 	Logger logger = LoggerFactory.getLogger( ComponentsService.class ) ;
 	
 	private final ComponentsRepository repository;
+	private final KeysetPager pager ;
 
-	public ComponentsService( ComponentsRepository repository ) {
+	private static final Keyset COMPONENTS_KEYSET = Keyset.ascending( "component_id" ) ;
+	private static final Keyset USAGE_KEYSET = Keyset.ascending( "acronym", "name", "component_id" ) ;
+
+	public ComponentsService( ComponentsRepository repository, KeysetPager pager ) {
+		this.pager = pager ;
 		this.repository = repository;
 	}
 	
@@ -90,7 +98,11 @@ public class ComponentsService implements ComponentsApiDelegate {
      */
 	@Override
 	@PreAuthorize("hasRole('read_governance')")
-	public ResponseEntity<List<Component>> findComponentsByArtifactId(Long artifactId) {
+	public ResponseEntity<List<Component>> findComponentsByArtifactId(Long artifactId, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( ComponentsRepository.FIND_BY_ARTIFACT_ID, KeysetPager.params( "artifactId", artifactId ), USAGE_KEYSET,
+					new ComponentRowMapper(), ComponentsService::convertComponentDTOToComponentAPI, limit, after, stream ) ;
+		}
 		try {
 			List<com.webforged.enforcer.management.data.Component> dtoComponent ;
 			List<Component> apiComponent = null ;
@@ -124,7 +136,11 @@ public class ComponentsService implements ComponentsApiDelegate {
      */
 	@Override
 	@PreAuthorize("hasRole('read_governance')")
-    public ResponseEntity<List<Component>> findComponentsByProjectAcronym(String acronym) {
+    public ResponseEntity<List<Component>> findComponentsByProjectAcronym(String acronym, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( ComponentsRepository.FIND_BY_ACRONYM, KeysetPager.params( "acronym", acronym ), COMPONENTS_KEYSET,
+					new ComponentRowMapper(), ComponentsService::convertComponentDTOToComponentAPI, limit, after, stream ) ;
+		}
 		try {
 			List<com.webforged.enforcer.management.data.Component> dtoComponent ;
 			List<Component> apiComponent = null ;
@@ -156,7 +172,11 @@ public class ComponentsService implements ComponentsApiDelegate {
      */
 	@Override
 	@PreAuthorize("hasRole('read_governance')")
-    public ResponseEntity<List<Component>> findComponentsByProjectId(Long projectId) {
+    public ResponseEntity<List<Component>> findComponentsByProjectId(Long projectId, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( ComponentsRepository.FIND_BY_PROJECT_ID, KeysetPager.params( "projectId", projectId ), COMPONENTS_KEYSET,
+					new ComponentRowMapper(), ComponentsService::convertComponentDTOToComponentAPI, limit, after, stream ) ;
+		}
 		try {
 			List<com.webforged.enforcer.management.data.Component> dtoComponent ;
 			List<Component> apiComponent = null ;
@@ -0,0 +1,88 @@
+package com.webforged.enforcer.management.services;
+
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.webforged.enforcer.management.dao.BulkImporter;
+import com.webforged.enforcer.openapi.model.ArtifactGrant;
+
+/**
+ * The projects and artifacts a chunk of grant imports names, looked up with a query each.  The allowed and licensed
+ * imports name them the same way, a project by id or acronym and an artifact by id or coordinates.
+ */
+class GrantKeys {
+	// the projects and artifacts an import chunk names.
+	static final String FIND_PROJECTS = "SELECT project_id, acronym FROM Projects WHERE project_id = ANY(?) OR acronym = ANY(?)" ;
+	static final String FIND_ARTIFACTS = "SELECT artifact_id, group_name, artifact_name, version_name, is_vendor_licensed FROM Artifacts WHERE artifact_id = ANY(?) "
+			+ "UNION SELECT a.artifact_id, a.group_name, a.artifact_name, a.version_name, a.is_vendor_licensed FROM Artifacts a "
+			+ "JOIN unnest(?::varchar[], ?::varchar[], ?::varchar[]) AS k(group_name, artifact_name, version_name) "
+			+ "USING (group_name, artifact_name, version_name)" ;
+
+	private final Map<Long,String> acronyms = new HashMap<Long,String>() ;
+	private final Map<String,Long> projects = new HashMap<String,Long>() ;
+	private final Map<Long,Boolean> vendorLicensed = new HashMap<Long,Boolean>() ;
+	private final Map<List<String>,Long> artifacts = new HashMap<List<String>,Long>() ;
+
+	GrantKeys( JdbcTemplate jdbcTemplate, List<ArtifactGrant> grants ) {
+		jdbcTemplate.query( con -> {
+			PreparedStatement ps = con.prepareStatement( FIND_PROJECTS ) ;
+			ps.setArray( 1, BulkImporter.array( con, "int8", grants, ArtifactGrant::getProjectId ) );
+			ps.setArray( 2, BulkImporter.array( con, "varchar", grants, ArtifactGrant::getAcronym ) );
+			return ps ;
+		}, (RowCallbackHandler) rs -> {
+			acronyms.put( rs.getLong("project_id"), rs.getString("acronym") ) ;
+			projects.put( rs.getString("acronym"), rs.getLong("project_id") ) ;
+		} ) ;
+		jdbcTemplate.query( con -> {
+			PreparedStatement ps = con.prepareStatement( FIND_ARTIFACTS ) ;
+			ps.setArray( 1, BulkImporter.array( con, "int8", grants, ArtifactGrant::getArtifactId ) );
+			ps.setArray( 2, BulkImporter.array( con, "varchar", grants, ArtifactGrant::getGroupName ) );
+			ps.setArray( 3, BulkImporter.array( con, "varchar", grants, ArtifactGrant::getArtifactName ) );
+			ps.setArray( 4, BulkImporter.array( con, "varchar", grants, ArtifactGrant::getVersionName ) );
+			return ps ;
+		}, (RowCallbackHandler) rs -> {
+			vendorLicensed.put( rs.getLong("artifact_id"), rs.getBoolean("is_vendor_licensed") ) ;
+			artifacts.put( Arrays.asList(rs.getString("group_name"), rs.getString("artifact_name"), rs.getString("version_name")), rs.getLong("artifact_id") ) ;
+		} ) ;
+	}
+
+	Long projectId( ArtifactGrant grant ) {
+		return grant.getProjectId() != null ? grant.getProjectId() : projects.get( grant.getAcronym() ) ;
+	}
+
+	Long artifactId( ArtifactGrant grant ) {
+		return grant.getArtifactId() != null ? grant.getArtifactId()
+				: artifacts.get( Arrays.asList(grant.getGroupName(), grant.getArtifactName(), grant.getVersionName()) ) ;
+	}
+
+	boolean isVendorLicensed( Long artifactId ) {
+		return vendorLicensed.get( artifactId ) ;
+	}
+
+	/**
+	 * @return why the grant's project or artifact cannot be had, or null when both are found
+	 */
+	String missing( ArtifactGrant grant ) {
+		Long projectId = projectId( grant ) ;
+		Long artifactId = artifactId( grant ) ;
+		if( grant.getProjectId() == null && grant.getAcronym() == null ) {
+			return "project_id or acronym is required." ;
+		} else if( projectId == null || !acronyms.containsKey( projectId ) ) {
+			return "no project " + (grant.getProjectId() != null ? grant.getProjectId() : grant.getAcronym()) ;
+		} else if( grant.getAcronym() != null && !grant.getAcronym().equals( acronyms.get(projectId) ) ) {
+			return "project " + projectId + " is " + acronyms.get(projectId) + ", not " + grant.getAcronym() ;
+		} else if( grant.getArtifactId() == null && (grant.getGroupName() == null || grant.getArtifactName() == null || grant.getVersionName() == null) ) {
+			return "artifact_id or group_name, artifact_name and version_name are required." ;
+		} else if( artifactId == null || !vendorLicensed.containsKey( artifactId ) ) {
+			return "no artifact " + (grant.getArtifactId() != null ? grant.getArtifactId()
+					: grant.getGroupName() + ":" + grant.getArtifactName() + ":" + grant.getVersionName()) ;
+		}
+		return null ;
+	}
+}
@@ -1,24 +1,40 @@
 package com.webforged.enforcer.management.services;
 
+import java.sql.PreparedStatement;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
+import com.webforged.enforcer.management.dao.BulkImporter;
+import com.webforged.enforcer.management.dao.KeysetPager;
+import com.webforged.enforcer.management.dao.KeysetPager.Keyset;
+import com.webforged.enforcer.management.data.LicensedArtifactRowMapper;
 import com.webforged.enforcer.management.data.LicensedArtifactsRepository;
 import com.webforged.enforcer.management.util.Jsr310NullConverters;
 import com.webforged.enforcer.management.util.WrappedErrorException;
 
 import com.webforged.enforcer.openapi.api.LicensedartifactsApiDelegate;
+import com.webforged.enforcer.openapi.model.ArtifactGrant;
+import com.webforged.enforcer.openapi.model.ImportReport;
 import com.webforged.enforcer.openapi.model.LicensedArtifact;
+import com.webforged.enforcer.openapi.model.LicensedArtifactGrant;
 import com.webforged.enforcer.openapi.model.ProjectArtifactKeys;
 import com.webforged.enforcer.openapi.api.LicensedartifactsApi;
 
@@ -28,9 +44,37 @@ public class LicensedArtifactsService implements LicensedartifactsApiDelegate {
 	Logger logger = LoggerFactory.getLogger( LicensedArtifactsService.class ) ;
 	
 	private final LicensedArtifactsRepository repository;
+	private final KeysetPager pager ;
+	private final BulkImporter importer ;
+	private final JdbcTemplate jdbcTemplate ;
+	private final PolicyService policy ;
 	
-	public LicensedArtifactsService( LicensedArtifactsRepository repository ) {
+	private static final Keyset LICENSED_KEYSET = Keyset.ascending( "lic_artifact_id" ) ;
+
+	// the grants it returns are the ones created.
+	static final String IMPORT_GRANTS = "INSERT INTO LicensedArtifacts(artifact_id, project_id, contract, vendor, approval_architect, approval_ts) "
+			+ "SELECT * FROM unnest(?::int[], ?::int[], ?::varchar[], ?::varchar[], ?::varchar[], ?::timestamp[]) "
+			+ "ON CONFLICT (artifact_id,project_id) DO NOTHING "
+			+ "RETURNING artifact_id, project_id" ;
+
+	// a grant already held keeps its contract, vendor and approval unless the row has them.
+	static final String UPDATE_GRANTS = "UPDATE LicensedArtifacts l SET "
+			+ "contract = coalesce(g.contract, l.contract), "
+			+ "vendor = coalesce(g.vendor, l.vendor), "
+			+ "approval_architect = coalesce(g.approval_architect, l.approval_architect), "
+			+ "approval_ts = coalesce(g.approval_ts, l.approval_ts) "
+			+ "FROM unnest(?::int[], ?::int[], ?::varchar[], ?::varchar[], ?::varchar[], ?::timestamp[]) "
+			+ "AS g(artifact_id, project_id, contract, vendor, approval_architect, approval_ts) "
+			+ "WHERE l.artifact_id = g.artifact_id AND l.project_id = g.project_id "
+			+ "RETURNING l.artifact_id, l.project_id" ;
+
+	public LicensedArtifactsService( LicensedArtifactsRepository repository, KeysetPager pager, BulkImporter importer, JdbcTemplate jdbcTemplate,
+			PolicyService policy ) {
+		this.pager = pager ;
 		this.repository = repository;
+		this.importer = importer ;
+		this.jdbcTemplate = jdbcTemplate ;
+		this.policy = policy ;
 	}
 
     /**
@@ -55,6 +99,7 @@ public class LicensedArtifactsService implements LicensedartifactsApiDelegate {
 			}
 			dtoLicensedArtifact = convertLicensedArtifactAPIToLicensedArtifactDTO(artifact);
 			dtoLicensedArtifact = repository.save(dtoLicensedArtifact);
+			policy.evictGrants( dtoLicensedArtifact.getProject_id() ) ;
 			apiLicensedArtifact = convertLicensedArtifactDTOToLicensedArtifactAPI(dtoLicensedArtifact);
 	        return new ResponseEntity<LicensedArtifact>(apiLicensedArtifact, HttpStatus.CREATED);
 		} catch( Exception others ) { // 
@@ -80,6 +125,7 @@ public class LicensedArtifactsService implements LicensedartifactsApiDelegate {
     public ResponseEntity<Void> deleteLicensedArtifactsByArtifactId(Long artifactId) {
     	try {
     		repository.deleteByArtifactId( artifactId );
+    		policy.evictGrants() ;
     		return new ResponseEntity<>(HttpStatus.OK);
     	} catch( Exception others ) {
 			logger.error( "deleteLicensedArtifactsByArtifactId " + artifactId + " error: " + others.toString() );
@@ -107,6 +153,7 @@ public class LicensedArtifactsService implements LicensedartifactsApiDelegate {
         Long artifactId = projectArtifactKeys.getArtifactId() ;
     	try {
     		repository.deleteByProjectIdAndArtifactId(projectId, artifactId);
+    		policy.evictGrants( projectId ) ;
     		return new ResponseEntity<>(HttpStatus.OK);
     	} catch( Exception others ) {
 			logger.error( "deleteAllowedArtifactByProjectIdAndArtifactId " + projectId + "," + artifactId + " error: " + others.toString() );
@@ -131,7 +178,12 @@ public class LicensedArtifactsService implements LicensedartifactsApiDelegate {
 	@PreAuthorize("hasRole('write_governance')")
     public ResponseEntity<Void> deleteLicensedArtifact(Long licensedArtifactId) {
     	try {
+    		// the grant as it was, for the project whose grants it is part of.
+    		com.webforged.enforcer.management.data.LicensedArtifact dtoPreviousLicensedArtifact = repository.findById( licensedArtifactId ).orElse(null) ;
     		repository.deleteById( licensedArtifactId );
+    		if( dtoPreviousLicensedArtifact != null ) {
+    			policy.evictGrants( dtoPreviousLicensedArtifact.getProject_id() ) ;
+    		}
     		return new ResponseEntity<>(HttpStatus.OK);
     	} catch( Exception others ) {
 			logger.error( "deleteLicensedArtifact " + licensedArtifactId + " error: " + others.toString() );
@@ -165,7 +217,13 @@ public class LicensedArtifactsService implements LicensedartifactsApiDelegate {
 				}
 			}
 			
+			com.webforged.enforcer.management.data.LicensedArtifact dtoPreviousLicensedArtifact = dtoLicensedArtifact.getLic_artifact_id() == null ? null
+					: repository.findById( dtoLicensedArtifact.getLic_artifact_id() ).orElse(null) ;
 			dtoLicensedArtifact = repository.save(dtoLicensedArtifact);
+			if( dtoPreviousLicensedArtifact != null ) {
+				policy.evictGrants( dtoPreviousLicensedArtifact.getProject_id() ) ;
+			}
+			policy.evictGrants( dtoLicensedArtifact.getProject_id() ) ;
 			apiArtifact = convertLicensedArtifactDTOToLicensedArtifactAPI(dtoLicensedArtifact) ;
 			
 	        return new ResponseEntity<LicensedArtifact>(apiArtifact, HttpStatus.OK);
@@ -221,7 +279,11 @@ public class LicensedArtifactsService implements LicensedartifactsApiDelegate {
      */
     @Override
 	@PreAuthorize("hasRole('read_governance')")
-    public ResponseEntity<List<LicensedArtifact>> findLicensedArtifactsByArtifactId(Long artifactId) {
+    public ResponseEntity<List<LicensedArtifact>> findLicensedArtifactsByArtifactId(Long artifactId, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( LicensedArtifactsRepository.FIND_BY_ARTIFACT_ID, KeysetPager.params( "artifactId", artifactId ), LICENSED_KEYSET,
+					new LicensedArtifactRowMapper(), LicensedArtifactsService::convertLicensedArtifactDTOToLicensedArtifactAPI, limit, after, stream ) ;
+		}
     	try {
     		List<com.webforged.enforcer.management.data.LicensedArtifact> dtoList ;
     		List<LicensedArtifact> apiList = null ;
@@ -254,7 +316,11 @@ public class LicensedArtifactsService implements LicensedartifactsApiDelegate {
      */
     @Override
 	@PreAuthorize("hasRole('read_governance')")
-    public ResponseEntity<List<LicensedArtifact>> findLicensedArtifactsByProject(Long projectId) {
+    public ResponseEntity<List<LicensedArtifact>> findLicensedArtifactsByProject(Long projectId, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( LicensedArtifactsRepository.FIND_BY_PROJECT_ID, KeysetPager.params( "projectId", projectId ), LICENSED_KEYSET,
+					new LicensedArtifactRowMapper(), LicensedArtifactsService::convertLicensedArtifactDTOToLicensedArtifactAPI, limit, after, stream ) ;
+		}
     	try {
     		List<com.webforged.enforcer.management.data.LicensedArtifact> dtoList ;
     		List<LicensedArtifact> apiList = null ;
@@ -287,7 +353,11 @@ public class LicensedArtifactsService implements LicensedartifactsApiDelegate {
      */
     @Override
 	@PreAuthorize("hasRole('read_governance')")
-    public ResponseEntity<List<LicensedArtifact>> findLicensedArtifactsByProjectAcronym(String acronym) {
+    public ResponseEntity<List<LicensedArtifact>> findLicensedArtifactsByProjectAcronym(String acronym, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( LicensedArtifactsRepository.FIND_BY_ACRONYM, KeysetPager.params( "acronym", acronym ), LICENSED_KEYSET,
+					new LicensedArtifactRowMapper(), LicensedArtifactsService::convertLicensedArtifactDTOToLicensedArtifactAPI, limit, after, stream ) ;
+		}
     	try {
     		List<com.webforged.enforcer.management.data.LicensedArtifact> dtoList ;
     		List<LicensedArtifact> apiList = null ;
@@ -319,7 +389,11 @@ public class LicensedArtifactsService implements LicensedartifactsApiDelegate {
      */
     @Override
 	@PreAuthorize("hasRole('read_governance')")
-    public ResponseEntity<List<LicensedArtifact>> findLicensedArtifactsByVendor(String vendor) {
+    public ResponseEntity<List<LicensedArtifact>> findLicensedArtifactsByVendor(String vendor, Integer limit, String after, Boolean stream) {
+		if( KeysetPager.isPaged( limit, after, stream ) ) {
+			return pager.find( LicensedArtifactsRepository.FIND_BY_VENDOR, KeysetPager.params( "vendor", vendor ), LICENSED_KEYSET,
+					new LicensedArtifactRowMapper(), LicensedArtifactsService::convertLicensedArtifactDTOToLicensedArtifactAPI, limit, after, stream ) ;
+		}
     	try {
     		List<com.webforged.enforcer.management.data.LicensedArtifact> dtoList ;
     		List<LicensedArtifact> apiList = null ;
@@ -340,6 +414,108 @@ public class LicensedArtifactsService implements LicensedartifactsApiDelegate {
     	}
     }
 
+    /**
+     * POST /licensedartifacts/import : Import licensed artifacts in bulk
+     * Each row grants a vendor licensed artifact, by id or coordinates, to a project, by id or acronym.  Other artifacts
+     * are granted through AllowedArtifacts and are refused here.  A grant the project already holds takes the contract,
+     * vendor and approval of the row.
+     *
+     * @param body NDJSON or CSV of LicensedArtifactGrant (required)
+     * @return successful operation (status code 200)
+     *         or unreadable input (status code 400)
+     *         or null (status code 500)
+     * @see LicensedartifactsApi#importLicensedArtifacts
+     */
+	@Override
+	@PreAuthorize("hasRole('write_governance')")
+	public ResponseEntity<ImportReport> importLicensedArtifacts(String body) {
+		Set<Long> projects = new HashSet<Long>() ;
+		try {
+			ImportReport report = importer.run( "licensed artifact", body, LicensedArtifactGrant.class, chunk -> importChunk( chunk, projects ) ) ;
+			return new ResponseEntity<ImportReport>( report, HttpStatus.OK ) ;
+		} catch( WrappedErrorException wee ) {
+			throw wee ;
+		} catch( Exception others ) {
+			logger.error( "importLicensedArtifacts error: " + others.toString() );
+			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
+			e.setStatus( HttpStatus.INTERNAL_SERVER_ERROR.value() );
+			e.setType( "LicensedArtifact import error " + others.toString() );
+			throw new WrappedErrorException( e ) ;
+		} finally {
+			projects.forEach( policy::evictGrants ) ;
+		}
+	}
+
+	/**
+	 * One chunk of an import, within its transaction, the same way as the allowed artifact import.
+	 */
+	private void importChunk( List<BulkImporter.Row<LicensedArtifactGrant>> chunk, Set<Long> projects ) {
+		GrantKeys keys = new GrantKeys( jdbcTemplate, chunk.stream().map( row -> keyOf(row.value()) ).collect( Collectors.toList() ) ) ;
+		Map<List<Long>,BulkImporter.Row<LicensedArtifactGrant>> grants = new LinkedHashMap<List<Long>,BulkImporter.Row<LicensedArtifactGrant>>() ;
+		List<com.webforged.enforcer.management.data.LicensedArtifact> dtoGrants = new ArrayList<com.webforged.enforcer.management.data.LicensedArtifact>() ;
+		for( BulkImporter.Row<LicensedArtifactGrant> row : chunk ) {
+			LicensedArtifactGrant grant = row.value() ;
+			ArtifactGrant key = keyOf( grant ) ;
+			Long projectId = keys.projectId( key ) ;
+			Long artifactId = keys.artifactId( key ) ;
+			String missing = keys.missing( key ) ;
+			if( missing != null ) {
+				row.fail( missing ) ;
+			} else if( !keys.isVendorLicensed( artifactId ) ) {
+				row.fail( "artifact " + artifactId + " is not vendor licensed, it is granted through /allowedartifacts." ) ;
+			} else if( grants.containsKey( Arrays.asList(artifactId, projectId) ) ) {
+				row.fail( "same grant as row " + grants.get( Arrays.asList(artifactId, projectId) ).number() ) ;
+			} else {
+				com.webforged.enforcer.management.data.LicensedArtifact dtoGrant = new com.webforged.enforcer.management.data.LicensedArtifact() ;
+				dtoGrant.setArtifact_id( artifactId );
+				dtoGrant.setProject_id( projectId );
+				dtoGrant.setContract( grant.getContract() );
+				dtoGrant.setVendor( grant.getVendor() );
+				dtoGrant.setApproval_architect( grant.getApprovalArchitect() );
+				dtoGrant.setApproval_ts( Jsr310NullConverters.OffsetDateTimeToInstantConverter.INSTANCE.convert(grant.getApprovalTs()) );
+				if( dtoGrant.getApproval_architect() != null && dtoGrant.getApproval_architect().equals("") != true ) {
+					if( dtoGrant.getApproval_ts() == null ) {
+						dtoGrant.setApproval_ts( Instant.now() );
+					}
+				}
+				grants.put( Arrays.asList(artifactId, projectId), row ) ;
+				dtoGrants.add( dtoGrant ) ;
+			}
+		}
+		if( dtoGrants.isEmpty() ) {
+			return ;
+		}
+
+		dtoGrants.forEach( g -> projects.add( g.getProject_id() ) ) ;
+		writeGrants( IMPORT_GRANTS, dtoGrants, key -> grants.remove( key ).created() ) ;
+		List<com.webforged.enforcer.management.data.LicensedArtifact> held = dtoGrants.stream()
+				.filter( g -> grants.containsKey( Arrays.asList(g.getArtifact_id(), g.getProject_id()) ) ).collect( Collectors.toList() ) ;
+		if( !held.isEmpty() ) {
+			writeGrants( UPDATE_GRANTS, held, key -> grants.get( key ).updated() ) ;
+		}
+	}
+
+	/**
+	 * @param written given the artifact and project id of each grant the statement returns
+	 */
+	private void writeGrants( String sql, List<com.webforged.enforcer.management.data.LicensedArtifact> dtoGrants, Consumer<List<Long>> written ) {
+		jdbcTemplate.query( con -> {
+			PreparedStatement ps = con.prepareStatement( sql ) ;
+			ps.setArray( 1, BulkImporter.array( con, "int8", dtoGrants, g -> g.getArtifact_id() ) );
+			ps.setArray( 2, BulkImporter.array( con, "int8", dtoGrants, g -> g.getProject_id() ) );
+			ps.setArray( 3, BulkImporter.array( con, "varchar", dtoGrants, g -> g.getContract() ) );
+			ps.setArray( 4, BulkImporter.array( con, "varchar", dtoGrants, g -> g.getVendor() ) );
+			ps.setArray( 5, BulkImporter.array( con, "varchar", dtoGrants, g -> g.getApproval_architect() ) );
+			ps.setArray( 6, BulkImporter.array( con, "timestamp", dtoGrants, g -> g.getApproval_ts() ) );
+			return ps ;
+		}, (RowCallbackHandler) rs -> written.accept( Arrays.asList(rs.getLong("artifact_id"), rs.getLong("project_id")) ) ) ;
+	}
+
+	private static ArtifactGrant keyOf( LicensedArtifactGrant grant ) {
+		return new ArtifactGrant().projectId( grant.getProjectId() ).acronym( grant.getAcronym() ).artifactId( grant.getArtifactId() )
+				.groupName( grant.getGroupName() ).artifactName( grant.getArtifactName() ).versionName( grant.getVersionName() ) ;
+	}
+
 	private static LicensedArtifact convertLicensedArtifactDTOToLicensedArtifactAPI(com.webforged.enforcer.management.data.LicensedArtifact dtoLicensedArtifact) {
 		LicensedArtifact apiLicensedArtifact;
 		
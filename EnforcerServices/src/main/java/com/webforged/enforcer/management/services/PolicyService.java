@@ -0,0 +1,405 @@
+package com.webforged.enforcer.management.services;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.CrossOrigin;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import com.webforged.enforcer.core.Lifecycle;
+import com.webforged.enforcer.core.Lifecycle.STATUS_TYPES;
+import com.webforged.enforcer.core.PolicySnapshot;
+import com.webforged.enforcer.management.dao.ArtifactCache;
+import com.webforged.enforcer.management.data.Artifact;
+import com.webforged.enforcer.management.security.jwt.UserUtil;
+import com.webforged.enforcer.management.util.WrappedErrorException;
+
+import com.webforged.enforcer.openapi.api.PolicyApi;
+import com.webforged.enforcer.openapi.api.PolicyApiDelegate;
+import com.webforged.enforcer.openapi.model.ArtifactCoordinate;
+import com.webforged.enforcer.openapi.model.PolicyDecision;
+import com.webforged.enforcer.openapi.model.PolicyEvaluationRequest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+
+/**
+ * Serves the enforcement policy of an acronym to the build plugins, as a downloadable snapshot or as bulk decisions.
+ * Both are answered from one cached {@link PolicySnapshot} of every artifact's status, shared by all acronyms, and
+ * the cached grants of the acronym's project.  A burst of CI builds costs one scan of Artifacts and one grant query
+ * per acronym per policy.cache.ttl seconds instead of a set of queries per build.
+ *
+ * Writes through ArtifactCache drop the artifact table, and the services that write grants or projects drop the
+ * grants of the acronyms they touch, so a change is seen by the next request and not only after the ttl.
+ *
+ * At most policy.cache.max-entries acronyms' grants are kept.  Hits and misses are published as
+ * cache.gets{cache=policy.artifacts|policy.grants,result=hit|miss}.
+ */
+@Service
+@CrossOrigin
+public class PolicyService implements PolicyApiDelegate {
+	Logger logger = LoggerFactory.getLogger( PolicyService.class ) ;
+	private final JdbcTemplate jdbcTemplate;
+	private final ArtifactCache artifactCache;
+	static final int PLACEHOLDER_CHUNK = 500 ;
+	static final String WRITER = "write_governance" ;
+	// the only key of the artifacts cache.
+	static final String ALL = "" ;
+
+	private final Cache<String,ArtifactTable> artifacts ;
+	private final Cache<String,Grants> grants ;
+
+	/**
+	 * The status of every artifact, without any project's grants.
+	 */
+	static class ArtifactTable {
+		final PolicySnapshot snapshot ;
+		final byte[] digest ;
+		final int length ;
+
+		ArtifactTable( byte[] bytes ) throws Exception {
+			this.snapshot = PolicySnapshot.wrap( bytes ) ;
+			this.length = bytes.length ;
+			this.digest = MessageDigest.getInstance( "SHA-256" ).digest( bytes ) ;
+		}
+	}
+
+	/**
+	 * The grants of an acronym's project.
+	 */
+	static class Grants {
+		final Integer project_id ;
+		final Set<Integer> allowed ;
+		final Set<Integer> licensed ;
+
+		Grants( Integer project_id, Set<Integer> allowed, Set<Integer> licensed ) {
+			this.project_id = project_id ;
+			this.allowed = allowed ;
+			this.licensed = licensed ;
+		}
+
+		boolean isAllowed( PolicySnapshot.Entry entry ) {
+			return Lifecycle.isAllowed( entry.getStatus(), entry.isVendorLicensed(),
+					allowed.contains(entry.getArtifact_id()), licensed.contains(entry.getArtifact_id()) ) ;
+		}
+	}
+
+	/**
+	 * The artifact table as seen by an acronym, read from the shared table with the grants put in as it goes.
+	 */
+	static class GrantedSnapshot extends AbstractResource {
+		private final ArtifactTable table ;
+		private final Grants grants ;
+
+		GrantedSnapshot( ArtifactTable table, Grants grants ) {
+			this.table = table ;
+			this.grants = grants ;
+		}
+
+		@Override
+		public String getDescription() {
+			return "policy snapshot of project " + grants.project_id ;
+		}
+
+		@Override
+		public long contentLength() {
+			return table.length ;
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return table.snapshot.openWithGrants( grants.project_id, grants.allowed, grants.licensed ) ;
+		}
+	}
+
+	public PolicyService( JdbcTemplate jdbcTemplate, ArtifactCache artifactCache, MeterRegistry registry,
+			@Value( "${policy.cache.max-entries:1000}" ) long maxEntries,
+			@Value( "${policy.cache.ttl:60}" ) long ttl ) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.artifactCache = artifactCache;
+		this.artifacts = Caffeine.newBuilder()
+				.maximumSize( 1 )
+				.expireAfterWrite( ttl, TimeUnit.SECONDS )
+				.recordStats()
+				.build() ;
+		this.grants = Caffeine.newBuilder()
+				.maximumSize( maxEntries )
+				.expireAfterWrite( ttl, TimeUnit.SECONDS )
+				.recordStats()
+				.build() ;
+		CaffeineCacheMetrics.monitor( registry, artifacts, "policy.artifacts" ) ;
+		CaffeineCacheMetrics.monitor( registry, grants, "policy.grants" ) ;
+		artifactCache.addEvictionListener( this::evictArtifacts ) ;
+	}
+
+    /**
+     * GET /policy/snapshot/{acronym} : policy snapshot of an acronym
+     * The compact binary policy used by the build plugins to enforce without going to the database.
+     *
+     * @param acronym acronym of the project (required)
+     * @param ifNoneMatch ETag of the snapshot already held (optional)
+     * @return successful operation (status code 200)
+     *         or not modified (status code 304)
+     *         or null (status code 500)
+     * @see PolicyApi#getPolicySnapshot
+     */
+	@Override
+	@PreAuthorize("hasRole('read_governance')")
+	public ResponseEntity<Resource> getPolicySnapshot( String acronym, String ifNoneMatch ) {
+		try {
+			ArtifactTable table = artifactTable() ;
+			Grants g = grantsOf( acronym ) ;
+			String etag = etag( table, g ) ;
+			if( etag.equals(ifNoneMatch) ) {
+				return ResponseEntity.status( HttpStatus.NOT_MODIFIED ).eTag( etag ).build() ;
+			}
+			return ResponseEntity.ok()
+					.eTag( etag )
+					.contentType( MediaType.APPLICATION_OCTET_STREAM )
+					.body( new GrantedSnapshot(table, g) ) ;
+		} catch( Exception others ) {
+			logger.error( "getPolicySnapshot " + acronym + " error: " + others.toString() );
+			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
+			e.setStatus( HttpStatus.INTERNAL_SERVER_ERROR.value() );
+			e.setType( "Error building policy snapshot: " + others.toString() );
+			throw new WrappedErrorException( e ) ;
+		}
+	}
+
+    /**
+     * POST /policy/evaluate : evaluate artifact usage
+     * The enforcement decision for a whole set of artifacts used by a project, in one round-trip.
+     * Unknown artifacts get CREATED placeholders only when the caller may write_governance.
+     *
+     * @param policyEvaluationRequest acronym and the artifacts it uses (required)
+     * @return successful operation (status code 200)
+     *         or invalid request (status code 400)
+     *         or null (status code 500)
+     * @see PolicyApi#evaluatePolicy
+     */
+	@Override
+	@PreAuthorize("hasRole('read_governance')")
+	public ResponseEntity<List<PolicyDecision>> evaluatePolicy( PolicyEvaluationRequest policyEvaluationRequest ) {
+		if( policyEvaluationRequest.getAcronym() == null || policyEvaluationRequest.getArtifacts() == null ) {
+			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
+			e.setStatus( HttpStatus.BAD_REQUEST.value() );
+			e.setType( "acronym and artifacts are required." );
+			throw new WrappedErrorException( e ) ;
+		}
+		String acronym = policyEvaluationRequest.getAcronym() ;
+		try {
+			PolicySnapshot snapshot = artifactTable().snapshot ;
+			Grants g = grantsOf( acronym ) ;
+			List<PolicyDecision> decisions = new ArrayList<PolicyDecision>( policyEvaluationRequest.getArtifacts().size() ) ;
+			List<ArtifactCoordinate> unknown = new ArrayList<ArtifactCoordinate>() ;
+			for( ArtifactCoordinate c : policyEvaluationRequest.getArtifacts() ) {
+				PolicyDecision d = new PolicyDecision() ;
+				d.setGroupName( c.getGroupName() );
+				d.setArtifactName( c.getArtifactName() );
+				d.setVersionName( c.getVersionName() );
+				PolicySnapshot.Entry entry = snapshot.find( c.getGroupName(), c.getArtifactName(), c.getVersionName() ) ;
+				if( entry == null ) {
+					d.setArtifactStatusSnapshot( "" );
+					d.setAllowed( false );
+					unknown.add( c ) ;
+				} else {
+					d.setArtifactId( (long) entry.getArtifact_id() );
+					d.setArtifactStatusSnapshot( entry.getStatus() );
+					d.setAllowed( g.isAllowed(entry) );
+				}
+				decisions.add( d ) ;
+			}
+			if( !unknown.isEmpty() ) {
+				if( UserUtil.getRoles().contains( WRITER ) ) {
+					insertPlaceholders( unknown ) ;
+				} else {
+					logger.info( "evaluatePolicy " + acronym + ": " + unknown.size() + " unknown artifacts, no placeholders without " + WRITER ) ;
+				}
+			}
+			return new ResponseEntity<List<PolicyDecision>>( decisions, HttpStatus.OK );
+		} catch( Exception others ) {
+			logger.error( "evaluatePolicy " + acronym + " error: " + others.toString() );
+			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
+			e.setStatus( HttpStatus.INTERNAL_SERVER_ERROR.value() );
+			e.setType( "Error evaluating policy: " + others.toString() );
+			throw new WrappedErrorException( e ) ;
+		}
+	}
+
+	/**
+	 * The shared artifact table, loaded once however many requests arrive while it is being built.
+	 */
+	ArtifactTable artifactTable() {
+		return artifacts.get( ALL, key -> {
+			try {
+				return new ArtifactTable( buildSnapshot() ) ;
+			} catch( RuntimeException rte ) {
+				throw rte ;
+			} catch( Exception others ) {
+				throw new IllegalStateException( others ) ;
+			}
+		} ) ;
+	}
+
+	Grants grantsOf( String acronym ) {
+		return grants.get( acronym, this::loadGrants ) ;
+	}
+
+	/**
+	 * Drop the artifact table, the next request builds it again.
+	 */
+	public void evictArtifacts() {
+		artifacts.invalidateAll() ;
+	}
+
+	/**
+	 * Drop the grants of every acronym of the project.
+	 */
+	public void evictGrants( Long project_id ) {
+		if( project_id == null ) {
+			return ;
+		}
+		grants.asMap().values().removeIf( g -> g.project_id != null && g.project_id.longValue() == project_id.longValue() ) ;
+		logger.debug( "evicted grants of project " + project_id ) ;
+	}
+
+	/**
+	 * Drop the grants of an acronym, for when the project it names changes.
+	 */
+	public void evictGrants( String acronym ) {
+		if( acronym != null ) {
+			grants.invalidate( acronym ) ;
+		}
+	}
+
+	/**
+	 * Drop the grants of every acronym, for writes that move the grants of an artifact between projects' tables.
+	 */
+	public void evictGrants() {
+		grants.invalidateAll() ;
+	}
+
+	/**
+	 * CREATED placeholders for artifacts never seen before, so they are easy to approve.  Rows another request
+	 * created in the meantime are left alone by ON CONFLICT, only the rows inserted here come back.
+	 */
+	private void insertPlaceholders( List<ArtifactCoordinate> unknown ) {
+		java.sql.Timestamp now = new java.sql.Timestamp( System.currentTimeMillis() ) ;
+		for( int from = 0; from < unknown.size(); from += PLACEHOLDER_CHUNK ) {
+			List<ArtifactCoordinate> chunk = unknown.subList( from, Math.min(from + PLACEHOLDER_CHUNK, unknown.size()) ) ;
+			StringBuilder sql = new StringBuilder( "INSERT INTO Artifacts(group_name,artifact_name,version_name,status,created_date) VALUES " ) ;
+			List<Object> args = new ArrayList<Object>( chunk.size() * 5 ) ;
+			for( ArtifactCoordinate c : chunk ) {
+				sql.append( args.isEmpty() ? "(?,?,?,?,?)" : ",(?,?,?,?,?)" ) ;
+				args.add( c.getGroupName() ) ;
+				args.add( c.getArtifactName() ) ;
+				args.add( c.getVersionName() ) ;
+				args.add( STATUS_TYPES.CREATED.label ) ;
+				args.add( now ) ;
+			}
+			sql.append( " ON CONFLICT (group_name,artifact_name,version_name) DO NOTHING RETURNING artifact_id, status, group_name, artifact_name, version_name" ) ;
+			List<Artifact> created = jdbcTemplate.query( sql.toString(), (rs, rowNum) -> {
+				Artifact a = new Artifact() ;
+				a.setArtifact_id( rs.getLong("artifact_id") );
+				a.setStatus( rs.getString("status") );
+				a.setGroup_name( rs.getString("group_name") );
+				a.setArtifact_name( rs.getString("artifact_name") );
+				a.setVersion_name( rs.getString("version_name") );
+				return a ;
+			}, args.toArray() ) ;
+			artifactCache.evict( created.toArray(new Artifact[0]) ) ;
+			for( Artifact a : created ) {
+				logger.warn( String.format( "***NOTICE***:  Created placeholder Artifact for  %s :: %s :: %s that must be approved. Artifact Id is %d",
+						a.getGroup_name(), a.getArtifact_name(), a.getVersion_name(), a.getArtifact_id() ) ) ;
+			}
+		}
+	}
+
+	/**
+	 * The grants held by the acronym's project.  An acronym without a project holds none, so no LIMITED artifact
+	 * is usable by it.
+	 */
+	private Grants loadGrants( String acronym ) {
+		List<Integer> ids = jdbcTemplate.queryForList( "SELECT project_id FROM Projects WHERE acronym = ?", Integer.class, acronym ) ;
+		Integer project_id = ids.isEmpty() ? null : ids.get(0) ;
+
+		Set<Integer> allowedGrants = new HashSet<Integer>() ;
+		Set<Integer> licensedGrants = new HashSet<Integer>() ;
+		if( project_id != null ) {
+			jdbcTemplate.query(
+					"SELECT artifact_id, 'A' AS grant_type FROM AllowedArtifacts WHERE project_id = ? " +
+					"UNION ALL " +
+					"SELECT artifact_id, 'L' AS grant_type FROM LicensedArtifacts WHERE project_id = ?",
+					(RowCallbackHandler) rs -> {
+						if( "A".equals(rs.getString("grant_type")) ) {
+							allowedGrants.add( rs.getInt("artifact_id") ) ;
+						} else {
+							licensedGrants.add( rs.getInt("artifact_id") ) ;
+						}
+					}, project_id, project_id ) ;
+		}
+		return new Grants( project_id, Collections.unmodifiableSet(allowedGrants), Collections.unmodifiableSet(licensedGrants) ) ;
+	}
+
+	/**
+	 * Every artifact with a status, without any project's grants.
+	 */
+	byte[] buildSnapshot() throws Exception {
+		PolicySnapshot.Writer writer = new PolicySnapshot.Writer( null ) ;
+		jdbcTemplate.query(
+				"SELECT artifact_id, group_name, artifact_name, version_name, status, is_vendor_licensed FROM Artifacts WHERE status IS NOT NULL",
+				(RowCallbackHandler) rs -> {
+					writer.add( rs.getString("group_name"), rs.getString("artifact_name"), rs.getString("version_name"),
+							rs.getInt("artifact_id"), rs.getString("status"), rs.getBoolean("is_vendor_licensed"), false, false ) ;
+				} ) ;
+		return writer.toByteArray() ;
+	}
+
+	/**
+	 * Quoted hash of the artifact table and the project's grants, so an unchanged policy always produces the same
+	 * tag without the acronym's snapshot being built.
+	 */
+	static String etag( ArtifactTable table, Grants g ) throws Exception {
+		MessageDigest md = MessageDigest.getInstance( "SHA-256" ) ;
+		md.update( table.digest ) ;
+		ByteBuffer ids = ByteBuffer.allocate( 4 * (3 + g.allowed.size() + g.licensed.size()) ) ;
+		ids.putInt( g.project_id == null ? -1 : g.project_id ) ;
+		ids.putInt( g.allowed.size() ) ;
+		for( Integer id : new TreeSet<Integer>(g.allowed) ) {
+			ids.putInt( id ) ;
+		}
+		ids.putInt( g.licensed.size() ) ;
+		for( Integer id : new TreeSet<Integer>(g.licensed) ) {
+			ids.putInt( id ) ;
+		}
+		byte[] digest = md.digest( ids.array() ) ;
+		StringBuilder sb = new StringBuilder( "\"" ) ;
+		for( int i = 0; i < 16; i++ ) {
+			sb.append( String.format("%02x", digest[i]) ) ;
+		}
+		return sb.append( "\"" ).toString() ;
+	}
+}
@@ -1,8 +1,6 @@
 package com.webforged.enforcer.management.services;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -18,13 +16,16 @@ import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.Assert;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
+import com.webforged.enforcer.management.dao.KeysetPager;
+import com.webforged.enforcer.management.dao.KeysetPager.Keyset;
+import com.webforged.enforcer.management.dao.ProjectVisibility;
+import com.webforged.enforcer.management.data.ProjectRowMapper;
 import com.webforged.enforcer.management.data.AllowedArtifactsRepository;
 import com.webforged.enforcer.management.data.BuildItemsRepository;
 import com.webforged.enforcer.management.data.BuildsRepository;
 import com.webforged.enforcer.management.data.ComponentsRepository;
 import com.webforged.enforcer.management.data.LicensedArtifactsRepository;
 import com.webforged.enforcer.management.data.ProjectsRepository;
-import com.webforged.enforcer.management.security.jwt.UserUtil;
 import com.webforged.enforcer.management.util.Jsr310NullConverters;
 import com.webforged.enforcer.management.util.WrappedErrorException;
 
@@ -40,11 +41,15 @@ public class ProjectsService implements ProjectsApiDelegate {
 
 	private TransactionTemplate transactionTemplate;
 	private final ProjectsRepository repository;
+	private final KeysetPager pager ;
 	private final AllowedArtifactsRepository allowedRepo ;
 	private final LicensedArtifactsRepository licensedRepo ;
 	private final BuildItemsRepository builditemsRepo ;
 	private final BuildsRepository buildsRepo ;
 	private final ComponentsRepository componentsRepo ;
+	private final PolicyService policy ;
+
+	private static final Keyset PROJECTS_KEYSET = Keyset.ascending( "acronym", "project_id" ) ;
 
 	public ProjectsService( ProjectsRepository repository,
 			AllowedArtifactsRepository allowedRepo,
@@ -52,7 +57,11 @@ public class ProjectsService implements ProjectsApiDelegate {
 			BuildItemsRepository builditemsRepo,
 			BuildsRepository buildsRepo,
 			ComponentsRepository componentsRepo,
+			KeysetPager pager,
+			PolicyService policy,
 			PlatformTransactionManager transactionManager ) {
+		this.pager = pager ;
+		this.policy = policy ;
 		this.repository = repository;
 		this.allowedRepo = allowedRepo;
 		this.licensedRepo = licensedRepo ;
@@ -76,16 +85,12 @@ public class ProjectsService implements ProjectsApiDelegate {
 	@PreAuthorize("hasRole('read_governance')")
     public ResponseEntity<List<Project>> findProjects() {
 		try {
-			Set<String> userRoles = UserUtil.getRoles() ;
+			ProjectVisibility visibility = ProjectVisibility.ofCaller() ;
 			
-			Iterable<com.webforged.enforcer.management.data.Project> dtoProject ;
+			List<com.webforged.enforcer.management.data.Project> dtoProject ;
 			List<Project> apiProject = null ;
-			dtoProject = repository.findAll() ;
-			// convert to list and do some filtering
-			ArrayList<com.webforged.enforcer.management.data.Project> newList = new ArrayList<com.webforged.enforcer.management.data.Project>();
-			dtoProject.forEach( newList::add ) ;
-			apiProject = newList.stream()
-					.filter( p -> userRoles.contains(p.getAcronym()+"_architect") || userRoles.contains("SUPERUSER_architect") )
+			dtoProject = repository.findVisible( visibility.isSuperuser(), visibility.acronyms() ) ;
+			apiProject = dtoProject.stream()
 					.map( ProjectsService::convertProjectDTOToProjectAPI )
 					.collect( Collectors.toList() );
 			return new ResponseEntity<List<Project>>(apiProject, HttpStatus.OK);
@@ -123,6 +128,8 @@ public class ProjectsService implements ProjectsApiDelegate {
 			}
 	    	dtoProject = convertProjectAPIToProjectDTO(project);
 			dtoProject = repository.save(dtoProject);
+			// the acronym may have been looked up before it had a project.
+			policy.evictGrants( dtoProject.getAcronym() ) ;
 			apiProject = convertProjectDTOToProjectAPI(dtoProject);
 	        return new ResponseEntity<Project>(apiProject, HttpStatus.CREATED);
 		} catch( Exception others ) {
@@ -149,8 +156,7 @@ public class ProjectsService implements ProjectsApiDelegate {
     public ResponseEntity<Project> updateProject(Project project) {
 		Project updatedProject ;
 		try {
-			Set<String> userRoles = UserUtil.getRoles() ;
-			if( !(userRoles.contains(project.getAcronym()+"_architect") || userRoles.contains("SUPERUSER_architect")) ) {
+			if( !ProjectVisibility.ofCaller().canSee( project.getAcronym() ) ) {
 				throw new Exception( "Caller does not have permission to " + project.getAcronym() ) ;
 			}
 			
@@ -160,6 +166,8 @@ public class ProjectsService implements ProjectsApiDelegate {
 			// validation goes here...
 			//
 			dtoProject = repository.save(dtoProject) ;
+			policy.evictGrants( dtoProject.getProject_id() ) ;
+			policy.evictGrants( dtoProject.getAcronym() ) ;
 			updatedProject = convertProjectDTOToProjectAPI( dtoProject ) ;
 			return new ResponseEntity<Project>(updatedProject,HttpStatus.OK);
 		} catch( Exception others ) {
@@ -202,6 +210,7 @@ public class ProjectsService implements ProjectsApiDelegate {
 					repository.deleteById( projectId );
 			    }
 			});
+			policy.evictGrants( projectId ) ;
 			return new ResponseEntity<>(HttpStatus.OK);
 		} catch( Exception others ) {
 			logger.error( "deleteProject " + projectId + " error: " + others.toString() );
@@ -224,12 +233,16 @@ public class ProjectsService implements ProjectsApiDelegate {
 	 */	
 	@Override
 	@PreAuthorize("hasRole('read_governance')")
-	public ResponseEntity<List<Project>> findProjectsByAcronym(String acronym) {
+	public ResponseEntity<List<Project>> findProjectsByAcronym(String acronym, Integer limit, String after, Boolean stream) {
 		try {
-			Set<String> userRoles = UserUtil.getRoles() ;
-			if( !(userRoles.contains(acronym+"_architect") || userRoles.contains("SUPERUSER_architect")) ) {
+			if( !ProjectVisibility.ofCaller().canSee( acronym ) ) {
 				throw new Exception( "User does not have permission to this project" ) ;
 			}
+
+			if( KeysetPager.isPaged( limit, after, stream ) ) {
+				return pager.find( ProjectsRepository.FIND_BY_ACRONYM, KeysetPager.params( "acronym", acronym ), PROJECTS_KEYSET,
+						new ProjectRowMapper(), ProjectsService::convertProjectDTOToProjectAPI, limit, after, stream ) ;
+			}
 			
 			List<com.webforged.enforcer.management.data.Project> dtoProject ;
 			List<Project> apiProject = null ;
@@ -238,6 +251,8 @@ public class ProjectsService implements ProjectsApiDelegate {
 				.map( ProjectsService::convertProjectDTOToProjectAPI )
 				.collect( Collectors.toList() );
 			return new ResponseEntity<List<Project>>(apiProject, HttpStatus.OK);
+		} catch( WrappedErrorException wee ) {
+			throw wee ;
 		} catch( Exception others ) {
 			logger.error( "findProjectsByAcronym " + acronym + " error: " + others.toString() );
 			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
@@ -259,15 +274,22 @@ public class ProjectsService implements ProjectsApiDelegate {
 	 */
 	@Override
 	@PreAuthorize("hasRole('read_governance')")
-	public ResponseEntity<List<Project>> findProjectsByBusinessOwner(String businessOwner) {
+	public ResponseEntity<List<Project>> findProjectsByBusinessOwner(String businessOwner, Integer limit, String after, Boolean stream) {
+		ProjectVisibility visibility = ProjectVisibility.ofCaller() ;
 		try {
+			if( KeysetPager.isPaged( limit, after, stream ) ) {
+				return pager.find( ProjectsRepository.FIND_BY_BUSINESS_OWNER, visibility.params( KeysetPager.params( "business_owner", businessOwner ) ), PROJECTS_KEYSET,
+						new ProjectRowMapper(), ProjectsService::convertProjectDTOToProjectAPI, limit, after, stream ) ;
+			}
 			List<com.webforged.enforcer.management.data.Project> dtoProject ;
 			List<Project> apiProject = null ;
-			dtoProject = repository.findByBusinessOwner(businessOwner) ;
+			dtoProject = repository.findByBusinessOwner( businessOwner, visibility.isSuperuser(), visibility.acronyms() ) ;
 			apiProject = dtoProject.stream()
 				.map( ProjectsService::convertProjectDTOToProjectAPI )
 				.collect( Collectors.toList() );
 			return new ResponseEntity<List<Project>>(apiProject, HttpStatus.OK);
+		} catch( WrappedErrorException wee ) {
+			throw wee ;
 		} catch( Exception others ) {
 			logger.error( "findProjectsByBusinessOwner " + businessOwner + " error: " + others.toString() );
 			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
@@ -289,15 +311,22 @@ public class ProjectsService implements ProjectsApiDelegate {
 	 */
 	@Override
 	@PreAuthorize("hasRole('read_governance')")
-	public ResponseEntity<List<Project>> findProjectsByITOwner(String itOwner) {
+	public ResponseEntity<List<Project>> findProjectsByITOwner(String itOwner, Integer limit, String after, Boolean stream) {
+		ProjectVisibility visibility = ProjectVisibility.ofCaller() ;
 		try {
+			if( KeysetPager.isPaged( limit, after, stream ) ) {
+				return pager.find( ProjectsRepository.FIND_BY_IT_OWNER, visibility.params( KeysetPager.params( "it_owner", itOwner ) ), PROJECTS_KEYSET,
+						new ProjectRowMapper(), ProjectsService::convertProjectDTOToProjectAPI, limit, after, stream ) ;
+			}
 			List<com.webforged.enforcer.management.data.Project> dtoProject ;
 			List<Project> apiProject = null ;
-			dtoProject = repository.findByITOwner(itOwner) ;
+			dtoProject = repository.findByITOwner( itOwner, visibility.isSuperuser(), visibility.acronyms() ) ;
 			apiProject = dtoProject.stream()
 				.map( ProjectsService::convertProjectDTOToProjectAPI )
 				.collect( Collectors.toList() );
 			return new ResponseEntity<List<Project>>(apiProject, HttpStatus.OK);
+		} catch( WrappedErrorException wee ) {
+			throw wee ;
 		} catch( Exception others ) {
 			logger.error( "findProjectsByITOwner " + itOwner + " error: " + others.toString() );
 			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
@@ -349,8 +378,12 @@ public class ProjectsService implements ProjectsApiDelegate {
      *         or null (status code 500)
      * @see ProjectsApi#findPermittedProjectsByArtifactId
      */
-    public ResponseEntity<List<Project>> findPermittedProjectsByArtifactId(Long artifactId) {
+    public ResponseEntity<List<Project>> findPermittedProjectsByArtifactId(Long artifactId, Integer limit, String after, Boolean stream) {
 		try {
+			if( KeysetPager.isPaged( limit, after, stream ) ) {
+				return pager.find( ProjectsRepository.FIND_PERMITTED_BY_ARTIFACT_ID, KeysetPager.params( "artifactId", artifactId ), PROJECTS_KEYSET,
+						new ProjectRowMapper(), ProjectsService::convertProjectDTOToProjectAPI, limit, after, stream ) ;
+			}
 			List<com.webforged.enforcer.management.data.Project> dtoProject ;
 			List<Project> apiProject = null ;
 			dtoProject = repository.findPermittedProjectsByArtifactId(artifactId) ;
@@ -358,6 +391,8 @@ public class ProjectsService implements ProjectsApiDelegate {
 				.map( ProjectsService::convertProjectDTOToProjectAPI )
 				.collect( Collectors.toList() );
 			return new ResponseEntity<List<Project>>(apiProject, HttpStatus.OK);
+		} catch( WrappedErrorException wee ) {
+			throw wee ;
 		} catch( Exception others ) {
 			logger.error( "findPermittedProjectsByArtifactId " + artifactId + " error: " + others.toString() );
 			com.webforged.enforcer.openapi.model.Error e = new com.webforged.enforcer.openapi.model.Error();
@@ -381,6 +416,7 @@ public class ProjectsService implements ProjectsApiDelegate {
 		apiProject.setItOwner( dtoProject.getIt_owner() );
 		apiProject.setBeginDate( Jsr310NullConverters.LocalDateTimeToOffsetDateTimeConverter.INSTANCE.convert(dtoProject.getBegin_date()) );
 		apiProject.setEndDate( Jsr310NullConverters.LocalDateTimeToOffsetDateTimeConverter.INSTANCE.convert(dtoProject.getEnd_date()) );
+		apiProject.setBuildRetentionMonths( dtoProject.getBuild_retention_months() );
 
 		return apiProject;
 	}
@@ -395,6 +431,7 @@ public class ProjectsService implements ProjectsApiDelegate {
 		dtoProject.setIt_owner( apiProject.getItOwner() );
 		dtoProject.setBegin_date( Jsr310NullConverters.OffsetDateTimeToLocalDateTimeConverter.INSTANCE.convert(apiProject.getBeginDate()) );
 		dtoProject.setEnd_date( Jsr310NullConverters.OffsetDateTimeToLocalDateTimeConverter.INSTANCE.convert(apiProject.getEndDate()) );
+		dtoProject.setBuild_retention_months( apiProject.getBuildRetentionMonths() );
 
 		return dtoProject;
 	}
@@ -7,6 +7,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
@@ -22,6 +23,11 @@ public class SpringResponseEntityExceptionHandler extends ResponseEntityExceptio
     	ResponseEntity<Object> response;
     	Error err;
     	
+    	if( request instanceof ServletWebRequest && ((ServletWebRequest) request).getResponse() != null
+    			&& ((ServletWebRequest) request).getResponse().isCommitted() ) {
+    		// part of a streamed body is out already, an error cannot follow it.  CommittedResponseFilter drops the connection.
+    		throw ex ;
+    	}
     	if( ex instanceof WrappedErrorException ) {
     		err = ((WrappedErrorException)ex).getError();
     	} else {
@@ -0,0 +1,157 @@
+package com.webforged.enforcer.management.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.webforged.enforcer.openapi.model.ImportError;
+import com.webforged.enforcer.openapi.model.ImportReport;
+
+public class BulkImporterTest {
+	static EmbeddedDatabase db ;
+	static JdbcTemplate jdbc ;
+	static BulkImporter importer ;
+
+	public static class Item {
+		public Integer item_id ;
+		public String name ;
+	}
+
+	/**
+	 * inserts a row at a time, it rejects the rows named reject and counts the chunks it was given.
+	 */
+	static class Writer implements BulkImporter.ChunkWriter<Item> {
+		final List<Integer> chunks = new ArrayList<Integer>() ;
+
+		@Override
+		public void write( List<BulkImporter.Row<Item>> chunk ) {
+			chunks.add( chunk.size() ) ;
+			for( BulkImporter.Row<Item> row : chunk ) {
+				if( "reject".equals( row.value().name ) ) {
+					row.fail( "rejected" ) ;
+				} else {
+					jdbc.update( "INSERT INTO Items VALUES ( ?, ? )", row.value().item_id, row.value().name ) ;
+					row.created() ;
+				}
+			}
+		}
+	}
+
+	@BeforeAll
+	static void setUp() {
+		db = new EmbeddedDatabaseBuilder().setType( EmbeddedDatabaseType.H2 ).setName( "importer;MODE=PostgreSQL" ).build() ;
+		jdbc = new JdbcTemplate( db ) ;
+		jdbc.execute( "CREATE TABLE Items ( item_id INT PRIMARY KEY, name VARCHAR(20) )" ) ;
+		importer = new BulkImporter( db, new ObjectMapper() ) ;
+		ReflectionTestUtils.setField( importer, "batchSize", 3 ) ;
+		ReflectionTestUtils.setField( importer, "maxErrors", 100 ) ;
+	}
+
+	@AfterAll
+	static void tearDown() {
+		db.shutdown() ;
+	}
+
+	@BeforeEach
+	void ndjsonRequest() {
+		jdbc.update( "DELETE FROM Items" ) ;
+		MockHttpServletRequest request = new MockHttpServletRequest() ;
+		request.setContentType( BulkImporter.NDJSON.toString() ) ;
+		RequestContextHolder.setRequestAttributes( new ServletRequestAttributes( request ) ) ;
+	}
+
+	@AfterEach
+	void resetRequest() {
+		RequestContextHolder.resetRequestAttributes() ;
+	}
+
+	static String ndjson( Object[]... rows ) {
+		StringBuilder sb = new StringBuilder() ;
+		for( Object[] row : rows ) {
+			sb.append( "{\"item_id\":" ).append( row[0] ).append( ",\"name\":\"" ).append( row[1] ).append( "\"}\n" ) ;
+		}
+		return sb.toString() ;
+	}
+
+	static List<Integer> ids() {
+		return jdbc.queryForList( "SELECT item_id FROM Items ORDER BY item_id", Integer.class ) ;
+	}
+
+	@Test
+	void chunks() {
+		Writer writer = new Writer() ;
+		ImportReport report = importer.run( "items", ndjson( new Object[][] {
+				{ 1, "a" }, { 2, "b" }, { 3, "c" }, { 4, "d" } } ), Item.class, writer ) ;
+		assertEquals( Arrays.asList(3, 1), writer.chunks ) ;
+		assertEquals( 4L, report.getRows() ) ;
+		assertEquals( 4L, report.getCreated() ) ;
+		assertEquals( 0L, report.getFailed() ) ;
+		assertEquals( Arrays.asList(1, 2, 3, 4), ids() ) ;
+	}
+
+	@Test
+	void failedChunkIsWrittenARowAtATime() {
+		Writer writer = new Writer() ;
+		ImportReport report = importer.run( "items", ndjson( new Object[][] {
+				{ 1, "a" }, { 2, "b" }, { 3, "c" },
+				{ 4, "d" }, { 4, "again" }, { 5, "e" },
+				{ 6, "f" } } ), Item.class, writer ) ;
+		// the second chunk is rolled back and written again, one row per transaction.
+		assertEquals( Arrays.asList(3, 3, 1, 1, 1, 1), writer.chunks ) ;
+		assertEquals( 7L, report.getRows() ) ;
+		assertEquals( 6L, report.getCreated() ) ;
+		assertEquals( 1L, report.getFailed() ) ;
+		assertEquals( 1, report.getErrors().size() ) ;
+		ImportError error = report.getErrors().get(0) ;
+		assertEquals( 5L, error.getRow() ) ;
+		assertTrue( error.getMessage().contains( "PRIMARY KEY" ), error.getMessage() ) ;
+		assertEquals( Arrays.asList(1, 2, 3, 4, 5, 6), ids() ) ;
+	}
+
+	@Test
+	void rejectedRowsAreNotWrittenAgain() {
+		Writer writer = new Writer() ;
+		ImportReport report = importer.run( "items", ndjson( new Object[][] {
+				{ 1, "reject" }, { 2, "b" }, { 2, "again" } } ), Item.class, writer ) ;
+		assertEquals( Arrays.asList(3, 1, 1), writer.chunks ) ;
+		assertEquals( 3L, report.getRows() ) ;
+		assertEquals( 1L, report.getCreated() ) ;
+		assertEquals( 2L, report.getFailed() ) ;
+		assertEquals( 1L, report.getErrors().get(0).getRow() ) ;
+		assertEquals( "rejected", report.getErrors().get(0).getMessage() ) ;
+		assertEquals( 3L, report.getErrors().get(1).getRow() ) ;
+		assertEquals( Arrays.asList(2), ids() ) ;
+	}
+
+	@Test
+	void unreadableRowsAreReported() {
+		Writer writer = new Writer() ;
+		ImportReport report = importer.run( "items", "{\"item_id\":1,\"name\":\"a\"}\nnot json\n{\"item_id\":\"x\"}\n",
+				Item.class, writer ) ;
+		assertEquals( Arrays.asList(1), writer.chunks ) ;
+		assertEquals( 3L, report.getRows() ) ;
+		assertEquals( 1L, report.getCreated() ) ;
+		assertEquals( 2L, report.getFailed() ) ;
+		assertEquals( 2L, report.getErrors().get(0).getRow() ) ;
+		assertEquals( 3L, report.getErrors().get(1).getRow() ) ;
+	}
+}
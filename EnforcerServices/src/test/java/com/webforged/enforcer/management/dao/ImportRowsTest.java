@@ -0,0 +1,121 @@
+package com.webforged.enforcer.management.dao;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ImportRowsTest {
+
+	static BufferedReader reader( String text ) {
+		return new BufferedReader( new StringReader(text) ) ;
+	}
+
+	static List<String> fields( String... values ) {
+		return Arrays.asList( values ) ;
+	}
+
+	@Test
+	void quotedFields() throws IOException {
+		BufferedReader in = reader( "a,\"b,c\",\"\",d\n" ) ;
+		assertEquals( fields( "a", "b,c", "", "d" ), ImportRows.record( in ) ) ;
+		assertNull( ImportRows.record( in ) ) ;
+	}
+
+	@Test
+	void doubledQuotes() throws IOException {
+		BufferedReader in = reader( "\"say \"\"hi\"\"\",\"\"\"\"\n" ) ;
+		assertEquals( fields( "say \"hi\"", "\"" ), ImportRows.record( in ) ) ;
+	}
+
+	@Test
+	void lineBreaksInQuotes() throws IOException {
+		BufferedReader in = reader( "\"one\ntwo\",x\n\"three\r\nfour\",y" ) ;
+		assertEquals( fields( "one\ntwo", "x" ), ImportRows.record( in ) ) ;
+		assertEquals( fields( "three\r\nfour", "y" ), ImportRows.record( in ) ) ;
+		assertNull( ImportRows.record( in ) ) ;
+	}
+
+	@Test
+	void crlf() throws IOException {
+		BufferedReader in = reader( "a,b\r\nc,d\r\n,\r\n" ) ;
+		assertEquals( fields( "a", "b" ), ImportRows.record( in ) ) ;
+		assertEquals( fields( "c", "d" ), ImportRows.record( in ) ) ;
+		assertEquals( fields( "", "" ), ImportRows.record( in ) ) ;
+		assertNull( ImportRows.record( in ) ) ;
+	}
+
+	@Test
+	void csvRows() throws IOException {
+		ImportRows rows = ImportRows.csv( new StringReader(
+				"\uFEFF group_name , artifact_name\r\n"
+				+ "g1,a1\r\n"
+				+ "\r\n"
+				+ "g2,\r\n"
+				+ "g3\r\n"
+				+ "\"g,4\",\"a\r\n4\"\r\n" ) ) ;
+		assertArrayEquals( new String[] { "group_name", "artifact_name" }, rows.header() ) ;
+
+		Map<String,Object> values = new HashMap<String,Object>() ;
+		values.put( "group_name", "g1" ) ;
+		values.put( "artifact_name", "a1" ) ;
+		ImportRows.Row row = rows.next() ;
+		assertEquals( 1, row.number ) ;
+		assertEquals( values, row.values ) ;
+
+		// the blank line is not a record, the empty field is left out.
+		row = rows.next() ;
+		assertEquals( 2, row.number ) ;
+		assertEquals( "g2", row.values.get( "group_name" ) ) ;
+		assertFalse( row.values.containsKey( "artifact_name" ) ) ;
+
+		row = rows.next() ;
+		assertEquals( 3, row.number ) ;
+		assertNull( row.values ) ;
+		assertEquals( "1 fields, the header names 2", row.error ) ;
+
+		// read on after the bad row.
+		row = rows.next() ;
+		assertEquals( 4, row.number ) ;
+		assertEquals( "g,4", row.values.get( "group_name" ) ) ;
+		assertEquals( "a\r\n4", row.values.get( "artifact_name" ) ) ;
+		assertFalse( rows.hasNext() ) ;
+	}
+
+	@Test
+	void csvWithoutHeader() {
+		assertThrows( IllegalArgumentException.class, () -> ImportRows.csv( new StringReader("") ) ) ;
+	}
+
+	@Test
+	void ndjsonRows() {
+		ImportRows rows = ImportRows.ndjson( new StringReader( "{\"a\":1}\n\n[2]\n{\"a\":3}\n" ), new ObjectMapper() ) ;
+		ImportRows.Row row = rows.next() ;
+		assertEquals( 1, row.number ) ;
+		assertEquals( 1, row.values.get( "a" ) ) ;
+
+		row = rows.next() ;
+		assertEquals( 3, row.number ) ;
+		assertNull( row.values ) ;
+		assertTrue( row.error.startsWith( "not a JSON object" ) ) ;
+
+		row = rows.next() ;
+		assertEquals( 4, row.number ) ;
+		assertEquals( 3, row.values.get( "a" ) ) ;
+		assertFalse( rows.hasNext() ) ;
+	}
+}
@@ -0,0 +1,162 @@
+package com.webforged.enforcer.management.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.webforged.enforcer.management.dao.KeysetPager.Keyset;
+import com.webforged.enforcer.management.util.WrappedErrorException;
+
+public class KeysetPagerTest {
+	static EmbeddedDatabase db ;
+	static KeysetPager pager ;
+
+	@BeforeAll
+	static void setUp() {
+		db = new EmbeddedDatabaseBuilder().setType( EmbeddedDatabaseType.H2 ).setName( "keyset;MODE=PostgreSQL" ).build() ;
+		JdbcTemplate jdbc = new JdbcTemplate( db ) ;
+		jdbc.execute( "CREATE TABLE Items ( item_id INT PRIMARY KEY, group_name VARCHAR(20), name VARCHAR(20), built TIMESTAMP )" ) ;
+		Timestamp t1 = Timestamp.valueOf( "2024-10-01 10:00:00.123456" ) ;
+		Timestamp t2 = Timestamp.valueOf( "2024-11-01 10:00:00" ) ;
+		Timestamp t3 = Timestamp.valueOf( "2024-12-01 10:00:00" ) ;
+		Object[][] rows = {
+				{ 1, "a", "x", t1 },
+				{ 2, "a", null, null },
+				{ 3, null, "x", t2 },
+				{ 4, "b", "x", t1 },
+				{ 5, "a", "x", null },
+				{ 6, null, null, t3 },
+				{ 7, "b", null, t2 },
+				{ 8, null, "x", null },
+				{ 9, "a", "y", t1 } } ;
+		for( Object[] row : rows ) {
+			jdbc.update( "INSERT INTO Items VALUES ( ?, ?, ?, ? )", row ) ;
+		}
+		pager = new KeysetPager( db, new ObjectMapper() ) ;
+		ReflectionTestUtils.setField( pager, "defaultLimit", 100 ) ;
+		ReflectionTestUtils.setField( pager, "maxLimit", 1000 ) ;
+	}
+
+	@AfterAll
+	static void tearDown() {
+		db.shutdown() ;
+	}
+
+	@AfterEach
+	void resetRequest() {
+		RequestContextHolder.resetRequestAttributes() ;
+	}
+
+	static MockHttpServletResponse streamTo() {
+		MockHttpServletResponse response = new MockHttpServletResponse() ;
+		RequestContextHolder.setRequestAttributes( new ServletRequestAttributes( new MockHttpServletRequest(), response ) ) ;
+		return response ;
+	}
+
+	/**
+	 * every page size, so that every row is once the last of a page and its key the cursor.
+	 */
+	static void assertPages( String sql, Keyset keyset, Integer... expected ) {
+		for( int limit = 1; limit <= expected.length; limit++ ) {
+			List<Integer> all = new ArrayList<Integer>() ;
+			String after = null ;
+			do {
+				ResponseEntity<List<Integer>> page = pager.find( sql, KeysetPager.params(), keyset,
+						(rs, rowNum) -> rs.getInt( "item_id" ), id -> id, limit, after, false ) ;
+				all.addAll( page.getBody() ) ;
+				after = page.getHeaders().getFirst( KeysetPager.NEXT_CURSOR ) ;
+			} while( after != null ) ;
+			assertEquals( Arrays.asList(expected), all, "limit " + limit ) ;
+		}
+	}
+
+	@Test
+	void ascendingNullsLast() {
+		assertPages( "SELECT * FROM Items", Keyset.ascending( "group_name", "name", "item_id" ),
+				1, 5, 9, 2, 4, 7, 3, 8, 6 ) ;
+	}
+
+	@Test
+	void descendingNullsFirst() {
+		assertPages( "SELECT * FROM Items", Keyset.descending( "group_name", "name", "item_id" ),
+				6, 8, 3, 7, 4, 2, 9, 5, 1 ) ;
+	}
+
+	@Test
+	void timestampsWithTheFindersOwnOrder() {
+		assertPages( "SELECT * FROM Items ORDER BY built DESC", Keyset.descending( "built", "item_id" ),
+				8, 5, 2, 6, 7, 3, 9, 4, 1 ) ;
+	}
+
+	@Test
+	void lastPageHasNoCursor() {
+		ResponseEntity<List<Integer>> page = pager.find( "SELECT * FROM Items WHERE item_id > :id", KeysetPager.params( "id", 7 ),
+				Keyset.ascending( "item_id" ), (rs, rowNum) -> rs.getInt( "item_id" ), id -> id, 2, null, false ) ;
+		assertEquals( Arrays.asList(8, 9), page.getBody() ) ;
+		assertNull( page.getHeaders().getFirst( KeysetPager.NEXT_CURSOR ) ) ;
+	}
+
+	@Test
+	void streamed() throws Exception {
+		MockHttpServletResponse response = streamTo() ;
+		assertNull( pager.find( "SELECT * FROM Items WHERE item_id > :id", KeysetPager.params( "id", 6 ),
+				Keyset.ascending( "item_id" ), (rs, rowNum) -> rs.getInt( "item_id" ), id -> id, null, null, true ) ) ;
+		assertEquals( 200, response.getStatus() ) ;
+		assertEquals( "[7,8,9]", response.getContentAsString() ) ;
+
+		response = streamTo() ;
+		pager.find( "SELECT * FROM Items WHERE item_id > :id", KeysetPager.params( "id", 9 ),
+				Keyset.ascending( "item_id" ), (rs, rowNum) -> rs.getInt( "item_id" ), id -> id, null, null, true ) ;
+		assertEquals( "[]", response.getContentAsString() ) ;
+	}
+
+	/**
+	 * a query that fails before its first row is answered like any other error, nothing of the stream is out.
+	 */
+	@Test
+	void streamFailingAtOnce() {
+		MockHttpServletResponse response = streamTo() ;
+		WrappedErrorException e = assertThrows( WrappedErrorException.class, () -> pager.find( "SELECT * FROM NoSuchTable",
+				KeysetPager.params(), Keyset.ascending( "item_id" ), (rs, rowNum) -> rs.getInt( "item_id" ), id -> id, null, null, true ) ) ;
+		assertEquals( 500, e.getError().getStatus() ) ;
+		assertFalse( response.isCommitted() ) ;
+		assertEquals( 0, response.getContentAsByteArray().length ) ;
+	}
+
+	/**
+	 * a failure after rows are out leaves the array open, for the container to drop the connection.
+	 */
+	@Test
+	void streamFailingPartWay() throws Exception {
+		MockHttpServletResponse response = streamTo() ;
+		assertThrows( IllegalStateException.class, () -> pager.find( "SELECT * FROM Items", KeysetPager.params(),
+				Keyset.ascending( "item_id" ), (rs, rowNum) -> rs.getInt( "item_id" ),
+				id -> { if( id == 3 ) throw new IllegalArgumentException( "bad row" ) ; return id ; }, null, null, true ) ) ;
+		assertTrue( response.isCommitted() ) ;
+		assertEquals( "[1,2", response.getContentAsString() ) ;
+	}
+}
@@ -0,0 +1,141 @@
+package com.webforged.enforcer.management.data;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Maps a table of artifacts with the mapper that found every column by name on every row, as the mappers did before
+ * ColumnIndexRowMapper, and with ArtifactRowMapper.  It is not a test, surefire leaves it alone.  To run it,
+ *
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test.cp
+ *   java -cp target/test-classes:target/classes:$(cat target/test.cp) com.webforged.enforcer.management.data.RowMapperBenchmark
+ *
+ * with JMH's own options after the class name, -prof gc for the bytes allocated per query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+
+	/**
+	 * ArtifactRowMapper before ColumnIndexRowMapper, less its debug logging.
+	 */
+	static class ByNameArtifactRowMapper implements RowMapper<Artifact> {
+		@Override
+		public Artifact mapRow(ResultSet rs, int rowNum) throws SQLException {
+			Timestamp ts;
+
+			Artifact dtoArtifact = new Artifact() ;
+
+			dtoArtifact.setApproval_authorization( rs.getString( "approval_authorization" ) );
+			ts = rs.getTimestamp( "approval_date" ) ;
+			dtoArtifact.setApproval_date( ts == null ? null : ts.toLocalDateTime() );
+			ts = rs.getTimestamp( "approval_ts" ) ;
+			dtoArtifact.setApproval_ts( ts == null ? null : ts.toInstant() );
+			dtoArtifact.setArtifact_id (rs.getLong("artifact_id") );
+			dtoArtifact.setArtifact_name( rs.getString( "artifact_name" ) );
+			ts = rs.getTimestamp( "created_date" ) ;
+			dtoArtifact.setCreated_date( ts == null ? null : ts.toLocalDateTime() );
+			dtoArtifact.setDeprecation_authorization( rs.getString( "deprecation_authorization" ) );
+			ts = rs.getTimestamp( "deprecation_date" ) ;
+			dtoArtifact.setDeprecation_date( ts == null ? null : ts.toLocalDateTime() );
+			ts = rs.getTimestamp( "deprecation_ts" ) ;
+			dtoArtifact.setDeprecation_ts( ts == null ? null : ts.toInstant() );
+			dtoArtifact.setGroup_name( rs.getString( "group_name" ) );
+			dtoArtifact.setIs_vendor_licensed( rs.getBoolean( "is_vendor_licensed" ) );
+			dtoArtifact.setRetirement_authorization( rs.getString( "retirement_authorization" ) );
+			ts = rs.getTimestamp( "retirement_date" ) ;
+			dtoArtifact.setRetirement_date( ts == null ? null : ts.toLocalDateTime() );
+			ts = rs.getTimestamp( "retirement_ts" ) ;
+			dtoArtifact.setRetirement_ts( ts == null ? null : ts.toInstant() );
+			dtoArtifact.setStatus( rs.getString( "status" ) );
+			dtoArtifact.setVersion_name( rs.getString( "version_name" ) );
+
+			return dtoArtifact;
+		}
+	}
+
+	static final String FIND_ALL = "SELECT * FROM Artifacts" ;
+
+	@Param({ "20000" })
+	int rows ;
+
+	EmbeddedDatabase db ;
+	JdbcTemplate jdbc ;
+
+	@Setup
+	public void setUp() {
+		db = new EmbeddedDatabaseBuilder().setType( EmbeddedDatabaseType.H2 ).setName( "mappers;MODE=PostgreSQL" ).build() ;
+		jdbc = new JdbcTemplate( db ) ;
+		// the columns of the baseline changelog, in its order.
+		jdbc.execute( "CREATE TABLE Artifacts ( artifact_id INT PRIMARY KEY, status VARCHAR(32), "
+				+ "group_name VARCHAR(256), artifact_name VARCHAR(256), version_name VARCHAR(256), is_vendor_licensed BOOLEAN, "
+				+ "created_date TIMESTAMP, approval_date TIMESTAMP, approval_authorization VARCHAR(256), approval_ts TIMESTAMP, "
+				+ "deprecation_date TIMESTAMP, deprecation_authorization VARCHAR(256), deprecation_ts TIMESTAMP, "
+				+ "retirement_date TIMESTAMP, retirement_authorization VARCHAR(256), retirement_ts TIMESTAMP )" ) ;
+		// every artifact created and approved, one in ten deprecated and none retired.
+		jdbc.update( "INSERT INTO Artifacts SELECT x, 'GA', 'org.example.g' || MOD(x, 100), 'lib' || x, '1.' || MOD(x, 7), MOD(x, 5) = 0, "
+				+ "DATEADD('MINUTE', x, TIMESTAMP '2024-01-01 00:00:00'), DATEADD('MINUTE', x, TIMESTAMP '2024-02-01 00:00:00'), 'arch', "
+				+ "DATEADD('MINUTE', x, TIMESTAMP '2024-02-01 00:00:00'), "
+				+ "CASEWHEN(MOD(x, 10) = 0, TIMESTAMP '2024-06-01 00:00:00', NULL), CASEWHEN(MOD(x, 10) = 0, 'arch', NULL), "
+				+ "CASEWHEN(MOD(x, 10) = 0, TIMESTAMP '2024-06-01 00:00:00', NULL), NULL, NULL, NULL "
+				+ "FROM SYSTEM_RANGE(1, ?)", rows ) ;
+	}
+
+	@TearDown
+	public void tearDown() {
+		db.shutdown() ;
+	}
+
+	@Benchmark
+	public List<Artifact> byName() {
+		return jdbc.query( FIND_ALL, new ByNameArtifactRowMapper() ) ;
+	}
+
+	@Benchmark
+	public List<Artifact> byIndex() {
+		return jdbc.query( FIND_ALL, new ArtifactRowMapper() ) ;
+	}
+
+	/**
+	 * the way the ArtifactsRepository finders map their rows.
+	 */
+	@Benchmark
+	public List<Artifact> byIndexExtractor() {
+		return jdbc.query( FIND_ALL, new ArtifactRowMapper.Extractor() ) ;
+	}
+
+	public static void main( String[] args ) throws RunnerException, CommandLineOptionException {
+		new Runner( new OptionsBuilder().parent( new CommandLineOptions(args) )
+				.include( RowMapperBenchmark.class.getSimpleName() ).build() ).run() ;
+	}
+}
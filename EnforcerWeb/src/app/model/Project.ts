@@ -5,6 +5,7 @@ export class Project {
 	public it_owner?: string;
 	public begin_date?: Date;
 	public end_date?: Date;
+	public build_retention_months?: number;
 
 	constructor( obj: Object = {}) {
 		Object.assign(this, obj) ;
@@ -17,7 +18,8 @@ export class Project {
 			business_owner: this.business_owner,
 			it_owner: this.it_owner,
 			begin_date: this.begin_date,
-			end_date: this.end_date
+			end_date: this.end_date,
+			build_retention_months: this.build_retention_months
 		}
 	}
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.webforged.enforcer.core;
+
+import java.util.Set;
+
+/**
+ * Snapshot of the governance state of one artifact as seen by one project.  An unknown artifact has no status
+ * and is not allowed.
+ */
+public class ArtifactPolicy {
+	Integer artifact_id ;
+	String status ;
+	boolean vendorLicensed ;
+	boolean allowed ;
+
+	public ArtifactPolicy() {}
+
+	ArtifactPolicy( Integer artifact_id, String status, boolean vendorLicensed, boolean allowed ) {
+		this.artifact_id = artifact_id ;
+		this.status = status ;
+		this.vendorLicensed = vendorLicensed ;
+		this.allowed = allowed ;
+	}
+
+	public Integer getArtifact_id() { return artifact_id; }
+	public String getStatus() { return status; }
+	public boolean isVendorLicensed() { return vendorLicensed; }
+	public boolean isAllowed() { return allowed; }
+
+	/** status snapshot recorded into the BOM, empty when the artifact was unknown. */
+	public String getStatusSnapshot() {
+		return status == null ? "" : status ;
+	}
+
+	/** copy of this artifact's state carrying the decision for a project holding the given grants. */
+	ArtifactPolicy decide( Set<Integer> allowedGrants, Set<Integer> licensedGrants ) {
+		return new ArtifactPolicy( artifact_id, status, vendorLicensed, status != null && Lifecycle.isAllowed( status, vendorLicensed,
+				allowedGrants.contains(artifact_id), licensedGrants.contains(artifact_id) ) ) ;
+	}
+}
@@ -0,0 +1,32 @@
+package com.webforged.enforcer.core;
+
+import java.io.Serializable;
+
+/**
+ * One BuildItems row: the artifact used and its status and decision at the time of the build.
+ */
+public final class BomItem implements Serializable {
+	private static final long serialVersionUID = -1867329150474513093L;
+
+	private final Coordinate coordinate ;
+	private final String status ;
+	private final boolean allowed ;
+
+	/**
+	 * @param coordinate
+	 * @param status status snapshot, empty when the artifact was unknown
+	 * @param allowed
+	 */
+	public BomItem( Coordinate coordinate, String status, boolean allowed ) {
+		this.coordinate = coordinate ;
+		this.status = status ;
+		this.allowed = allowed ;
+	}
+
+	public Coordinate getCoordinate() { return coordinate; }
+	public String getGroup() { return coordinate.getGroupId(); }
+	public String getId() { return coordinate.getArtifactId(); }
+	public String getVersion() { return coordinate.getVersion(); }
+	public String getStatus() { return status; }
+	public boolean isAllowed() { return allowed; }
+}
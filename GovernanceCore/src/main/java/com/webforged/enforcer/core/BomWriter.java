@@ -0,0 +1,390 @@
+package com.webforged.enforcer.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes build BOMs to the governance database for both plugins.
+ *
+ * {@link #store(BuildRecord)} writes in the calling thread, {@link #submit(BuildRecord)} hands the record to a
+ * single background thread so the enforcement verdict is not held up by the database.  A submitted record is
+ * first journaled to a spool file; the file is removed once the record is committed.  A record that still fails
+ * after a bounded number of attempts stays in the spool directory and is replayed by the next build that opens
+ * a writer on the same directory.
+ *
+ * Spool files are claimed by renaming them before they are written, so builds sharing a spool directory do not
+ * write the same record twice.  A record carries the project and component ids of the database it was enforced
+ * against, so a writer spools into a subdirectory named for its jdbc url and replays only that one.
+ *
+ * A build that enforces from a snapshot or EnforcerServices need not have database credentials.  Its writer has
+ * no DataSource and only spools, into the spool directory itself.  The next build with a database that uses the
+ * directory writes those records too, with the ids found again from acronym and component.
+ */
+public class BomWriter {
+	static final Logger log = LoggerFactory.getLogger( BomWriter.class ) ;
+
+	static final String SPOOL_SUFFIX = ".bom" ;
+	static final String CLAIMED_SUFFIX = ".writing" ;
+	static final String BAD_SUFFIX = ".bad" ;
+	/** a claimed file this old belongs to a build that died mid write. */
+	static final long STALE_CLAIM_MILLIS = 60L * 60L * 1000L ;
+	/**
+	 * LatestBuilds follows the newest build of each component.  A replayed older record leaves a newer row alone.
+	 */
+	static final String UPSERT_LATEST = "INSERT INTO LatestBuilds(component_id, build_id, build_ts) VALUES(?,?,?) " +
+			"ON CONFLICT (component_id) DO UPDATE SET build_id = EXCLUDED.build_id, build_ts = EXCLUDED.build_ts " +
+			"WHERE LatestBuilds.build_ts IS NULL OR (LatestBuilds.build_ts, LatestBuilds.build_id) < (EXCLUDED.build_ts, EXCLUDED.build_id)" ;
+
+	private final DataSource dataSource ;
+	private final File sharedSpoolDir ;
+	private final File spoolDir ;
+	private final int maxAttempts ;
+	private final long retryDelayMillis ;
+	private final ExecutorService executor ;
+
+	/**
+	 * @param dataSource null when the build has no database, records are only spooled
+	 * @param jdbcUrl the dataSource's url, null or empty without one
+	 * @param spoolDir where records that could not be written are kept, null disables spooling
+	 * @param maxAttempts attempts per record before it is left in the spool
+	 * @param retryDelayMillis delay before the second attempt, doubled for each one after that
+	 */
+	public BomWriter( DataSource dataSource, String jdbcUrl, File spoolDir, int maxAttempts, long retryDelayMillis ) {
+		this.dataSource = dataSource ;
+		this.sharedSpoolDir = spoolDir ;
+		this.spoolDir = spoolDir == null || dataSource == null || jdbcUrl == null || jdbcUrl.isEmpty() ? spoolDir
+				: new File( spoolDir, "db-" + UUID.nameUUIDFromBytes( jdbcUrl.getBytes(StandardCharsets.UTF_8) ) ) ;
+		this.maxAttempts = Math.max( 1, maxAttempts ) ;
+		this.retryDelayMillis = retryDelayMillis ;
+		this.executor = Executors.newSingleThreadExecutor( r -> {
+			Thread t = new Thread( r, "governance-bom-writer" ) ;
+			// never keeps the build alive, anything unwritten is still in the spool.
+			t.setDaemon( true ) ;
+			return t ;
+		} ) ;
+		if( this.spoolDir != null && !this.spoolDir.isDirectory() && !this.spoolDir.mkdirs() ) {
+			log.warn( "BOM spool directory " + this.spoolDir + " could not be created, failed writes will be lost" ) ;
+		}
+	}
+
+	public static File defaultSpoolDir() {
+		return new File( new File( System.getProperty("user.home"), ".governance" ), "spool" ) ;
+	}
+
+	/**
+	 * Write in the calling thread, spooling the record when the database will not take it.
+	 * @param record
+	 */
+	public void store( BuildRecord record ) {
+		if( dataSource == null ) {
+			File spooled = spool( record ) ;
+			if( spooled != null ) {
+				log.info( "Build BOM spooled to " + spooled + ", no database is configured to write it" ) ;
+			} else {
+				log.error( "Build BOM was not written, no database is configured and it could not be spooled" ) ;
+			}
+			return ;
+		}
+		try {
+			write( record ) ;
+		} catch( IllegalArgumentException bad ) {
+			log.error( bad.getMessage() ) ;
+		} catch( SQLException any ) {
+			log.error( any.toString(), any ) ;
+			File spooled = spool( record ) ;
+			if( spooled != null ) {
+				log.warn( "Build BOM spooled to " + spooled + ", it will be written by a later build" ) ;
+			}
+		}
+	}
+
+	/**
+	 * Journal the record and write it in the background.
+	 * @param record
+	 */
+	public void submit( BuildRecord record ) {
+		if( dataSource == null ) {
+			store( record ) ;
+			return ;
+		}
+		File journal = spool( record ) ;
+		executor.execute( new Job(record, journal, false) ) ;
+	}
+
+	/**
+	 * Queue every record left by earlier builds against this database, and by builds that had none.
+	 */
+	public void replay() {
+		if( spoolDir == null || dataSource == null ) {
+			return ;
+		}
+		replay( spoolDir, false ) ;
+		if( !spoolDir.equals(sharedSpoolDir) ) {
+			replay( sharedSpoolDir, true ) ;
+		}
+	}
+
+	/**
+	 * @param unresolved the records were enforced without a database, their ids are not this one's
+	 */
+	private void replay( File dir, boolean unresolved ) {
+		File[] stale = dir.listFiles( (d, name) -> name.endsWith(CLAIMED_SUFFIX) ) ;
+		if( stale != null ) {
+			for( File claimed : stale ) {
+				if( System.currentTimeMillis() - claimed.lastModified() > STALE_CLAIM_MILLIS ) {
+					claimed.renameTo( unclaimed(claimed) ) ;
+				}
+			}
+		}
+		File[] spooled = dir.listFiles( (d, name) -> name.endsWith(SPOOL_SUFFIX) ) ;
+		if( spooled != null && spooled.length > 0 ) {
+			log.info( "Replaying " + spooled.length + " spooled build BOM(s) from " + dir ) ;
+			for( File journal : spooled ) {
+				executor.execute( new Job(null, journal, unresolved) ) ;
+			}
+		}
+	}
+
+	/**
+	 * Stop taking records.
+	 * @param await wait for records already submitted
+	 * @param timeoutMillis how long to wait
+	 * @return true when nothing was left unwritten
+	 */
+	public boolean close( boolean await, long timeoutMillis ) {
+		executor.shutdown();
+		boolean done = executor.isTerminated() ;
+		if( await && !done ) {
+			try {
+				done = executor.awaitTermination( timeoutMillis, TimeUnit.MILLISECONDS ) ;
+			} catch( InterruptedException ie ) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if( !done ) {
+			int lost = 0 ;
+			for( Runnable pending : executor.shutdownNow() ) {
+				if( ((Job)pending).journal == null ) lost++ ;
+			}
+			if( lost > 0 ) {
+				log.error( lost + " build BOM(s) were neither written nor spooled" ) ;
+			} else if( spoolDir != null ) {
+				log.warn( "Unwritten build BOMs remain in " + spoolDir + " for a later build" ) ;
+			}
+		}
+		return done ;
+	}
+
+	/**
+	 * The build, its items and the component's LatestBuilds row commit together, the items go over as one JDBC batch.
+	 * @param record
+	 * @throws SQLException
+	 */
+	public void write( BuildRecord record ) throws SQLException {
+		write( record, false ) ;
+	}
+
+	/**
+	 * @param unresolved find the project and component from acronym and component, whatever ids the record has
+	 */
+	private void write( BuildRecord record, boolean unresolved ) throws SQLException {
+		boolean resolve = unresolved || record.getComponent_id() == null ;
+		if( resolve && (record.getAcronym() == null || record.getComponent() == null) ) {
+			throw new IllegalArgumentException( "Build BOM has no project or component and cannot be stored" ) ;
+		}
+
+		Connection conn = null ;
+		PreparedStatement ps = null ;
+		ResultSet rs = null ;
+		String query ;
+		Long build_id = null;
+
+		try {
+			conn = dataSource.getConnection() ;
+			conn.setAutoCommit( false );
+			Integer project_id = unresolved ? null : record.getProject_id() ;
+			Integer component_id = unresolved ? null : record.getComponent_id() ;
+			if( resolve ) {
+				Integer[] ids = ProjectIds.findOrCreate( conn, record.getAcronym(), record.getComponent(), project_id ) ;
+				project_id = ids[0] ;
+				component_id = ids[1] ;
+			}
+			query = "INSERT INTO Builds(build_ts, project_id, component_id, component_version, infractions, source) VALUES(?,?,?,?,?,?)"  ;
+			ps = conn.prepareStatement( query, PreparedStatement.RETURN_GENERATED_KEYS ) ;
+			ps.setTimestamp(1, new Timestamp(record.getBuild_ts()) );
+			ps.setInt(2, project_id );
+			ps.setInt(3, component_id );
+			ps.setString(4, record.getComponent_version() );
+			ps.setString(5, record.getInfractions() );
+			ps.setString(6, record.getSource() );
+			ps.executeUpdate();
+			rs = ps.getGeneratedKeys() ;
+			while( rs.next() ) {
+				build_id = rs.getLong(1);
+			}
+			rs.close(); rs = null;
+			ps.close(); ps = null;
+			ps = conn.prepareStatement( UPSERT_LATEST ) ;
+			ps.setInt(1, component_id );
+			ps.setLong(2, build_id );
+			ps.setTimestamp(3, new Timestamp(record.getBuild_ts()) );
+			ps.executeUpdate();
+			ps.close(); ps = null;
+			// the items carry their build's build_ts, BuildItems is partitioned on it like Builds.
+			query = "INSERT INTO BuildItems(build_id,build_ts,group_name,artifact_name,version_name,artifact_status_snapshot,allowed) VALUES(?,?,?,?,?,?,?)" ;
+			ps = conn.prepareStatement( query ) ;
+			for( BomItem item : record.getItems() ) {
+				ps.setLong(1, build_id );
+				ps.setTimestamp(2, new Timestamp(record.getBuild_ts()) );
+				ps.setString(3, item.getGroup() );
+				ps.setString(4, item.getId() );
+				ps.setString(5, item.getVersion() );
+				ps.setString(6, item.getStatus() );
+				ps.setBoolean(7, item.isAllowed() );
+				ps.addBatch();
+			}
+			ps.executeBatch();
+			ps.close(); ps = null;
+			conn.commit();
+		} catch( SQLException any ) {
+			try { if( conn != null ) conn.rollback(); } catch(Exception others) {}
+			throw any ;
+		} finally {
+			try { if( rs != null ) rs.close(); } catch(Exception others) {}
+			try { if( ps != null ) ps.close(); } catch(Exception others) {}
+			try { if( conn != null ) conn.setAutoCommit( true ); } catch(Exception others) {}
+			try { if( conn != null ) conn.close(); } catch(Exception others) {}
+		}
+	}
+
+	/**
+	 * @return true once the record needs no more work, written or not worth keeping
+	 */
+	private boolean writeWithRetry( BuildRecord record, boolean unresolved ) {
+		long delay = retryDelayMillis ;
+		for( int attempt = 1; attempt <= maxAttempts; attempt++ ) {
+			try {
+				write( record, unresolved ) ;
+				return true ;
+			} catch( IllegalArgumentException bad ) {
+				log.error( bad.getMessage() ) ;
+				return true ;
+			} catch( SQLException any ) {
+				log.warn( "Build BOM write attempt " + attempt + " of " + maxAttempts + " failed: " + any ) ;
+			}
+			if( attempt < maxAttempts ) {
+				try {
+					Thread.sleep( delay ) ;
+				} catch( InterruptedException ie ) {
+					Thread.currentThread().interrupt();
+					return false ;
+				}
+				delay *= 2 ;
+			}
+		}
+		return false ;
+	}
+
+	private File spool( BuildRecord record ) {
+		if( spoolDir == null ) {
+			return null ;
+		}
+		File journal = new File( spoolDir, "bom-" + record.getBuild_ts() + "-" + UUID.randomUUID() + SPOOL_SUFFIX ) ;
+		ObjectOutputStream out = null ;
+		try {
+			out = new ObjectOutputStream( new BufferedOutputStream(new FileOutputStream(journal)) ) ;
+			out.writeObject( record );
+			out.close(); out = null ;
+			return journal ;
+		} catch( Exception any ) {
+			log.warn( "Build BOM could not be spooled to " + journal + ": " + any ) ;
+			journal.delete() ;
+			return null ;
+		} finally {
+			try { if( out != null ) out.close(); } catch(Exception others) {}
+		}
+	}
+
+	private static BuildRecord unspool( File journal ) throws Exception {
+		ObjectInputStream in = null ;
+		try {
+			in = new ObjectInputStream( new BufferedInputStream(new FileInputStream(journal)) ) ;
+			return (BuildRecord) in.readObject() ;
+		} finally {
+			try { if( in != null ) in.close(); } catch(Exception others) {}
+		}
+	}
+
+	private static File unclaimed( File claimed ) {
+		String name = claimed.getName() ;
+		return new File( claimed.getParentFile(), name.substring(0, name.length() - CLAIMED_SUFFIX.length()) + SPOOL_SUFFIX ) ;
+	}
+
+	/**
+	 * One record, from memory, from its journal, or both.
+	 */
+	private class Job implements Runnable {
+		final BuildRecord record ;
+		final File journal ;
+		final boolean unresolved ;
+
+		Job( BuildRecord record, File journal, boolean unresolved ) {
+			this.record = record ;
+			this.journal = journal ;
+			this.unresolved = unresolved ;
+		}
+
+		@Override
+		public void run() {
+			if( journal == null ) {
+				if( !writeWithRetry(record, unresolved) ) {
+					log.error( "Build BOM for component " + record.getComponent_id() + " was not written" ) ;
+				}
+				return ;
+			}
+
+			String name = journal.getName() ;
+			File claimed = new File( journal.getParentFile(), name.substring(0, name.length() - SPOOL_SUFFIX.length()) + CLAIMED_SUFFIX ) ;
+			if( !journal.renameTo(claimed) ) {
+				// another build got to it first.
+				return ;
+			}
+			BuildRecord toWrite = record ;
+			if( toWrite == null ) {
+				try {
+					toWrite = unspool( claimed ) ;
+				} catch( Exception any ) {
+					log.error( "Spooled build BOM " + journal + " is unreadable: " + any ) ;
+					claimed.renameTo( new File(claimed.getPath() + BAD_SUFFIX) ) ;
+					return ;
+				}
+			}
+			if( writeWithRetry(toWrite, unresolved) ) {
+				claimed.delete() ;
+			} else {
+				claimed.renameTo( journal ) ;
+				log.warn( "Build BOM left in " + journal + " for a later build" ) ;
+			}
+		}
+	}
+}
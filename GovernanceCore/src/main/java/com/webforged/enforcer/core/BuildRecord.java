@@ -0,0 +1,57 @@
+package com.webforged.enforcer.core;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One build and its bill of materials, exactly what ends up in the Builds and BuildItems tables.
+ * Serializable so that a build which could not be written can be spooled to disk and replayed later.
+ */
+public class BuildRecord implements Serializable {
+	private static final long serialVersionUID = -3316950447725012381L;
+
+	private final long build_ts ;
+	private final String acronym ;
+	private final String component ;
+	private final Integer project_id ;
+	private final Integer component_id ;
+	private final String component_version ;
+	private final String infractions ;
+	private final String source ;
+	private final ArrayList<BomItem> items ;
+
+	/**
+	 * @param acronym
+	 * @param component
+	 * @param project_id
+	 * @param component_id may be null, e.g. when enforcing offline, and is then resolved from acronym and component when written
+	 * @param component_version
+	 * @param infractions
+	 * @param source toolchain identity, MavenEnforcer or GradleEnforcer
+	 * @param bom
+	 */
+	public BuildRecord( String acronym, String component, Integer project_id, Integer component_id, String component_version, String infractions, String source,
+			List<BomItem> bom ) {
+		this.build_ts = System.currentTimeMillis() ;
+		this.acronym = acronym ;
+		this.component = component ;
+		this.project_id = project_id ;
+		this.component_id = component_id ;
+		this.component_version = component_version ;
+		this.infractions = infractions ;
+		this.source = source ;
+		this.items = new ArrayList<BomItem>( bom ) ;
+	}
+
+	/** when the verdict was reached, which is not necessarily when the record is written. */
+	public long getBuild_ts() { return build_ts; }
+	public String getAcronym() { return acronym; }
+	public String getComponent() { return component; }
+	public Integer getProject_id() { return project_id; }
+	public Integer getComponent_id() { return component_id; }
+	public String getComponent_version() { return component_version; }
+	public String getInfractions() { return infractions; }
+	public String getSource() { return source; }
+	public List<BomItem> getItems() { return items; }
+}
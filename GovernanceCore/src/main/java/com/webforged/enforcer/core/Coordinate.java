@@ -0,0 +1,70 @@
+package com.webforged.enforcer.core;
+
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * An artifact's group, artifact and version, parsed once and shared.  Coordinates are interned, so the same GAV
+ * reached by every module of a build is one object, and its g:a:v key and hash are computed once.
+ */
+public final class Coordinate implements Serializable {
+	private static final long serialVersionUID = 4630184217645230195L;
+
+	private static final Map<Coordinate,WeakReference<Coordinate>> INTERNED = new WeakHashMap<Coordinate,WeakReference<Coordinate>>() ;
+
+	private final String groupId ;
+	private final String artifactId ;
+	private final String version ;
+	private final String key ;
+
+	private Coordinate( String groupId, String artifactId, String version ) {
+		this.groupId = groupId ;
+		this.artifactId = artifactId ;
+		this.version = version ;
+		this.key = groupId + ":" + artifactId + ":" + version ;
+	}
+
+	/**
+	 * @return the one instance for this group, artifact and version
+	 */
+	public static Coordinate of( String groupId, String artifactId, String version ) {
+		Coordinate c = new Coordinate( groupId, artifactId, version ) ;
+		synchronized( INTERNED ) {
+			WeakReference<Coordinate> ref = INTERNED.get( c ) ;
+			Coordinate interned = ref == null ? null : ref.get() ;
+			if( interned != null ) {
+				return interned ;
+			}
+			INTERNED.put( c, new WeakReference<Coordinate>(c) ) ;
+			return c ;
+		}
+	}
+
+	public String getGroupId() { return groupId; }
+	public String getArtifactId() { return artifactId; }
+	public String getVersion() { return version; }
+
+	/** group:artifact:version */
+	public String getKey() { return key; }
+
+	@Override
+	public boolean equals( Object o ) {
+		return o == this || ( o instanceof Coordinate && key.equals( ((Coordinate) o).key ) ) ;
+	}
+
+	@Override
+	public int hashCode() {
+		return key.hashCode() ;
+	}
+
+	@Override
+	public String toString() {
+		return key ;
+	}
+
+	private Object readResolve() {
+		return of( groupId, artifactId, version ) ;
+	}
+}
@@ -0,0 +1,48 @@
+package com.webforged.enforcer.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The distinct artifacts of a dependency graph, in the order first reached.  A GAV reached again through another
+ * trail is not added twice, and {@link #add} tells the caller so, letting a graph walk skip a subtree it has
+ * already been through.  What reaches the {@link PolicyEngine} is therefore one lookup per artifact however
+ * many trails lead to it.
+ */
+public class DependencySet {
+	private final Map<Coordinate,String> crumbs = new LinkedHashMap<Coordinate,String>() ;
+
+	/**
+	 * @param coordinate
+	 * @param crumb how the artifact was reached, used in infraction messages
+	 * @return false when the artifact is already in the set
+	 */
+	public boolean add( Coordinate coordinate, String crumb ) {
+		if( crumbs.containsKey(coordinate) ) {
+			return false ;
+		}
+		crumbs.put( coordinate, crumb ) ;
+		return true ;
+	}
+
+	public boolean add( String groupId, String artifactId, String version, String crumb ) {
+		return add( Coordinate.of(groupId, artifactId, version), crumb ) ;
+	}
+
+	public int size() {
+		return crumbs.size() ;
+	}
+
+	public Set<Coordinate> getCoordinates() {
+		return crumbs.keySet() ;
+	}
+
+	/**
+	 * @return how the artifact was reached, its g:a:v when not recorded
+	 */
+	public String getCrumb( Coordinate coordinate ) {
+		String crumb = crumbs.get( coordinate ) ;
+		return crumb == null ? coordinate.getKey() : crumb ;
+	}
+}
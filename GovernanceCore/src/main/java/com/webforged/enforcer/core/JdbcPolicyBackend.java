@@ -0,0 +1,63 @@
+package com.webforged.enforcer.core;
+
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+/**
+ * Policy straight from the governance database, resolved in bulk by {@link PolicyResolver}, optionally through
+ * a build wide {@link PolicyCache}.  Unknown artifacts get CREATED placeholders.
+ */
+public class JdbcPolicyBackend implements PolicyBackend {
+	private final DataSource dataSource ;
+	private final PolicyCache cache ;
+
+	/**
+	 * @param dataSource
+	 * @param cache the acronym's cache, may be null
+	 */
+	public JdbcPolicyBackend( DataSource dataSource, PolicyCache cache ) {
+		this.dataSource = dataSource ;
+		this.cache = cache ;
+	}
+
+	@Override
+	public Integer[] initProject( String acronym, String component ) throws Exception {
+		if( cache != null && cache.getComponentId(component) != null ) {
+			return new Integer[] { cache.getProjectId(), cache.getComponentId(component) } ;
+		}
+		Connection conn = null ;
+		try {
+			conn = dataSource.getConnection() ;
+			Integer[] info = ProjectIds.findOrCreate( conn, acronym, component, cache == null ? null : cache.getProjectId() ) ;
+			if( cache != null ) {
+				cache.putProjectInfo( component, info ) ;
+			}
+			return info ;
+		} finally {
+			try { if( conn != null ) conn.close(); } catch(Exception others) {}
+		}
+	}
+
+	@Override
+	public Map<Coordinate,ArtifactPolicy> resolve( String acronym, Integer project_id, Collection<Coordinate> coordinates ) throws Exception {
+		//
+		// Validate whether or not application(acronym) is allowed to use the artifacts.
+		// Can be: OSS or licensed. various levels of approval and overrides.
+		// If missing, then not approved.
+		//
+		Connection conn = null ;
+		try {
+			conn = dataSource.getConnection() ;
+			PolicyResolver resolver = new PolicyResolver() ;
+			if( cache != null ) {
+				return cache.resolve( conn, resolver, project_id, coordinates ) ;
+			}
+			return resolver.resolve( conn, project_id, coordinates ) ;
+		} finally {
+			try { if( conn != null ) conn.close(); } catch(Exception others) {}
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package com.webforged.enforcer.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Just enough JSON for {@link RestPolicyBackend}, so the plugins need no JSON library on their class path.
+ * Objects parse to maps, arrays to lists, numbers to Long or Double.
+ */
+final class Json {
+	private final String text ;
+	private int at ;
+
+	private Json( String text ) {
+		this.text = text ;
+	}
+
+	static Object parse( String text ) {
+		Json json = new Json( text ) ;
+		Object value = json.value() ;
+		json.skipSpace();
+		if( json.at != text.length() ) {
+			throw json.error( "trailing characters" ) ;
+		}
+		return value ;
+	}
+
+	static String quote( String s ) {
+		if( s == null ) {
+			return "null" ;
+		}
+		StringBuilder sb = new StringBuilder( s.length() + 2 ).append( '"' ) ;
+		for( int i = 0; i < s.length(); i++ ) {
+			char c = s.charAt( i ) ;
+			switch( c ) {
+				case '"': sb.append( "\\\"" ); break;
+				case '\\': sb.append( "\\\\" ); break;
+				case '\n': sb.append( "\\n" ); break;
+				case '\r': sb.append( "\\r" ); break;
+				case '\t': sb.append( "\\t" ); break;
+				default:
+					if( c < 0x20 ) {
+						sb.append( String.format("\\u%04x", (int) c) ) ;
+					} else {
+						sb.append( c ) ;
+					}
+			}
+		}
+		return sb.append( '"' ).toString() ;
+	}
+
+	private Object value() {
+		skipSpace();
+		if( at >= text.length() ) {
+			throw error( "unexpected end" ) ;
+		}
+		char c = text.charAt( at ) ;
+		switch( c ) {
+			case '{': return object() ;
+			case '[': return array() ;
+			case '"': return string() ;
+			case 't': return literal( "true", Boolean.TRUE ) ;
+			case 'f': return literal( "false", Boolean.FALSE ) ;
+			case 'n': return literal( "null", null ) ;
+			default: return number() ;
+		}
+	}
+
+	private Map<String,Object> object() {
+		Map<String,Object> map = new LinkedHashMap<String,Object>() ;
+		at++ ;
+		skipSpace();
+		if( peek('}') ) {
+			return map ;
+		}
+		do {
+			skipSpace();
+			String key = string() ;
+			skipSpace();
+			expect( ':' ) ;
+			map.put( key, value() ) ;
+			skipSpace();
+		} while( peek(',') ) ;
+		expect( '}' ) ;
+		return map ;
+	}
+
+	private List<Object> array() {
+		List<Object> list = new ArrayList<Object>() ;
+		at++ ;
+		skipSpace();
+		if( peek(']') ) {
+			return list ;
+		}
+		do {
+			list.add( value() ) ;
+			skipSpace();
+		} while( peek(',') ) ;
+		expect( ']' ) ;
+		return list ;
+	}
+
+	private String string() {
+		expect( '"' ) ;
+		StringBuilder sb = new StringBuilder() ;
+		while( true ) {
+			if( at >= text.length() ) {
+				throw error( "unterminated string" ) ;
+			}
+			char c = text.charAt( at++ ) ;
+			if( c == '"' ) {
+				return sb.toString() ;
+			}
+			if( c != '\\' ) {
+				sb.append( c ) ;
+				continue ;
+			}
+			char e = text.charAt( at++ ) ;
+			switch( e ) {
+				case 'b': sb.append( '\b' ); break;
+				case 'f': sb.append( '\f' ); break;
+				case 'n': sb.append( '\n' ); break;
+				case 'r': sb.append( '\r' ); break;
+				case 't': sb.append( '\t' ); break;
+				case 'u':
+					sb.append( (char) Integer.parseInt( text.substring(at, at + 4), 16 ) ) ;
+					at += 4 ;
+					break;
+				default: sb.append( e );
+			}
+		}
+	}
+
+	private Object number() {
+		int start = at ;
+		while( at < text.length() && "+-0123456789.eE".indexOf(text.charAt(at)) >= 0 ) {
+			at++ ;
+		}
+		String n = text.substring( start, at ) ;
+		if( n.isEmpty() ) {
+			throw error( "unexpected character" ) ;
+		}
+		if( n.indexOf('.') >= 0 || n.indexOf('e') >= 0 || n.indexOf('E') >= 0 ) {
+			return Double.valueOf( n ) ;
+		}
+		return Long.valueOf( n ) ;
+	}
+
+	private Object literal( String word, Object value ) {
+		if( !text.startsWith(word, at) ) {
+			throw error( "unexpected character" ) ;
+		}
+		at += word.length() ;
+		return value ;
+	}
+
+	private void skipSpace() {
+		while( at < text.length() && Character.isWhitespace(text.charAt(at)) ) {
+			at++ ;
+		}
+	}
+
+	private boolean peek( char c ) {
+		if( at < text.length() && text.charAt(at) == c ) {
+			at++ ;
+			return true ;
+		}
+		return false ;
+	}
+
+	private void expect( char c ) {
+		if( !peek(c) ) {
+			throw error( "expected '" + c + "'" ) ;
+		}
+	}
+
+	private IllegalArgumentException error( String what ) {
+		return new IllegalArgumentException( "Malformed JSON, " + what + " at " + at ) ;
+	}
+}
@@ -0,0 +1,65 @@
+package com.webforged.enforcer.core;
+
+/**
+ * The artifact lifecycle and its decision, in one place for every toolchain and policy source.
+ */
+public final class Lifecycle {
+	/**
+	 * Artifacts.status values.  The ordinal is the status code of a {@link PolicySnapshot}, never reorder.
+	 */
+	public enum STATUS_TYPES {
+		CREATED ("CREATED"),
+		GA ("GA"),
+		DEPRECATED ("DEPRECATED"),
+		LIMITED ("LIMITED"),
+		LIMITED_DEPRECATED ("LIMITED_DEPRECATED"),
+		RETIRED ("RETIRED") ;
+		public final String label;
+		private STATUS_TYPES(String label) {
+			this.label = label;
+		}
+	} ;
+
+	private Lifecycle() {}
+
+	/**
+	 * GA and DEPRECATED are usable by anybody, LIMITED and LIMITED_DEPRECATED require a grant in AllowedArtifacts,
+	 * or LicensedArtifacts for vendor licensed artifacts.  CREATED and RETIRED are never usable.
+	 */
+	public static boolean isAllowed( String status, boolean vendorLicensed, boolean hasAllowedGrant, boolean hasLicensedGrant ) {
+		if( status == null ) {
+			return false ;
+		}
+		boolean isAllowed = false ;
+		STATUS_TYPES t = STATUS_TYPES.valueOf( status ) ;
+		switch( t ) {
+			case GA:
+			case DEPRECATED:
+				isAllowed = true;
+				break;
+			case LIMITED:
+			case LIMITED_DEPRECATED:
+				isAllowed = vendorLicensed ? hasLicensedGrant : hasAllowedGrant ;
+				break;
+			case RETIRED:
+			case CREATED:
+				isAllowed = false;
+				break;
+			default:
+				break;
+		}
+		return isAllowed ;
+	}
+
+	static boolean isLimited( String status ) {
+		return STATUS_TYPES.LIMITED.label.equals(status) || STATUS_TYPES.LIMITED_DEPRECATED.label.equals(status) ;
+	}
+
+	static byte code( String status ) {
+		return (byte) STATUS_TYPES.valueOf( status ).ordinal() ;
+	}
+
+	static String status( byte code ) {
+		return STATUS_TYPES.values()[ code ].label ;
+	}
+}
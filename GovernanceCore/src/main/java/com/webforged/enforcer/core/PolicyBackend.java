@@ -0,0 +1,27 @@
+package com.webforged.enforcer.core;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Where a {@link PolicyEngine} gets its policy from: the governance database, EnforcerServices, or a policy snapshot.
+ */
+public interface PolicyBackend {
+	/**
+	 * @param acronym
+	 * @param component
+	 * @return project_id and component_id, either may be null when the backend cannot tell.  The BOM writer
+	 *         resolves missing ids when the build is written.
+	 * @throws Exception
+	 */
+	Integer[] initProject( String acronym, String component ) throws Exception ;
+
+	/**
+	 * @param acronym
+	 * @param project_id may be null
+	 * @param coordinates distinct artifacts
+	 * @return policy per coordinate, every coordinate present
+	 * @throws Exception
+	 */
+	Map<Coordinate,ArtifactPolicy> resolve( String acronym, Integer project_id, Collection<Coordinate> coordinates ) throws Exception ;
+}
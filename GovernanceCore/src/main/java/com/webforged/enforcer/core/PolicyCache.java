@@ -0,0 +1,116 @@
+package com.webforged.enforcer.core;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Build wide policy of one acronym.  The first module of a build loads the project's grants and whatever
+ * artifacts it uses, every later module resolves from memory and only goes to the database for artifacts
+ * nobody in the build has asked about yet.
+ *
+ * The plugins keep one per acronym for the life of a build, a TTL bounds how stale a long running build may get.
+ */
+public class PolicyCache {
+	private final long expires ;
+	private Integer project_id ;
+	private final Map<String,Integer> components = new HashMap<String,Integer>() ;
+	private Integer grantsProject_id ;
+	private Set<Integer> allowedGrants ;
+	private Set<Integer> licensedGrants ;
+	private final Map<Coordinate,ArtifactPolicy> artifacts = new HashMap<Coordinate,ArtifactPolicy>() ;
+
+	public PolicyCache( long ttlSeconds ) {
+		this.expires = System.currentTimeMillis() + ttlSeconds * 1000L ;
+	}
+
+	public boolean isExpired() {
+		return System.currentTimeMillis() > expires ;
+	}
+
+	synchronized Integer getProjectId() {
+		return project_id ;
+	}
+
+	synchronized Integer getComponentId( String component ) {
+		return components.get( component ) ;
+	}
+
+	synchronized void putProjectInfo( String component, Integer[] info ) {
+		if( info[0] != null ) {
+			project_id = info[0] ;
+		}
+		if( info[1] != null ) {
+			components.put( component, info[1] ) ;
+		}
+	}
+
+	/**
+	 * Resolve the policy of every coordinate, going to the database only for artifacts not already in the snapshot.
+	 * The project's grants are loaded once its id is known, and again should the id change.  Until then nothing
+	 * is granted, and nothing is cached that would keep a later module from loading them.
+	 * @param conn
+	 * @param resolver
+	 * @param project_id the caller's, else the one putProjectInfo was given
+	 * @param coordinates
+	 * @return policies keyed by coordinate
+	 * @throws Exception
+	 */
+	synchronized Map<Coordinate,ArtifactPolicy> resolve( Connection conn, PolicyResolver resolver, Integer project_id,
+			Collection<Coordinate> coordinates ) throws Exception {
+		Integer grantee = project_id != null ? project_id : this.project_id ;
+		Set<Integer> allowed = Collections.emptySet() ;
+		Set<Integer> licensed = Collections.emptySet() ;
+		if( grantee != null ) {
+			if( allowedGrants == null || !grantee.equals(grantsProject_id) ) {
+				Set<Integer> a = new HashSet<Integer>() ;
+				Set<Integer> l = new HashSet<Integer>() ;
+				resolver.loadGrants( conn, grantee, a, l ) ;
+				allowedGrants = a ;
+				licensedGrants = l ;
+				grantsProject_id = grantee ;
+			}
+			allowed = allowedGrants ;
+			licensed = licensedGrants ;
+		}
+
+		Set<Coordinate> misses = new LinkedHashSet<Coordinate>() ;
+		for( Coordinate c : coordinates ) {
+			if( !artifacts.containsKey(c) ) {
+				misses.add( c ) ;
+			}
+		}
+
+		Map<Coordinate,ArtifactPolicy> policies = new LinkedHashMap<Coordinate,ArtifactPolicy>() ;
+		if( !misses.isEmpty() ) {
+			Map<Coordinate,ArtifactPolicy> found = resolver.findArtifacts( conn, new ArrayList<Coordinate>(misses) ) ;
+			artifacts.putAll( found ) ;
+			List<Coordinate> missing = new ArrayList<Coordinate>() ;
+			for( Coordinate c : misses ) {
+				if( !found.containsKey(c) ) {
+					missing.add( c ) ;
+					// this build reports the artifact as unknown, but is what creates it.
+					policies.put( c, new ArtifactPolicy() ) ;
+				}
+			}
+			if( !missing.isEmpty() ) {
+				artifacts.putAll( resolver.insertPlaceholders( conn, missing ) ) ;
+			}
+		}
+
+		for( Coordinate c : coordinates ) {
+			if( !policies.containsKey(c) ) {
+				policies.put( c, artifacts.get(c).decide( allowed, licensed ) ) ;
+			}
+		}
+		return policies ;
+	}
+}
@@ -0,0 +1,113 @@
+package com.webforged.enforcer.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The enforcement run shared by the Maven rule and the Gradle task: find the build's project, resolve the policy of
+ * every dependency in one go, and turn the decisions into infractions and a bill of materials.
+ */
+public class PolicyEngine {
+	static final Logger log = LoggerFactory.getLogger( PolicyEngine.class ) ;
+
+	private final PolicyBackend backend ;
+
+	public PolicyEngine( PolicyBackend backend ) {
+		this.backend = backend ;
+	}
+
+	/**
+	 * @param acronym
+	 * @param component
+	 * @param version component version
+	 * @param dependencies the artifacts to govern and how each was reached
+	 * @return the verdict, failed when any dependency is not allowed
+	 */
+	public Verdict enforce( String acronym, String component, String version, DependencySet dependencies ) {
+		Integer[] info ;
+		try {
+			info = backend.initProject( acronym, component ) ;
+		} catch( Exception others ) {
+			// the BOM writer resolves the ids later, enforcement goes on without them.
+			log.error( "initProject failure: " + others.toString(), others ) ;
+			info = new Integer[] { null, null } ;
+		}
+
+		Map<Coordinate,ArtifactPolicy> policies = null ;
+		String resolutionError = null ;
+		try {
+			policies = backend.resolve( acronym, info[0], dependencies.getCoordinates() ) ;
+		} catch( Exception any ) {
+			resolutionError = "??? " + any.toString() ;
+			log.error( any.toString(), any );
+		}
+
+		StringBuilder infractions = new StringBuilder() ;
+		List<BomItem> bom = new ArrayList<BomItem>( dependencies.size() ) ;
+		boolean failed = false ;
+		for( Coordinate coordinate : dependencies.getCoordinates() ) {
+			ArtifactPolicy policy = policies == null ? null : policies.get( coordinate ) ;
+			boolean allowed = policy != null && policy.isAllowed() ;
+			if( allowed == false ) {
+				failed = true;
+				StringBuilder msg = new StringBuilder( "Unauthorized Library Usage: " ).append( dependencies.getCrumb(coordinate) ).append( "\n" ) ;
+				if( resolutionError != null ) {
+					msg.append( resolutionError ) ;
+				}
+				if( log.isDebugEnabled() ) {
+					log.debug( msg.toString() );
+				}
+				infractions.append( "\t" ).append( msg ).append( "\n" ) ;
+			}
+
+			//
+			// ADD TO A BILL OF MATERIALS.
+			//
+			// get a snapshot of the status of this artifact as it stands currently.
+			//
+			bom.add( new BomItem( coordinate, policy == null ? "" : policy.getStatusSnapshot(), allowed ) ) ;
+		}
+		return new Verdict( acronym, component, info[0], info[1], version, infractions.toString(), bom, failed ) ;
+	}
+
+	/**
+	 * Outcome of one enforcement run.
+	 */
+	public static class Verdict {
+		private final String acronym ;
+		private final String component ;
+		private final Integer project_id ;
+		private final Integer component_id ;
+		private final String version ;
+		private final String infractions ;
+		private final List<BomItem> bom ;
+		private final boolean failed ;
+
+		Verdict( String acronym, String component, Integer project_id, Integer component_id, String version,
+				String infractions, List<BomItem> bom, boolean failed ) {
+			this.acronym = acronym ;
+			this.component = component ;
+			this.project_id = project_id ;
+			this.component_id = component_id ;
+			this.version = version ;
+			this.infractions = infractions ;
+			this.bom = bom ;
+			this.failed = failed ;
+		}
+
+		public boolean isFailed() { return failed; }
+		public String getInfractions() { return infractions; }
+		public List<BomItem> getBom() { return bom; }
+
+		/**
+		 * @param source toolchain identity, MavenEnforcer or GradleEnforcer
+		 */
+		public BuildRecord toBuildRecord( String source ) {
+			return new BuildRecord( acronym, component, project_id, component_id, version, infractions, source, bom ) ;
+		}
+	}
+}
@@ -0,0 +1,272 @@
+package com.webforged.enforcer.core;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.webforged.enforcer.core.Lifecycle.STATUS_TYPES;
+
+/**
+ * Resolves the usage policy of a whole set of artifacts at once.  Instead of a round-trip per dependency,
+ * the coordinates are handed to the database as a multi-row VALUES table and joined against Artifacts, then
+ * the project's grants for any LIMITED artifacts are fetched with one UNION ALL query.  Statements are chunked
+ * so very large dependency sets stay under driver parameter limits.
+ *
+ * The SQL is PostgreSQL's, the placeholders are written with ON CONFLICT ... RETURNING.  It does not run on
+ * Derby, whatever client is on the classpath.
+ */
+class PolicyResolver {
+	static final int CHUNK_SIZE = 500 ;
+
+	static final Logger log = LoggerFactory.getLogger( PolicyResolver.class ) ;
+
+	// the order placeholders are inserted in.
+	static final Comparator<Coordinate> COORDINATE_ORDER = new Comparator<Coordinate>() {
+		@Override
+		public int compare( Coordinate a, Coordinate b ) {
+			int c = a.getGroupId().compareTo( b.getGroupId() ) ;
+			if( c == 0 ) c = a.getArtifactId().compareTo( b.getArtifactId() ) ;
+			if( c == 0 ) c = a.getVersion().compareTo( b.getVersion() ) ;
+			return c ;
+		}
+	} ;
+
+	/**
+	 * Resolve the policy for every coordinate.  Unknown artifacts get a CREATED placeholder inserted so they
+	 * are easy to approve later, and are reported as not allowed.
+	 * @param conn
+	 * @param project_id
+	 * @param coordinates duplicates are resolved once.
+	 * @return policies keyed by coordinate
+	 * @throws Exception
+	 */
+	Map<Coordinate,ArtifactPolicy> resolve( Connection conn, Integer project_id, Collection<Coordinate> coordinates ) throws Exception {
+		List<Coordinate> wanted = new ArrayList<Coordinate>( new LinkedHashSet<Coordinate>(coordinates) ) ;
+
+		Map<Coordinate,ArtifactPolicy> found = findArtifacts( conn, wanted ) ;
+
+		//
+		// only LIMITED artifacts need a grant lookup.
+		//
+		List<Integer> limited = new ArrayList<Integer>() ;
+		for( ArtifactPolicy p : found.values() ) {
+			if( Lifecycle.isLimited(p.status) ) {
+				limited.add( p.artifact_id ) ;
+			}
+		}
+		Set<Integer> allowedGrants = new HashSet<Integer>() ;
+		Set<Integer> licensedGrants = new HashSet<Integer>() ;
+		if( project_id != null && !limited.isEmpty() ) {
+			findGrants( conn, project_id, limited, allowedGrants, licensedGrants ) ;
+		}
+
+		Map<Coordinate,ArtifactPolicy> policies = new LinkedHashMap<Coordinate,ArtifactPolicy>() ;
+		List<Coordinate> missing = new ArrayList<Coordinate>() ;
+		for( Coordinate c : wanted ) {
+			ArtifactPolicy p = found.get( c ) ;
+			if( p == null ) {
+				missing.add( c ) ;
+				policies.put( c, new ArtifactPolicy() ) ;
+			} else {
+				policies.put( c, p.decide( allowedGrants, licensedGrants ) ) ;
+			}
+		}
+		if( !missing.isEmpty() ) {
+			insertPlaceholders( conn, missing ) ;
+		}
+		return policies ;
+	}
+
+	Map<Coordinate,ArtifactPolicy> findArtifacts( Connection conn, List<Coordinate> gavs ) throws Exception {
+		Map<Coordinate,ArtifactPolicy> found = new LinkedHashMap<Coordinate,ArtifactPolicy>() ;
+		PreparedStatement ps = null ;
+		ResultSet rs = null ;
+		try {
+			for( int from = 0; from < gavs.size(); from += CHUNK_SIZE ) {
+				List<Coordinate> chunk = gavs.subList( from, Math.min(from + CHUNK_SIZE, gavs.size()) ) ;
+				StringBuilder query = new StringBuilder(
+						"SELECT a.artifact_id, a.group_name, a.artifact_name, a.version_name, a.status, a.is_vendor_licensed " +
+						"FROM Artifacts a JOIN (VALUES " ) ;
+				for( int i = 0; i < chunk.size(); i++ ) {
+					if( i == 0 ) {
+						// typed first row so the VALUES columns are varchar like the Artifacts columns they are joined to.
+						query.append( "(CAST(? AS VARCHAR(256)),CAST(? AS VARCHAR(256)),CAST(? AS VARCHAR(256)))" ) ;
+					} else {
+						query.append( ",(?,?,?)" ) ;
+					}
+				}
+				query.append( ") AS v(group_name, artifact_name, version_name) " +
+						"ON a.group_name = v.group_name AND a.artifact_name = v.artifact_name AND a.version_name = v.version_name" ) ;
+
+				ps = conn.prepareStatement( query.toString() ) ;
+				int idx = 1 ;
+				for( Coordinate gav : chunk ) {
+					ps.setString( idx++, gav.getGroupId() );
+					ps.setString( idx++, gav.getArtifactId() );
+					ps.setString( idx++, gav.getVersion() );
+				}
+				rs = ps.executeQuery() ;
+				while( rs.next() ) {
+					ArtifactPolicy p = new ArtifactPolicy() ;
+					p.artifact_id = rs.getInt("artifact_id") ;
+					p.status = rs.getString("status") ;
+					p.vendorLicensed = rs.getBoolean("is_vendor_licensed") ;
+					found.put( Coordinate.of( rs.getString("group_name"), rs.getString("artifact_name"), rs.getString("version_name") ), p ) ;
+				}
+				rs.close(); rs = null;
+				ps.close(); ps = null;
+			}
+		} finally {
+			try { if( rs != null ) rs.close(); } catch(Exception others) {}
+			try { if( ps != null ) ps.close(); } catch(Exception others) {}
+		}
+		return found ;
+	}
+
+	private void findGrants( Connection conn, Integer project_id, List<Integer> artifact_ids,
+			Set<Integer> allowedGrants, Set<Integer> licensedGrants ) throws Exception {
+		PreparedStatement ps = null ;
+		try {
+			for( int from = 0; from < artifact_ids.size(); from += CHUNK_SIZE ) {
+				List<Integer> chunk = artifact_ids.subList( from, Math.min(from + CHUNK_SIZE, artifact_ids.size()) ) ;
+				String in = inList( chunk.size() ) ;
+				String query = "SELECT artifact_id, 'A' AS grant_type FROM AllowedArtifacts WHERE project_id = ? AND artifact_id IN " + in +
+						" UNION ALL " +
+						"SELECT artifact_id, 'L' AS grant_type FROM LicensedArtifacts WHERE project_id = ? AND artifact_id IN " + in ;
+				ps = conn.prepareStatement( query ) ;
+				int idx = 1 ;
+				for( int pass = 0; pass < 2; pass++ ) {
+					ps.setInt( idx++, project_id );
+					for( Integer id : chunk ) {
+						ps.setInt( idx++, id );
+					}
+				}
+				readGrants( ps, allowedGrants, licensedGrants ) ;
+				ps.close(); ps = null;
+			}
+		} finally {
+			try { if( ps != null ) ps.close(); } catch(Exception others) {}
+		}
+	}
+
+	/**
+	 * Load every AllowedArtifacts and LicensedArtifacts grant held by the project.
+	 */
+	void loadGrants( Connection conn, Integer project_id, Set<Integer> allowedGrants, Set<Integer> licensedGrants ) throws Exception {
+		PreparedStatement ps = null ;
+		try {
+			ps = conn.prepareStatement(
+					"SELECT artifact_id, 'A' AS grant_type FROM AllowedArtifacts WHERE project_id = ? " +
+					"UNION ALL " +
+					"SELECT artifact_id, 'L' AS grant_type FROM LicensedArtifacts WHERE project_id = ?" ) ;
+			ps.setInt( 1, project_id );
+			ps.setInt( 2, project_id );
+			readGrants( ps, allowedGrants, licensedGrants ) ;
+		} finally {
+			try { if( ps != null ) ps.close(); } catch(Exception others) {}
+		}
+	}
+
+	private static void readGrants( PreparedStatement ps, Set<Integer> allowedGrants, Set<Integer> licensedGrants ) throws Exception {
+		ResultSet rs = ps.executeQuery() ;
+		try {
+			while( rs.next() ) {
+				if( "A".equals(rs.getString("grant_type")) ) {
+					allowedGrants.add( rs.getInt("artifact_id") ) ;
+				} else {
+					licensedGrants.add( rs.getInt("artifact_id") ) ;
+				}
+			}
+		} finally {
+			try { rs.close(); } catch(Exception others) {}
+		}
+	}
+
+	/**
+	 * One multi-row INSERT per chunk, its rows in coordinate order so parallel builds inserting overlapping sets
+	 * take their index locks in the same order and cannot deadlock.  A placeholder a parallel build created in the
+	 * meantime is skipped by the unique Artifact_mvn_idx and read back afterwards, with whatever status it has.
+	 * @return the placeholders, and the artifacts that turned out to exist, keyed by coordinate
+	 * @throws Exception when the placeholders could not be written or read back
+	 */
+	Map<Coordinate,ArtifactPolicy> insertPlaceholders( Connection conn, List<Coordinate> missing ) throws Exception {
+		//
+		// insert placeholder records....EnforcerServices' PlaceholderPruner deletes them if never used.
+		// inserting them makes it easier to approve if warranted.
+		//
+		Map<Coordinate,ArtifactPolicy> created = new LinkedHashMap<Coordinate,ArtifactPolicy>() ;
+		List<Coordinate> gavs = new ArrayList<Coordinate>( new LinkedHashSet<Coordinate>(missing) ) ;
+		Collections.sort( gavs, COORDINATE_ORDER ) ;
+		PreparedStatement ps = null ;
+		ResultSet rs = null ;
+		try {
+			java.sql.Timestamp now = new java.sql.Timestamp( System.currentTimeMillis() ) ;
+			for( int from = 0; from < gavs.size(); from += CHUNK_SIZE ) {
+				List<Coordinate> chunk = gavs.subList( from, Math.min(from + CHUNK_SIZE, gavs.size()) ) ;
+				StringBuilder query = new StringBuilder( "INSERT INTO Artifacts(group_name,artifact_name,version_name,status,created_date) VALUES " ) ;
+				for( int i = 0; i < chunk.size(); i++ ) {
+					query.append( i == 0 ? "(?,?,?,?,?)" : ",(?,?,?,?,?)" ) ;
+				}
+				query.append( " ON CONFLICT (group_name,artifact_name,version_name) DO NOTHING" +
+						" RETURNING artifact_id, group_name, artifact_name, version_name, status, is_vendor_licensed" ) ;
+				ps = conn.prepareStatement( query.toString() ) ;
+				int idx = 1 ;
+				for( Coordinate gav : chunk ) {
+					ps.setString( idx++, gav.getGroupId() );
+					ps.setString( idx++, gav.getArtifactId() );
+					ps.setString( idx++, gav.getVersion() );
+					ps.setString( idx++, STATUS_TYPES.CREATED.label );
+					ps.setTimestamp( idx++, now );
+				}
+				rs = ps.executeQuery() ;
+				while( rs.next() ) {
+					ArtifactPolicy p = new ArtifactPolicy() ;
+					p.artifact_id = rs.getInt( "artifact_id" ) ;
+					p.status = rs.getString( "status" ) ;
+					p.vendorLicensed = rs.getBoolean( "is_vendor_licensed" ) ;
+					created.put( Coordinate.of( rs.getString("group_name"), rs.getString("artifact_name"), rs.getString("version_name") ), p ) ;
+					String amsg = String.format( "***NOTICE***:  Created placeholder Artifact for  %s :: %s :: %s that must be approved. Artifact Id is %d",
+							rs.getString("group_name"), rs.getString("artifact_name"), rs.getString("version_name"), p.artifact_id ) ;
+					log.warn( amsg ) ;
+				}
+				rs.close(); rs = null;
+				ps.close(); ps = null;
+			}
+		} finally {
+			try { if( rs != null ) rs.close(); } catch(Exception others) {}
+			try { if( ps != null ) ps.close(); } catch(Exception others) {}
+		}
+
+		List<Coordinate> existing = new ArrayList<Coordinate>() ;
+		for( Coordinate c : gavs ) {
+			if( !created.containsKey(c) ) {
+				existing.add( c ) ;
+			}
+		}
+		if( !existing.isEmpty() ) {
+			created.putAll( findArtifacts( conn, existing ) ) ;
+		}
+		return created ;
+	}
+
+	private static String inList( int size ) {
+		StringBuilder sb = new StringBuilder( "(" ) ;
+		for( int i = 0; i < size; i++ ) {
+			sb.append( i == 0 ? "?" : ",?" ) ;
+		}
+		return sb.append( ")" ).toString() ;
+	}
+}
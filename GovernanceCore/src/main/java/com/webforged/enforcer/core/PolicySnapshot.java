@@ -0,0 +1,283 @@
+package com.webforged.enforcer.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Read only, memory mapped policy of one acronym: the status of every artifact folded together with the
+ * project's AllowedArtifacts and LicensedArtifacts grants.  EnforcerServices writes it, the build plugins map it
+ * and binary search it in place, so a lookup costs no database round-trip and no up front parsing.
+ *
+ * Layout, big endian:
+ * <pre>
+ *   int   MAGIC
+ *   int   project_id, -1 when the acronym has no project
+ *   int   count
+ *   int[] count entry offsets, ordered by the unsigned bytes of their keys
+ *   entry short key length, UTF-8 key group:artifact:version, int artifact_id, byte status code, byte flags
+ * </pre>
+ */
+public class PolicySnapshot {
+	static final int MAGIC = 0x474F5631 ; // GOV1
+	static final int HEADER = 12 ;
+	static final byte VENDOR_LICENSED = 1 ;
+	static final byte ALLOWED_GRANT = 2 ;
+	static final byte LICENSED_GRANT = 4 ;
+
+	private final ByteBuffer buf ;
+	private final int count ;
+	private final Integer project_id ;
+	// artifact_id << 32 | position of the entry's flags, sorted, built the first time grants are applied.
+	private volatile long[] byId ;
+
+	private PolicySnapshot( ByteBuffer buf ) throws IOException {
+		if( buf.limit() < HEADER || buf.getInt(0) != MAGIC ) {
+			throw new IOException( "Not a policy snapshot" ) ;
+		}
+		this.buf = buf ;
+		int pid = buf.getInt( 4 ) ;
+		this.project_id = pid < 0 ? null : pid ;
+		this.count = buf.getInt( 8 ) ;
+	}
+
+	/**
+	 * Map a snapshot file.  The mapping outlives the channel, and survives the file being replaced by a newer download.
+	 */
+	public static PolicySnapshot map( File file ) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile( file, "r" ) ;
+		try {
+			FileChannel ch = raf.getChannel() ;
+			return new PolicySnapshot( ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()) ) ;
+		} finally {
+			try { raf.close(); } catch(Exception others) {}
+		}
+	}
+
+	public static PolicySnapshot wrap( byte[] bytes ) throws IOException {
+		return new PolicySnapshot( ByteBuffer.wrap(bytes) ) ;
+	}
+
+	public Integer getProjectId() {
+		return project_id ;
+	}
+
+	public int size() {
+		return count ;
+	}
+
+	/**
+	 * @return the artifact's policy, null when the snapshot does not know it
+	 */
+	public Entry find( String groupId, String artifactId, String version ) {
+		byte[] key = key( groupId, artifactId, version ) ;
+		int lo = 0 ;
+		int hi = count - 1 ;
+		while( lo <= hi ) {
+			int mid = (lo + hi) >>> 1 ;
+			int at = buf.getInt( HEADER + mid * 4 ) ;
+			int cmp = compareAt( at, key ) ;
+			if( cmp < 0 ) {
+				lo = mid + 1 ;
+			} else if( cmp > 0 ) {
+				hi = mid - 1 ;
+			} else {
+				int p = at + 2 + key.length ;
+				return new Entry( buf.getInt(p), Lifecycle.status(buf.get(p + 4)), buf.get(p + 5) ) ;
+			}
+		}
+		return null ;
+	}
+
+	private int compareAt( int at, byte[] key ) {
+		int len = buf.getShort( at ) & 0xFFFF ;
+		int n = Math.min( len, key.length ) ;
+		for( int i = 0; i < n; i++ ) {
+			int c = (buf.get(at + 2 + i) & 0xFF) - (key[i] & 0xFF) ;
+			if( c != 0 ) {
+				return c ;
+			}
+		}
+		return len - key.length ;
+	}
+
+	/**
+	 * This snapshot as seen by a project holding the given grants, read from the shared bytes with the project id
+	 * and the flags of the granted artifacts put in as they go by.  The snapshot is expected to hold no grants of
+	 * its own, as the snapshot shared by all acronyms does, and is not copied.
+	 * @param project_id null when the acronym has no project
+	 */
+	public InputStream openWithGrants( Integer project_id, Set<Integer> allowedGrants, Set<Integer> licensedGrants ) {
+		long[] byId = this.byId ;
+		if( byId == null ) {
+			byId = new long[ count ] ;
+			for( int i = 0; i < count; i++ ) {
+				int at = buf.getInt( HEADER + i * 4 ) ;
+				int p = at + 2 + (buf.getShort(at) & 0xFFFF) ;
+				byId[i] = ((long) buf.getInt(p) << 32) | (p + 5) ;
+			}
+			Arrays.sort( byId ) ;
+			this.byId = byId ;
+		}
+		TreeMap<Integer,Byte> patches = new TreeMap<Integer,Byte>() ;
+		int pid = project_id == null ? -1 : project_id ;
+		for( int i = 0; i < 4; i++ ) {
+			patches.put( 4 + i, (byte)( pid >>> (24 - 8 * i) ) ) ;
+		}
+		grant( byId, allowedGrants, ALLOWED_GRANT, patches ) ;
+		grant( byId, licensedGrants, LICENSED_GRANT, patches ) ;
+		return new PatchedStream( buf.duplicate(), patches ) ;
+	}
+
+	private void grant( long[] byId, Set<Integer> grants, byte flag, TreeMap<Integer,Byte> patches ) {
+		for( Integer artifact_id : grants ) {
+			int i = Arrays.binarySearch( byId, (long) artifact_id << 32 ) ;
+			for( i = i < 0 ? -i - 1 : i; i < byId.length && (int)( byId[i] >> 32 ) == artifact_id; i++ ) {
+				int p = (int) byId[i] ;
+				Byte flags = patches.get( p ) ;
+				patches.put( p, (byte)( (flags == null ? buf.get(p) & VENDOR_LICENSED : flags) | flag ) ) ;
+			}
+		}
+	}
+
+	/**
+	 * The bytes of a buffer with some of them replaced.
+	 */
+	static class PatchedStream extends InputStream {
+		private final ByteBuffer buf ;
+		private final TreeMap<Integer,Byte> patches ;
+
+		PatchedStream( ByteBuffer buf, TreeMap<Integer,Byte> patches ) {
+			buf.position( 0 ) ;
+			this.buf = buf ;
+			this.patches = patches ;
+		}
+
+		@Override
+		public int read() {
+			byte[] one = new byte[1] ;
+			return read( one, 0, 1 ) < 0 ? -1 : one[0] & 0xFF ;
+		}
+
+		@Override
+		public int read( byte[] b, int off, int len ) {
+			if( !buf.hasRemaining() ) {
+				return -1 ;
+			}
+			int at = buf.position() ;
+			Byte patch = patches.get( at ) ;
+			if( patch != null ) {
+				if( len == 0 ) {
+					return 0 ;
+				}
+				b[off] = patch ;
+				buf.position( at + 1 ) ;
+				return 1 ;
+			}
+			Integer next = patches.higherKey( at ) ;
+			int n = Math.min( len, Math.min(buf.remaining(), next == null ? Integer.MAX_VALUE : next - at) ) ;
+			buf.get( b, off, n ) ;
+			return n ;
+		}
+
+		@Override
+		public int available() {
+			return buf.remaining() ;
+		}
+	}
+
+	static byte[] key( String groupId, String artifactId, String version ) {
+		return ( groupId + ":" + artifactId + ":" + version ).getBytes( StandardCharsets.UTF_8 ) ;
+	}
+
+	static int compare( byte[] a, byte[] b ) {
+		int n = Math.min( a.length, b.length ) ;
+		for( int i = 0; i < n; i++ ) {
+			int c = (a[i] & 0xFF) - (b[i] & 0xFF) ;
+			if( c != 0 ) {
+				return c ;
+			}
+		}
+		return a.length - b.length ;
+	}
+
+	/**
+	 * One artifact as seen by the snapshot's project.
+	 */
+	public static class Entry {
+		private final int artifact_id ;
+		private final String status ;
+		private final byte flags ;
+
+		Entry( int artifact_id, String status, byte flags ) {
+			this.artifact_id = artifact_id ;
+			this.status = status ;
+			this.flags = flags ;
+		}
+
+		public int getArtifact_id() { return artifact_id; }
+		public String getStatus() { return status; }
+		public boolean isVendorLicensed() { return (flags & VENDOR_LICENSED) != 0; }
+		public boolean hasAllowedGrant() { return (flags & ALLOWED_GRANT) != 0; }
+		public boolean hasLicensedGrant() { return (flags & LICENSED_GRANT) != 0; }
+
+		public boolean isAllowed() {
+			return Lifecycle.isAllowed( status, isVendorLicensed(), hasAllowedGrant(), hasLicensedGrant() ) ;
+		}
+	}
+
+	/**
+	 * Builds the snapshot bytes, entries may be added in any order.
+	 */
+	public static class Writer {
+		private final Integer project_id ;
+		private final List<Object[]> entries = new ArrayList<Object[]>() ;
+
+		public Writer( Integer project_id ) {
+			this.project_id = project_id ;
+		}
+
+		public Writer add( String groupId, String artifactId, String version, int artifact_id, String status,
+				boolean vendorLicensed, boolean allowedGrant, boolean licensedGrant ) {
+			byte flags = (byte)( (vendorLicensed ? VENDOR_LICENSED : 0) | (allowedGrant ? ALLOWED_GRANT : 0) | (licensedGrant ? LICENSED_GRANT : 0) ) ;
+			entries.add( new Object[] { key(groupId, artifactId, version), artifact_id, Lifecycle.code(status), flags } ) ;
+			return this ;
+		}
+
+		public byte[] toByteArray() throws IOException {
+			entries.sort( (a, b) -> compare( (byte[]) a[0], (byte[]) b[0] ) ) ;
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream( HEADER + entries.size() * 64 ) ;
+			DataOutputStream out = new DataOutputStream( bytes ) ;
+			out.writeInt( MAGIC ) ;
+			out.writeInt( project_id == null ? -1 : project_id ) ;
+			out.writeInt( entries.size() ) ;
+			int offset = HEADER + entries.size() * 4 ;
+			for( Object[] e : entries ) {
+				out.writeInt( offset ) ;
+				offset += 2 + ((byte[]) e[0]).length + 6 ;
+			}
+			for( Object[] e : entries ) {
+				byte[] key = (byte[]) e[0] ;
+				out.writeShort( key.length ) ;
+				out.write( key ) ;
+				out.writeInt( (Integer) e[1] ) ;
+				out.writeByte( (Byte) e[2] ) ;
+				out.writeByte( (Byte) e[3] ) ;
+			}
+			out.flush();
+			return bytes.toByteArray() ;
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package com.webforged.enforcer.core;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+
+/**
+ * The bounded, validated connection pool each plugin keeps for the life of a build.
+ */
+public final class Pools {
+	static final long MAX_WAIT_MILLIS = 30000L ;
+	static final int VALIDATION_TIMEOUT_SECONDS = 5 ;
+
+	private Pools() {}
+
+	public static BasicDataSource newDataSource( String jdbcDriverClass, String jdbcUrl, String jdbcUser, String jdbcPassword,
+			int maxConnections ) throws ClassNotFoundException {
+		Class.forName( jdbcDriverClass ) ;
+
+		BasicDataSource bds = new BasicDataSource() ;
+		bds.setDriverClassName( jdbcDriverClass );
+		bds.setUrl( jdbcUrl ) ;
+		bds.setUsername( jdbcUser ) ;
+		bds.setPassword( jdbcPassword ) ;
+		bds.setInitialSize(1);
+		bds.setMaxTotal( maxConnections );
+		bds.setMaxIdle( maxConnections );
+		bds.setMinIdle( 0 );
+		bds.setMaxWaitMillis( MAX_WAIT_MILLIS );
+		// connections are validated with Connection.isValid() as no validation query is configured.
+		bds.setTestOnBorrow( true );
+		bds.setValidationQueryTimeout( VALIDATION_TIMEOUT_SECONDS );
+		return bds ;
+	}
+}
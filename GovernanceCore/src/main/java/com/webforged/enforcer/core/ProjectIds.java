@@ -0,0 +1,69 @@
+package com.webforged.enforcer.core;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Finds the Projects and Components rows of a build, creating them the first time an acronym or component shows up.
+ * One statement does it: the rows are looked up, and only when missing inserted with ON CONFLICT against the unique
+ * indexes on Projects(acronym) and Components(project_id,name).  A parallel build inserting the same rows at the
+ * same moment makes the conflict branch return its ids instead of failing on the index.  Nothing is written once
+ * the rows exist.
+ */
+public final class ProjectIds {
+	private ProjectIds() {}
+
+	static final String COMPONENT =
+			"c_found AS (SELECT c.project_id, c.component_id FROM Components c, p WHERE c.project_id = p.project_id AND c.name = ?), " +
+			"c_new AS (INSERT INTO Components(project_id,name) SELECT project_id, ? FROM p WHERE NOT EXISTS (SELECT 1 FROM c_found) " +
+			"ON CONFLICT (project_id,name) DO UPDATE SET name = EXCLUDED.name RETURNING project_id, component_id) " +
+			"SELECT project_id, component_id FROM c_found UNION ALL SELECT project_id, component_id FROM c_new" ;
+	static final String FIND_OR_CREATE =
+			"WITH p_found AS (SELECT project_id FROM Projects WHERE acronym = ?), " +
+			"p_new AS (INSERT INTO Projects(acronym,begin_date) SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM p_found) " +
+			"ON CONFLICT (acronym) DO UPDATE SET acronym = EXCLUDED.acronym RETURNING project_id), " +
+			"p AS (SELECT project_id FROM p_found UNION ALL SELECT project_id FROM p_new), " + COMPONENT ;
+	static final String FIND_OR_CREATE_COMPONENT =
+			"WITH p AS (SELECT CAST(? AS INT) AS project_id), " + COMPONENT ;
+
+	/**
+	 * @param conn
+	 * @param acronym
+	 * @param component
+	 * @param knownProjectId skips the project lookup when not null
+	 * @return project_id, component_id
+	 * @throws SQLException
+	 */
+	public static Integer[] findOrCreate( Connection conn, String acronym, String component, Integer knownProjectId ) throws SQLException {
+		PreparedStatement ps = null ;
+		ResultSet rs = null ;
+		Integer project_id = knownProjectId ;
+		Integer component_id = null ;
+
+		try {
+			int idx = 1 ;
+			if( project_id == null ) {
+				ps = conn.prepareStatement( FIND_OR_CREATE ) ;
+				ps.setString(idx++, acronym );
+				ps.setString(idx++, acronym );
+				ps.setTimestamp(idx++, new java.sql.Timestamp(System.currentTimeMillis()) );
+			} else {
+				ps = conn.prepareStatement( FIND_OR_CREATE_COMPONENT ) ;
+				ps.setInt(idx++, project_id );
+			}
+			ps.setString(idx++, component );
+			ps.setString(idx++, component );
+			rs = ps.executeQuery();
+			while( rs.next() ) {
+				project_id = rs.getInt("project_id") ;
+				component_id = rs.getInt("component_id") ;
+			}
+		} finally {
+			try { if( rs != null ) rs.close(); } catch(Exception others) {}
+			try { if( ps != null ) ps.close(); } catch(Exception others) {}
+		}
+		return new Integer[] { project_id, component_id } ;
+	}
+}
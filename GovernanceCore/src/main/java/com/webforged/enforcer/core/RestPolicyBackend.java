@@ -0,0 +1,107 @@
+package com.webforged.enforcer.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Policy from EnforcerServices' POST /policy/evaluate, one round-trip per module and no database credentials on
+ * the build agent.  The service creates placeholders for unknown artifacts when the token may write_governance.
+ * Project and component ids are left to the BOM writer.
+ */
+public class RestPolicyBackend implements PolicyBackend {
+	static final int TIMEOUT_MILLIS = 30000 ;
+
+	private final String baseUrl ;
+	private final String token ;
+
+	/**
+	 * @param baseUrl the API root, e.g. https://localhost:8443/v1
+	 * @param token bearer token, may be null
+	 */
+	public RestPolicyBackend( String baseUrl, String token ) {
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl ;
+		this.token = token ;
+	}
+
+	@Override
+	public Integer[] initProject( String acronym, String component ) {
+		return new Integer[] { null, null } ;
+	}
+
+	@Override
+	public Map<Coordinate,ArtifactPolicy> resolve( String acronym, Integer project_id, Collection<Coordinate> coordinates ) throws Exception {
+		StringBuilder body = new StringBuilder( "{\"acronym\":" ).append( Json.quote(acronym) ).append( ",\"artifacts\":[" ) ;
+		boolean first = true ;
+		for( Coordinate c : coordinates ) {
+			body.append( first ? "" : "," )
+				.append( "{\"group_name\":" ).append( Json.quote(c.getGroupId()) )
+				.append( ",\"artifact_name\":" ).append( Json.quote(c.getArtifactId()) )
+				.append( ",\"version_name\":" ).append( Json.quote(c.getVersion()) ).append( "}" ) ;
+			first = false ;
+		}
+		body.append( "]}" ) ;
+
+		Map<Coordinate,ArtifactPolicy> policies = new HashMap<Coordinate,ArtifactPolicy>() ;
+		for( Object o : (List<?>) Json.parse( post("/policy/evaluate", body.toString()) ) ) {
+			Map<?,?> d = (Map<?,?>) o ;
+			Number artifact_id = (Number) d.get( "artifact_id" ) ;
+			String status = (String) d.get( "artifact_status_snapshot" ) ;
+			policies.put( Coordinate.of( (String) d.get("group_name"), (String) d.get("artifact_name"), (String) d.get("version_name") ),
+					new ArtifactPolicy( artifact_id == null ? null : artifact_id.intValue(),
+							status == null || status.isEmpty() ? null : status, false, Boolean.TRUE.equals(d.get("allowed")) ) ) ;
+		}
+		for( Coordinate c : coordinates ) {
+			if( !policies.containsKey(c) ) {
+				policies.put( c, new ArtifactPolicy() ) ;
+			}
+		}
+		return policies ;
+	}
+
+	private String post( String path, String json ) throws IOException {
+		HttpURLConnection http = (HttpURLConnection) new URL( baseUrl + path ).openConnection() ;
+		try {
+			http.setConnectTimeout( TIMEOUT_MILLIS );
+			http.setReadTimeout( TIMEOUT_MILLIS );
+			http.setRequestMethod( "POST" );
+			http.setDoOutput( true );
+			http.setRequestProperty( "Content-Type", "application/json" );
+			http.setRequestProperty( "Accept", "application/json" );
+			if( token != null && !token.isEmpty() ) {
+				http.setRequestProperty( "Authorization", "Bearer " + token );
+			}
+			OutputStream out = http.getOutputStream() ;
+			try {
+				out.write( json.getBytes(StandardCharsets.UTF_8) );
+			} finally {
+				try { out.close(); } catch(Exception others) {}
+			}
+			int status = http.getResponseCode() ;
+			if( status != HttpURLConnection.HTTP_OK ) {
+				throw new IOException( "Policy evaluation returned HTTP " + status ) ;
+			}
+			InputStream in = http.getInputStream() ;
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream() ;
+				byte[] buf = new byte[8192] ;
+				for( int n; (n = in.read(buf)) > 0; ) {
+					bytes.write( buf, 0, n );
+				}
+				return new String( bytes.toByteArray(), StandardCharsets.UTF_8 ) ;
+			} finally {
+				try { in.close(); } catch(Exception others) {}
+			}
+		} finally {
+			http.disconnect();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.webforged.enforcer.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps a local copy of an acronym's {@link PolicySnapshot} in step with EnforcerServices.  The copy is
+ * revalidated with If-None-Match, so an unchanged policy costs one small 304, and when the service cannot be
+ * reached the last copy downloaded is used as is.
+ */
+public class SnapshotClient {
+	static final Logger log = LoggerFactory.getLogger( SnapshotClient.class ) ;
+	static final int TIMEOUT_MILLIS = 10000 ;
+
+	private final String baseUrl ;
+	private final String token ;
+	private final File dir ;
+
+	/**
+	 * @param baseUrl the API root, e.g. https://localhost:8443/v1
+	 * @param token bearer token, may be null
+	 * @param dir where snapshots are kept between builds
+	 */
+	public SnapshotClient( String baseUrl, String token, File dir ) {
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl ;
+		this.token = token ;
+		this.dir = dir ;
+	}
+
+	public static File defaultSnapshotDir() {
+		return new File( new File( System.getProperty("user.home"), ".governance" ), "snapshots" ) ;
+	}
+
+	/**
+	 * Bring the local copy up to date and map it.
+	 * @param acronym
+	 * @return the snapshot
+	 * @throws IOException when there is neither a reachable service nor a local copy
+	 */
+	public PolicySnapshot fetch( String acronym ) throws IOException {
+		String name = URLEncoder.encode( acronym, "UTF-8" ) ;
+		File snapshot = new File( dir, name + ".snapshot" ) ;
+		File etag = new File( dir, name + ".etag" ) ;
+
+		try {
+			refresh( name, snapshot, etag ) ;
+		} catch( IOException any ) {
+			if( !snapshot.isFile() ) {
+				throw any ;
+			}
+			log.warn( "Policy snapshot for " + acronym + " could not be refreshed, using the copy from " +
+					new java.util.Date(snapshot.lastModified()) + ": " + any ) ;
+		}
+		return PolicySnapshot.map( snapshot ) ;
+	}
+
+	private void refresh( String name, File snapshot, File etag ) throws IOException {
+		HttpURLConnection http = (HttpURLConnection) new URL( baseUrl + "/policy/snapshot/" + name ).openConnection() ;
+		try {
+			http.setConnectTimeout( TIMEOUT_MILLIS );
+			http.setReadTimeout( TIMEOUT_MILLIS );
+			http.setRequestProperty( "Accept", "application/octet-stream" );
+			if( token != null && !token.isEmpty() ) {
+				http.setRequestProperty( "Authorization", "Bearer " + token );
+			}
+			if( snapshot.isFile() && etag.isFile() ) {
+				http.setRequestProperty( "If-None-Match", new String( Files.readAllBytes(etag.toPath()), StandardCharsets.UTF_8 ).trim() );
+			}
+
+			int status = http.getResponseCode() ;
+			if( status == HttpURLConnection.HTTP_NOT_MODIFIED ) {
+				return ;
+			}
+			if( status != HttpURLConnection.HTTP_OK ) {
+				throw new IOException( "Policy snapshot request returned HTTP " + status ) ;
+			}
+
+			if( !dir.isDirectory() && !dir.mkdirs() ) {
+				throw new IOException( "Cannot create " + dir ) ;
+			}
+			File tmp = File.createTempFile( name + ".snapshot", ".tmp", dir ) ;
+			try {
+				InputStream in = http.getInputStream() ;
+				try {
+					Files.copy( in, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING ) ;
+				} finally {
+					try { in.close(); } catch(Exception others) {}
+				}
+				// a concurrent build keeps reading its mapping of the file being replaced.
+				Files.move( tmp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE ) ;
+			} finally {
+				tmp.delete() ;
+			}
+			String tag = http.getHeaderField( "ETag" ) ;
+			if( tag != null ) {
+				Files.write( etag.toPath(), tag.getBytes(StandardCharsets.UTF_8) ) ;
+			} else {
+				etag.delete() ;
+			}
+		} finally {
+			http.disconnect();
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package com.webforged.enforcer.core;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Policy from a memory mapped {@link PolicySnapshot}, no database round-trips.  Artifacts the snapshot does not
+ * know are not allowed, their placeholders are left for a database backed build to create.
+ */
+public class SnapshotPolicyBackend implements PolicyBackend {
+	private final PolicySnapshot snapshot ;
+
+	public SnapshotPolicyBackend( PolicySnapshot snapshot ) {
+		this.snapshot = snapshot ;
+	}
+
+	@Override
+	public Integer[] initProject( String acronym, String component ) {
+		return new Integer[] { snapshot.getProjectId(), null } ;
+	}
+
+	@Override
+	public Map<Coordinate,ArtifactPolicy> resolve( String acronym, Integer project_id, Collection<Coordinate> coordinates ) {
+		Map<Coordinate,ArtifactPolicy> policies = new HashMap<Coordinate,ArtifactPolicy>() ;
+		for( Coordinate c : coordinates ) {
+			PolicySnapshot.Entry entry = snapshot.find( c.getGroupId(), c.getArtifactId(), c.getVersion() ) ;
+			policies.put( c, entry == null ? new ArtifactPolicy() :
+				new ArtifactPolicy( entry.getArtifact_id(), entry.getStatus(), entry.isVendorLicensed(), entry.isAllowed() ) ) ;
+		}
+		return policies ;
+	}
+}
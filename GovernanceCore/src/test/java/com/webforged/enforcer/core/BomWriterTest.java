@@ -0,0 +1,69 @@
+package com.webforged.enforcer.core;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.Collections;
+
+import javax.sql.DataSource;
+
+import junit.framework.TestCase;
+
+public class BomWriterTest extends TestCase {
+
+	/** a database that is always down. */
+	static DataSource down() {
+		return (DataSource) Proxy.newProxyInstance( BomWriterTest.class.getClassLoader(), new Class<?>[] { DataSource.class },
+				(proxy, method, args) -> { throw new SQLException( "down" ) ; } ) ;
+	}
+
+	static BuildRecord record() {
+		return new BuildRecord( "ACR", "lib", 1, 2, "1.0", "", "test", Collections.<BomItem>emptyList() ) ;
+	}
+
+	static File[] spooled( File dir ) {
+		return dir.listFiles( (d, name) -> name.endsWith(BomWriter.SPOOL_SUFFIX) ) ;
+	}
+
+	static void delete( File dir ) {
+		File[] files = dir.listFiles() ;
+		if( files != null ) {
+			for( File f : files ) {
+				delete( f ) ;
+			}
+		}
+		dir.delete() ;
+	}
+
+	/**
+	 * A record is spooled for the database it was enforced against, and only a writer for that database replays it.
+	 */
+	public void testSpoolPerDatabase() throws Exception {
+		File dir = File.createTempFile( "spool", "" ) ;
+		dir.delete() ;
+		try {
+			BomWriter a = new BomWriter( down(), "jdbc:postgresql://a/governance", dir, 1, 0L ) ;
+			a.store( record() ) ;
+			a.close( true, 1000L ) ;
+			assertEquals( 0, spooled(dir).length ) ;
+			File[] subdirs = dir.listFiles( File::isDirectory ) ;
+			assertEquals( 1, subdirs.length ) ;
+			assertEquals( 1, spooled(subdirs[0]).length ) ;
+
+			// another database leaves it alone.
+			BomWriter b = new BomWriter( down(), "jdbc:postgresql://b/governance", dir, 1, 0L ) ;
+			b.replay() ;
+			b.close( true, 1000L ) ;
+			assertEquals( 1, spooled(subdirs[0]).length ) ;
+			assertEquals( 2, dir.listFiles( File::isDirectory ).length ) ;
+
+			// without a database the record goes to the directory itself.
+			BomWriter none = new BomWriter( null, null, dir, 1, 0L ) ;
+			none.store( record() ) ;
+			none.close( true, 1000L ) ;
+			assertEquals( 1, spooled(dir).length ) ;
+		} finally {
+			delete( dir ) ;
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.webforged.enforcer.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import junit.framework.TestCase;
+
+public class CoordinateTest extends TestCase {
+
+	public void testInterned() {
+		Coordinate c = Coordinate.of( "org.example", "lib", "1.0" ) ;
+		assertSame( c, Coordinate.of( new String("org.example"), new String("lib"), new String("1.0") ) ) ;
+		assertNotSame( c, Coordinate.of( "org.example", "lib", "1.1" ) ) ;
+		assertEquals( "org.example:lib:1.0", c.getKey() ) ;
+		assertEquals( c.getKey(), c.toString() ) ;
+		assertEquals( "org.example", c.getGroupId() ) ;
+		assertEquals( "lib", c.getArtifactId() ) ;
+		assertEquals( "1.0", c.getVersion() ) ;
+	}
+
+	public void testEquality() {
+		Coordinate c = Coordinate.of( "org.example", "lib", "2.0" ) ;
+		Coordinate d = Coordinate.of( "org.example", "lib", "2.0" ) ;
+		assertEquals( c, d ) ;
+		assertEquals( c.hashCode(), d.hashCode() ) ;
+		assertFalse( c.equals( Coordinate.of( "org.example", "other", "2.0" ) ) ) ;
+		assertFalse( c.equals( "org.example:lib:2.0" ) ) ;
+	}
+
+	/**
+	 * A coordinate read back from a spooled BuildRecord is the interned one.
+	 */
+	public void testDeserializedIsInterned() throws Exception {
+		Coordinate c = Coordinate.of( "org.example", "lib", "3.0" ) ;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream() ;
+		ObjectOutputStream out = new ObjectOutputStream( bytes ) ;
+		out.writeObject( c ) ;
+		out.close() ;
+		ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream(bytes.toByteArray()) ) ;
+		assertSame( c, in.readObject() ) ;
+		in.close() ;
+	}
+}
@@ -0,0 +1,59 @@
+package com.webforged.enforcer.core;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class JsonTest extends TestCase {
+
+	public void testQuotedStringsParseBack() {
+		String[] strings = { "", "plain", "quote \" and \\ backslash", "line\nbreak\r\ttab", "control \u0001\u001f", "unicode \u00e9\u4e2d" } ;
+		for( String s : strings ) {
+			assertEquals( s, Json.parse( Json.quote(s) ) ) ;
+		}
+		assertEquals( "null", Json.quote(null) ) ;
+		assertNull( Json.parse( Json.quote(null) ) ) ;
+	}
+
+	public void testPolicyDecisions() {
+		String body = "[ {\"group_name\":\"org.example\", \"artifact_name\":\"lib\", \"version_name\":\"1.0\","
+				+ " \"artifact_id\":12345678901, \"artifact_status_snapshot\":\"GA\", \"allowed\":true},\n"
+				+ "{\"group_name\":\"org.example\",\"artifact_name\":\"gone\",\"version_name\":\"2.0\",\"artifact_id\":null,"
+				+ "\"artifact_status_snapshot\":\"\",\"allowed\":false} ]" ;
+		List<?> decisions = (List<?>) Json.parse( body ) ;
+		assertEquals( 2, decisions.size() ) ;
+		Map<?,?> known = (Map<?,?>) decisions.get(0) ;
+		assertEquals( Arrays.asList("group_name", "artifact_name", "version_name", "artifact_id", "artifact_status_snapshot", "allowed"),
+				Arrays.asList( known.keySet().toArray() ) ) ;
+		assertEquals( Long.valueOf(12345678901L), known.get("artifact_id") ) ;
+		assertEquals( Boolean.TRUE, known.get("allowed") ) ;
+		Map<?,?> unknown = (Map<?,?>) decisions.get(1) ;
+		assertTrue( unknown.containsKey("artifact_id") ) ;
+		assertNull( unknown.get("artifact_id") ) ;
+		assertEquals( "", unknown.get("artifact_status_snapshot") ) ;
+		assertEquals( Boolean.FALSE, unknown.get("allowed") ) ;
+	}
+
+	public void testValues() {
+		assertEquals( Double.valueOf(-1.5e3), Json.parse("-1.5e3") ) ;
+		assertEquals( Long.valueOf(-7), Json.parse(" -7 ") ) ;
+		assertEquals( "\u00e9/", Json.parse("\"\\u00e9\\/\"") ) ;
+		assertTrue( ((Map<?,?>) Json.parse("{ }")).isEmpty() ) ;
+		assertTrue( ((List<?>) Json.parse("[ ]")).isEmpty() ) ;
+		assertEquals( Arrays.asList( Arrays.asList(1L), "x" ), Json.parse("[[1],\"x\"]") ) ;
+	}
+
+	public void testMalformed() {
+		String[] malformed = { "", "{", "[1,]", "{\"a\" 1}", "\"open", "tru", "[1] 2", "{a:1}" } ;
+		for( String text : malformed ) {
+			try {
+				Json.parse( text ) ;
+				fail( "parsed " + text ) ;
+			} catch( IllegalArgumentException expected ) {
+				assertTrue( expected.getMessage().startsWith("Malformed JSON") ) ;
+			}
+		}
+	}
+}
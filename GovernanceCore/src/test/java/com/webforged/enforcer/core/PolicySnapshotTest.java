@@ -0,0 +1,135 @@
+package com.webforged.enforcer.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import com.webforged.enforcer.core.Lifecycle.STATUS_TYPES;
+
+import junit.framework.TestCase;
+
+public class PolicySnapshotTest extends TestCase {
+
+	static PolicySnapshot.Writer sample( Integer project_id ) {
+		// out of order, and keys whose UTF-8 bytes sort differently from their chars.
+		return new PolicySnapshot.Writer( project_id )
+				.add( "org.zeta", "z", "1", 3, STATUS_TYPES.GA.label, false, false, false )
+				.add( "org.alpha", "a", "1.0", 1, STATUS_TYPES.LIMITED.label, false, true, false )
+				.add( "org.\u00e9", "e", "1", 5, STATUS_TYPES.RETIRED.label, false, false, false )
+				.add( "org.alpha", "a", "1.0-SNAPSHOT", 2, STATUS_TYPES.LIMITED_DEPRECATED.label, true, false, true )
+				.add( "org.\uffe0", "w", "1", 6, STATUS_TYPES.DEPRECATED.label, false, false, false )
+				.add( "org.mid", "m", "2", 4, STATUS_TYPES.CREATED.label, true, false, false ) ;
+	}
+
+	public void testWriteAndFind() throws IOException {
+		PolicySnapshot snapshot = PolicySnapshot.wrap( sample(42).toByteArray() ) ;
+		assertEquals( Integer.valueOf(42), snapshot.getProjectId() ) ;
+		assertEquals( 6, snapshot.size() ) ;
+
+		PolicySnapshot.Entry e = snapshot.find( "org.alpha", "a", "1.0" ) ;
+		assertEquals( 1, e.getArtifact_id() ) ;
+		assertEquals( "LIMITED", e.getStatus() ) ;
+		assertFalse( e.isVendorLicensed() ) ;
+		assertTrue( e.hasAllowedGrant() ) ;
+		assertFalse( e.hasLicensedGrant() ) ;
+		assertTrue( e.isAllowed() ) ;
+
+		e = snapshot.find( "org.alpha", "a", "1.0-SNAPSHOT" ) ;
+		assertEquals( 2, e.getArtifact_id() ) ;
+		assertEquals( "LIMITED_DEPRECATED", e.getStatus() ) ;
+		assertTrue( e.isVendorLicensed() ) ;
+		assertTrue( e.hasLicensedGrant() ) ;
+		assertTrue( e.isAllowed() ) ;
+
+		assertTrue( snapshot.find( "org.zeta", "z", "1" ).isAllowed() ) ;
+		assertTrue( snapshot.find( "org.\uffe0", "w", "1" ).isAllowed() ) ;
+		assertFalse( snapshot.find( "org.mid", "m", "2" ).isAllowed() ) ;
+		assertEquals( 5, snapshot.find( "org.\u00e9", "e", "1" ).getArtifact_id() ) ;
+		assertFalse( snapshot.find( "org.\u00e9", "e", "1" ).isAllowed() ) ;
+
+		assertNull( snapshot.find( "org.alpha", "a", "1" ) ) ;
+		assertNull( snapshot.find( "org.alpha", "a", "1.0-SNAPSHOT1" ) ) ;
+		assertNull( snapshot.find( "org.aaa", "a", "1" ) ) ;
+		assertNull( snapshot.find( "org.\uffff", "a", "1" ) ) ;
+	}
+
+	public void testEmptyAndWithoutProject() throws IOException {
+		PolicySnapshot snapshot = PolicySnapshot.wrap( new PolicySnapshot.Writer(null).toByteArray() ) ;
+		assertNull( snapshot.getProjectId() ) ;
+		assertEquals( 0, snapshot.size() ) ;
+		assertNull( snapshot.find( "g", "a", "v" ) ) ;
+	}
+
+	public void testNotASnapshot() {
+		try {
+			PolicySnapshot.wrap( new byte[] { 1, 2, 3, 4, 0, 0, 0, 0, 0, 0, 0, 0 } ) ;
+			fail() ;
+		} catch( IOException expected ) {
+		}
+		try {
+			PolicySnapshot.wrap( new byte[4] ) ;
+			fail() ;
+		} catch( IOException expected ) {
+		}
+	}
+
+	public void testMap() throws IOException {
+		byte[] bytes = sample(7).toByteArray() ;
+		File file = File.createTempFile( "policy", ".snapshot" ) ;
+		try {
+			FileOutputStream out = new FileOutputStream( file ) ;
+			try {
+				out.write( bytes ) ;
+			} finally {
+				out.close() ;
+			}
+			PolicySnapshot snapshot = PolicySnapshot.map( file ) ;
+			assertEquals( Integer.valueOf(7), snapshot.getProjectId() ) ;
+			assertEquals( 4, snapshot.find( "org.mid", "m", "2" ).getArtifact_id() ) ;
+		} finally {
+			file.delete() ;
+		}
+	}
+
+	/**
+	 * The shared snapshot read with a project's grants is the snapshot written with those grants, whatever the
+	 * size of the reads.
+	 */
+	public void testWithGrants() throws IOException {
+		PolicySnapshot shared = PolicySnapshot.wrap( new PolicySnapshot.Writer( null )
+				.add( "org.zeta", "z", "1", 3, STATUS_TYPES.GA.label, false, false, false )
+				.add( "org.alpha", "a", "1.0", 1, STATUS_TYPES.LIMITED.label, false, false, false )
+				.add( "org.\u00e9", "e", "1", 5, STATUS_TYPES.RETIRED.label, false, false, false )
+				.add( "org.alpha", "a", "1.0-SNAPSHOT", 2, STATUS_TYPES.LIMITED_DEPRECATED.label, true, false, false )
+				.add( "org.\uffe0", "w", "1", 6, STATUS_TYPES.DEPRECATED.label, false, false, false )
+				.add( "org.mid", "m", "2", 4, STATUS_TYPES.CREATED.label, true, false, false )
+				.toByteArray() ) ;
+		byte[] granted = read( shared.openWithGrants( 42, new HashSet<Integer>(Arrays.asList(1)), new HashSet<Integer>(Arrays.asList(2)) ), 7 ) ;
+		assertTrue( Arrays.equals( sample(42).toByteArray(), granted ) ) ;
+		// an artifact granted both ways.
+		granted = read( shared.openWithGrants( 42, new HashSet<Integer>(Arrays.asList(1, 2)), new HashSet<Integer>(Arrays.asList(2, 99)) ), 4096 ) ;
+		assertTrue( PolicySnapshot.wrap( granted ).find( "org.alpha", "a", "1.0-SNAPSHOT" ).hasAllowedGrant() ) ;
+		assertTrue( PolicySnapshot.wrap( granted ).find( "org.alpha", "a", "1.0-SNAPSHOT" ).hasLicensedGrant() ) ;
+
+		byte[] none = read( shared.openWithGrants( null, Collections.<Integer>emptySet(), Collections.<Integer>emptySet() ), 1 ) ;
+		PolicySnapshot snapshot = PolicySnapshot.wrap( none ) ;
+		assertNull( snapshot.getProjectId() ) ;
+		assertFalse( snapshot.find( "org.alpha", "a", "1.0" ).isAllowed() ) ;
+		assertTrue( snapshot.find( "org.alpha", "a", "1.0-SNAPSHOT" ).isVendorLicensed() ) ;
+		assertFalse( snapshot.find( "org.alpha", "a", "1.0-SNAPSHOT" ).isAllowed() ) ;
+	}
+
+	static byte[] read( InputStream in, int size ) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream() ;
+		byte[] b = new byte[ size ] ;
+		for( int n; (n = in.read(b, 0, size)) >= 0; ) {
+			out.write( b, 0, n ) ;
+		}
+		return out.toByteArray() ;
+	}
+}
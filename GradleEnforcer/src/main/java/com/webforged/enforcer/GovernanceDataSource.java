@@ -0,0 +1,160 @@
+package com.webforged.enforcer;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import com.webforged.enforcer.core.BomWriter;
+import com.webforged.enforcer.core.BuildRecord;
+import com.webforged.enforcer.core.JdbcPolicyBackend;
+import com.webforged.enforcer.core.PolicyBackend;
+import com.webforged.enforcer.core.PolicyCache;
+import com.webforged.enforcer.core.PolicySnapshot;
+import com.webforged.enforcer.core.Pools;
+import com.webforged.enforcer.core.RestPolicyBackend;
+import com.webforged.enforcer.core.SnapshotClient;
+import com.webforged.enforcer.core.SnapshotPolicyBackend;
+
+/**
+ * Build scoped connection pool, BOM writer and policy sources.  Gradle creates the service the first time a governance task asks
+ * for it, shares it between every project of the build, and closes it when the build finishes.  Closing waits for
+ * background BOM writes only when AwaitBomWrites is set, anything unwritten stays in the spool directory.
+ *
+ * Only the jdbc PolicyBackend needs the jdbc settings.  The others open the pool to write the BOM when JdbcUrl is
+ * set, and spool it otherwise.
+ */
+public abstract class GovernanceDataSource implements BuildService<GovernanceDataSource.Params>, AutoCloseable {
+	static final long RETRY_DELAY_MILLIS = 1000L ;
+
+	public interface Params extends BuildServiceParameters {
+		Property<String> getJdbcDriverClass() ;
+		Property<String> getJdbcUrl() ;
+		Property<String> getJdbcUser() ;
+		Property<String> getJdbcPassword() ;
+		Property<Integer> getMaxConnections() ;
+		Property<Boolean> getAsyncBomWrites() ;
+		Property<Boolean> getAwaitBomWrites() ;
+		Property<Long> getAwaitBomTimeout() ;
+		Property<Integer> getBomWriteAttempts() ;
+		Property<String> getBomSpoolDir() ;
+		Property<Long> getCacheTtl() ;
+		Property<String> getPolicyBackend() ;
+		Property<String> getPolicyServiceUrl() ;
+		Property<String> getPolicyServiceToken() ;
+		Property<String> getPolicySnapshotDir() ;
+	}
+
+	private BasicDataSource bds ;
+	private BomWriter writer ;
+	private final Map<String,PolicySnapshot> snapshots = new HashMap<String,PolicySnapshot>() ;
+	private final Map<String,PolicyCache> caches = new HashMap<String,PolicyCache>() ;
+
+	public synchronized DataSource getDataSource() throws ClassNotFoundException {
+		if( bds == null ) {
+			Params params = getParameters() ;
+			bds = Pools.newDataSource( params.getJdbcDriverClass().get(), params.getJdbcUrl().get(),
+					params.getJdbcUser().get(), params.getJdbcPassword().get(), params.getMaxConnections().get() ) ;
+		}
+		return bds ;
+	}
+
+	/**
+	 * Where the acronym's policy comes from, per PolicyBackend: jdbc (the default), snapshot or rest.
+	 * @param acronym
+	 * @return the backend
+	 * @throws Exception when the snapshot can neither be downloaded nor found locally, or the pool cannot be created
+	 */
+	public synchronized PolicyBackend getPolicyBackend( String acronym ) throws Exception {
+		Params params = getParameters() ;
+		String backend = params.getPolicyBackend().getOrElse( "jdbc" ) ;
+		if( "snapshot".equalsIgnoreCase(backend) ) {
+			return new SnapshotPolicyBackend( getSnapshot(acronym) ) ;
+		}
+		if( "rest".equalsIgnoreCase(backend) ) {
+			return new RestPolicyBackend( params.getPolicyServiceUrl().get(), params.getPolicyServiceToken().getOrNull() ) ;
+		}
+		return new JdbcPolicyBackend( getDataSource(), getPolicyCache(acronym) ) ;
+	}
+
+	/**
+	 * The acronym's policy snapshot, downloaded or revalidated once per build.
+	 */
+	private PolicySnapshot getSnapshot( String acronym ) throws IOException {
+		PolicySnapshot snapshot = snapshots.get( acronym ) ;
+		if( snapshot == null ) {
+			Params params = getParameters() ;
+			String dir = params.getPolicySnapshotDir().getOrNull() ;
+			snapshot = new SnapshotClient( params.getPolicyServiceUrl().get(), params.getPolicyServiceToken().getOrNull(),
+					dir == null || dir.isEmpty() ? SnapshotClient.defaultSnapshotDir() : new File( dir ) ).fetch( acronym ) ;
+			snapshots.put( acronym, snapshot ) ;
+		}
+		return snapshot ;
+	}
+
+	/**
+	 * The build wide cache for an acronym, a fresh one when expired, null when CacheTtl is 0.
+	 */
+	private PolicyCache getPolicyCache( String acronym ) {
+		long ttl = getParameters().getCacheTtl().getOrElse( 600L ) ;
+		if( ttl <= 0 ) {
+			return null ;
+		}
+		PolicyCache cache = caches.get( acronym ) ;
+		if( cache == null || cache.isExpired() ) {
+			cache = new PolicyCache( ttl ) ;
+			caches.put( acronym, cache ) ;
+		}
+		return cache ;
+	}
+
+	/**
+	 * Write the BOM now, or hand it to the background writer when AsyncBomWrites is set.
+	 * @param record
+	 * @throws ClassNotFoundException
+	 */
+	public void writeBOM( BuildRecord record ) throws ClassNotFoundException {
+		BomWriter bomWriter = getBomWriter() ;
+		if( getParameters().getAsyncBomWrites().getOrElse( false ) ) {
+			bomWriter.submit( record ) ;
+		} else {
+			bomWriter.store( record ) ;
+		}
+	}
+
+	private synchronized BomWriter getBomWriter() throws ClassNotFoundException {
+		if( writer == null ) {
+			Params params = getParameters() ;
+			String spoolDir = params.getBomSpoolDir().getOrNull() ;
+			String backend = params.getPolicyBackend().getOrElse( "jdbc" ) ;
+			boolean jdbc = !"snapshot".equalsIgnoreCase(backend) && !"rest".equalsIgnoreCase(backend) ;
+			String url = params.getJdbcUrl().getOrNull() ;
+			writer = new BomWriter( jdbc || (url != null && !url.isEmpty()) ? getDataSource() : null, url,
+					spoolDir == null || spoolDir.isEmpty() ? BomWriter.defaultSpoolDir() : new File( spoolDir ),
+					params.getBomWriteAttempts().getOrElse( 3 ), RETRY_DELAY_MILLIS ) ;
+			writer.replay();
+		}
+		return writer ;
+	}
+
+	@Override
+	public synchronized void close() throws SQLException {
+		if( writer != null ) {
+			Params params = getParameters() ;
+			writer.close( params.getAwaitBomWrites().getOrElse( false ), params.getAwaitBomTimeout().getOrElse( 60L ) * 1000L ) ;
+			writer = null ;
+		}
+		if( bds != null ) {
+			bds.close();
+			bds = null ;
+		}
+	}
+}
@@ -2,12 +2,26 @@ package com.webforged.enforcer;
 
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
 
 class GovernanceExtension {
 	String jdbcDriverClass ;
 	String jdbcUrl ;
 	String jdbcUser ;
 	String jdbcPassword ;
+	Integer jdbcMaxConnections = 4 ;
+	/** also govern everything runtimeClasspath pulls in transitively. */
+	Boolean transitive = false ;
+	Boolean asyncBomWrites = false ;
+	Boolean awaitBomWrites = false ;
+	Long awaitBomTimeout = 60L ;
+	Integer bomWriteAttempts = 3 ;
+	String bomSpoolDir ;
+	Long cacheTtl = 600L ;
+	String policyBackend = "jdbc" ;
+	String policyServiceUrl ;
+	String policyServiceToken ;
+	String policySnapshotDir ;
 	
 	public GovernanceExtension() {}
 }
@@ -16,6 +30,29 @@ public class GradleGovernancePlugin implements Plugin<Project> {
 	@Override
     public void apply(Project gradleProject) {
     	GovernanceTask gt = gradleProject.getTasks().create( "governance", GovernanceTask.class );
-    	gt.getExtensions().create( "GovernanceExtension",  GovernanceExtension.class ) ;
+    	GovernanceExtension ge = gt.getExtensions().create( "GovernanceExtension",  GovernanceExtension.class ) ;
+    	//
+    	// one pool, BOM writer and policy source for the whole build, the first project to apply the plugin supplies the connection settings.
+    	//
+    	Provider<GovernanceDataSource> ds = gradleProject.getGradle().getSharedServices().registerIfAbsent(
+    			"governanceDataSource", GovernanceDataSource.class, spec -> {
+    				spec.getParameters().getJdbcDriverClass().set( gradleProject.provider( () -> ge.jdbcDriverClass ) ) ;
+    				spec.getParameters().getJdbcUrl().set( gradleProject.provider( () -> ge.jdbcUrl ) ) ;
+    				spec.getParameters().getJdbcUser().set( gradleProject.provider( () -> ge.jdbcUser ) ) ;
+    				spec.getParameters().getJdbcPassword().set( gradleProject.provider( () -> ge.jdbcPassword ) ) ;
+    				spec.getParameters().getMaxConnections().set( gradleProject.provider( () -> ge.jdbcMaxConnections ) ) ;
+    				spec.getParameters().getAsyncBomWrites().set( gradleProject.provider( () -> ge.asyncBomWrites ) ) ;
+    				spec.getParameters().getAwaitBomWrites().set( gradleProject.provider( () -> ge.awaitBomWrites ) ) ;
+    				spec.getParameters().getAwaitBomTimeout().set( gradleProject.provider( () -> ge.awaitBomTimeout ) ) ;
+    				spec.getParameters().getBomWriteAttempts().set( gradleProject.provider( () -> ge.bomWriteAttempts ) ) ;
+    				spec.getParameters().getBomSpoolDir().set( gradleProject.provider( () -> ge.bomSpoolDir ) ) ;
+    				spec.getParameters().getCacheTtl().set( gradleProject.provider( () -> ge.cacheTtl ) ) ;
+    				spec.getParameters().getPolicyBackend().set( gradleProject.provider( () -> ge.policyBackend ) ) ;
+    				spec.getParameters().getPolicyServiceUrl().set( gradleProject.provider( () -> ge.policyServiceUrl ) ) ;
+    				spec.getParameters().getPolicyServiceToken().set( gradleProject.provider( () -> ge.policyServiceToken ) ) ;
+    				spec.getParameters().getPolicySnapshotDir().set( gradleProject.provider( () -> ge.policySnapshotDir ) ) ;
+    			} ) ;
+    	gt.getDataSource().set( ds ) ;
+    	gt.usesService( ds ) ;
     }
 }
@@ -0,0 +1,83 @@
+package com.webforged.enforcer.maven.rule;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.sql.DataSource;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.webforged.enforcer.core.BomWriter;
+
+/**
+ * One {@link BomWriter} per build and database, alongside the build's {@link SharedDataSource}.  Spooled BOMs left by
+ * earlier builds are replayed when the writer is created; the writer is closed at SessionEnded, before the pools, and
+ * only waits for outstanding writes when the rule asked it to.  A build without a database gets a writer that
+ * only spools.
+ */
+class SharedBomWriter {
+	static final Logger log = LoggerFactory.getLogger( SharedBomWriter.class ) ;
+
+	static final long RETRY_DELAY_MILLIS = 1000L ;
+
+	private static final Map<MavenExecutionRequest,Map<String,SharedBomWriter>> SESSIONS =
+			Collections.synchronizedMap( new WeakHashMap<MavenExecutionRequest,Map<String,SharedBomWriter>>() ) ;
+
+	final BomWriter writer ;
+	private final int attempts ;
+	private final boolean await ;
+	private final long awaitMillis ;
+
+	private SharedBomWriter( BomWriter writer, int attempts, boolean await, long awaitMillis ) {
+		this.writer = writer ;
+		this.attempts = attempts ;
+		this.await = await ;
+		this.awaitMillis = awaitMillis ;
+	}
+
+	/**
+	 * The writer for a database and spool directory, shared by every module of the build that uses them.  The first
+	 * of those modules' attempts and await settings win, a later module configured otherwise is warned.
+	 * @param dataSource null when the build has no database
+	 * @param jdbcUrl the dataSource's url
+	 */
+	static BomWriter forSession( MavenSession session, DataSource dataSource, String jdbcUrl, File spoolDir, int attempts,
+			boolean await, long awaitSeconds ) {
+		String key = (dataSource == null ? "" : jdbcUrl) + "|" + spoolDir ;
+		synchronized( SESSIONS ) {
+			Map<String,SharedBomWriter> writers = SESSIONS.get( session.getRequest() ) ;
+			if( writers == null ) {
+				SharedDataSource.closeAtSessionEnd( session ) ;
+				writers = new HashMap<String,SharedBomWriter>() ;
+				SESSIONS.put( session.getRequest(), writers ) ;
+			}
+			SharedBomWriter shared = writers.get( key ) ;
+			if( shared == null ) {
+				BomWriter writer = new BomWriter( dataSource, jdbcUrl, spoolDir, attempts, RETRY_DELAY_MILLIS ) ;
+				writer.replay();
+				shared = new SharedBomWriter( writer, attempts, await, awaitSeconds * 1000L ) ;
+				writers.put( key, shared ) ;
+			} else if( shared.attempts != attempts || shared.await != await || shared.awaitMillis != awaitSeconds * 1000L ) {
+				log.warn( "bomWriteAttempts, awaitBomWrites and awaitBomTimeout differ between modules writing to " + spoolDir
+						+ ", the build keeps the first module's " + shared.attempts + ", " + shared.await + " and " + shared.awaitMillis / 1000L ) ;
+			}
+			return shared.writer ;
+		}
+	}
+
+	static void close( MavenExecutionRequest request ) {
+		Map<String,SharedBomWriter> writers = SESSIONS.remove( request ) ;
+		if( writers == null ) {
+			return ;
+		}
+		for( SharedBomWriter shared : writers.values() ) {
+			shared.writer.close( shared.await, shared.awaitMillis ) ;
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package com.webforged.enforcer.maven.rule;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+
+import com.webforged.enforcer.core.Pools;
+
+/**
+ * One bounded connection pool per build.  Every module of the reactor borrows from the same pool instead of
+ * opening its own, and the pool is closed when Maven fires SessionEnded so no idle connections outlive the build.
+ *
+ * Pools are keyed by the session's MavenExecutionRequest, which is shared by every module and by the cloned
+ * sessions of a parallel build, and then by url/user in case several rule configurations point elsewhere.
+ */
+class SharedDataSource {
+	private static final Map<MavenExecutionRequest,Map<String,BasicDataSource>> SESSIONS =
+			Collections.synchronizedMap( new WeakHashMap<MavenExecutionRequest,Map<String,BasicDataSource>>() ) ;
+
+	static BasicDataSource forSession( MavenSession session, String jdbcDriverClass, String jdbcUrl,
+			String jdbcUser, String jdbcPassword, int maxConnections ) throws ClassNotFoundException {
+		Map<String,BasicDataSource> pools = closeAtSessionEnd( session ) ;
+		synchronized( pools ) {
+			String key = jdbcUrl + "|" + jdbcUser ;
+			BasicDataSource bds = pools.get( key ) ;
+			if( bds == null ) {
+				bds = Pools.newDataSource( jdbcDriverClass, jdbcUrl, jdbcUser, jdbcPassword, maxConnections ) ;
+				pools.put( key, bds ) ;
+			}
+			return bds ;
+		}
+	}
+
+	/**
+	 * Install the listener that closes the build's BOM writer and pools, once per build, whether or not it opens a pool.
+	 * @return the build's pools
+	 */
+	static Map<String,BasicDataSource> closeAtSessionEnd( MavenSession session ) {
+		MavenExecutionRequest request = session.getRequest() ;
+		synchronized( SESSIONS ) {
+			Map<String,BasicDataSource> pools = SESSIONS.get( request ) ;
+			if( pools == null ) {
+				pools = new ConcurrentHashMap<String,BasicDataSource>() ;
+				SESSIONS.put( request, pools ) ;
+				request.setExecutionListener( new SessionEndListener( request.getExecutionListener(), request ) ) ;
+			}
+			return pools ;
+		}
+	}
+
+	static void close( MavenExecutionRequest request ) {
+		Map<String,BasicDataSource> pools = SESSIONS.remove( request ) ;
+		if( pools == null ) {
+			return ;
+		}
+		for( BasicDataSource bds : pools.values() ) {
+			try { bds.close(); } catch(Exception others) {}
+		}
+	}
+
+	/**
+	 * Passes every event through to the listener Maven installed and, once the session ends, closes the build's
+	 * BOM writer and then its pools.
+	 */
+	private static class SessionEndListener implements ExecutionListener {
+		private final ExecutionListener delegate ;
+		private final MavenExecutionRequest request ;
+
+		SessionEndListener( ExecutionListener delegate, MavenExecutionRequest request ) {
+			this.delegate = delegate ;
+			this.request = request ;
+		}
+
+		@Override
+		public void sessionEnded( ExecutionEvent event ) {
+			try {
+				if( delegate != null ) delegate.sessionEnded( event ) ;
+			} finally {
+				try {
+					SharedBomWriter.close( request ) ;
+				} finally {
+					SharedDataSource.close( request ) ;
+				}
+			}
+		}
+
+		@Override
+		public void projectDiscoveryStarted( ExecutionEvent event ) { if( delegate != null ) delegate.projectDiscoveryStarted( event ) ; }
+		@Override
+		public void sessionStarted( ExecutionEvent event ) { if( delegate != null ) delegate.sessionStarted( event ) ; }
+		@Override
+		public void projectSkipped( ExecutionEvent event ) { if( delegate != null ) delegate.projectSkipped( event ) ; }
+		@Override
+		public void projectStarted( ExecutionEvent event ) { if( delegate != null ) delegate.projectStarted( event ) ; }
+		@Override
+		public void projectSucceeded( ExecutionEvent event ) { if( delegate != null ) delegate.projectSucceeded( event ) ; }
+		@Override
+		public void projectFailed( ExecutionEvent event ) { if( delegate != null ) delegate.projectFailed( event ) ; }
+		@Override
+		public void mojoSkipped( ExecutionEvent event ) { if( delegate != null ) delegate.mojoSkipped( event ) ; }
+		@Override
+		public void mojoStarted( ExecutionEvent event ) { if( delegate != null ) delegate.mojoStarted( event ) ; }
+		@Override
+		public void mojoSucceeded( ExecutionEvent event ) { if( delegate != null ) delegate.mojoSucceeded( event ) ; }
+		@Override
+		public void mojoFailed( ExecutionEvent event ) { if( delegate != null ) delegate.mojoFailed( event ) ; }
+		@Override
+		public void forkStarted( ExecutionEvent event ) { if( delegate != null ) delegate.forkStarted( event ) ; }
+		@Override
+		public void forkSucceeded( ExecutionEvent event ) { if( delegate != null ) delegate.forkSucceeded( event ) ; }
+		@Override
+		public void forkFailed( ExecutionEvent event ) { if( delegate != null ) delegate.forkFailed( event ) ; }
+		@Override
+		public void forkedProjectStarted( ExecutionEvent event ) { if( delegate != null ) delegate.forkedProjectStarted( event ) ; }
+		@Override
+		public void forkedProjectSucceeded( ExecutionEvent event ) { if( delegate != null ) delegate.forkedProjectSucceeded( event ) ; }
+		@Override
+		public void forkedProjectFailed( ExecutionEvent event ) { if( delegate != null ) delegate.forkedProjectFailed( event ) ; }
+	}
+}
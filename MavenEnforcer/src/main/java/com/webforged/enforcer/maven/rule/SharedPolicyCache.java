@@ -0,0 +1,44 @@
+package com.webforged.enforcer.maven.rule;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+
+import com.webforged.enforcer.core.PolicyCache;
+
+/**
+ * Reactor wide {@link PolicyCache} for each acronym.  Caches hang off the session's MavenExecutionRequest, which
+ * every module (and every cloned session of a parallel build) shares, so they disappear with the build.  Like the
+ * {@link SharedDataSource} pools they are keyed by url as well, grants read from one database are no use for another.
+ */
+class SharedPolicyCache {
+	private static final Map<MavenExecutionRequest,Map<String,PolicyCache>> SESSIONS =
+			Collections.synchronizedMap( new WeakHashMap<MavenExecutionRequest,Map<String,PolicyCache>>() ) ;
+
+	/**
+	 * The cache for an acronym and database within the running build, a fresh one when absent or expired.
+	 */
+	static PolicyCache forSession( MavenSession session, String jdbcUrl, String acronym, long ttlSeconds ) {
+		Map<String,PolicyCache> caches ;
+		synchronized( SESSIONS ) {
+			caches = SESSIONS.get( session.getRequest() ) ;
+			if( caches == null ) {
+				caches = new ConcurrentHashMap<String,PolicyCache>() ;
+				SESSIONS.put( session.getRequest(), caches ) ;
+			}
+		}
+		synchronized( caches ) {
+			String key = jdbcUrl + "|" + acronym ;
+			PolicyCache cache = caches.get( key ) ;
+			if( cache == null || cache.isExpired() ) {
+				cache = new PolicyCache( ttlSeconds ) ;
+				caches.put( key, cache ) ;
+			}
+			return cache ;
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package com.webforged.enforcer.maven.rule;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+
+import com.webforged.enforcer.core.PolicySnapshot;
+import com.webforged.enforcer.core.SnapshotClient;
+
+/**
+ * The policy snapshot of each acronym, downloaded (or revalidated) once per build and mapped once for every module.
+ */
+class SharedSnapshot {
+	private static final Map<MavenExecutionRequest,Map<String,PolicySnapshot>> SESSIONS =
+			Collections.synchronizedMap( new WeakHashMap<MavenExecutionRequest,Map<String,PolicySnapshot>>() ) ;
+
+	static PolicySnapshot forSession( MavenSession session, String url, String token, File dir, String acronym ) throws IOException {
+		Map<String,PolicySnapshot> snapshots ;
+		synchronized( SESSIONS ) {
+			snapshots = SESSIONS.get( session.getRequest() ) ;
+			if( snapshots == null ) {
+				snapshots = new ConcurrentHashMap<String,PolicySnapshot>() ;
+				SESSIONS.put( session.getRequest(), snapshots ) ;
+			}
+		}
+		synchronized( snapshots ) {
+			PolicySnapshot snapshot = snapshots.get( acronym ) ;
+			if( snapshot == null ) {
+				snapshot = new SnapshotClient( url, token, dir ).fetch( acronym ) ;
+				snapshots.put( acronym, snapshot ) ;
+			}
+			return snapshot ;
+		}
+	}
+}